@@ -0,0 +1,72 @@
+package cs485.dbms;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building a {@link Transaction} the way a teller does, and formatting it for the database log.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark 
+{
+	private static final int FIRST_ACCOUNT = 42001;
+	
+	@Param({"1", "8"})
+	public int transfers;
+	
+	//Pre-built transfers, so the benchmark only measures the transaction itself
+	private int[] sources, targets;
+	private double[] amounts;
+	private Transaction transaction;
+	
+	@Setup
+	public void createTransfers()
+	{
+		sources = new int[transfers];
+		targets = new int[transfers];
+		amounts = new double[transfers];
+		ThreadLocalRandom rand = ThreadLocalRandom.current();
+		for(int i = 0; i < transfers; ++i)
+		{
+			sources[i] = FIRST_ACCOUNT + rand.nextInt(100);
+			targets[i] = FIRST_ACCOUNT + rand.nextInt(100);
+			amounts[i] = Math.round(rand.nextDouble() * 100000.0d) / 100.0d;
+		}
+		
+		transaction = new Transaction(1, sources, targets, amounts);
+	}
+	
+	@Benchmark
+	public Transaction create()
+	{
+		return new Transaction(1, sources, targets, amounts);
+	}
+	
+	@Benchmark
+	public String toLog()
+	{
+		return transaction.toLog();
+	}
+}
@@ -0,0 +1,45 @@
+package cs485.dbms.bench;
+
+import java.util.ArrayList;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Accepts every regular JMH command line option, plus "-threads 1,2,4,8"
+ * to repeat the selected benchmarks once for each thread count (JMH's own "-t" only accepts a single count).
+ * 
+ * ex. java -jar target/benchmarks.jar -threads 1,4 -p accountCount=100,10000 AccountTable
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class BenchmarkRunner 
+{
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException
+	{
+		ArrayList<String> jmhArgs = new ArrayList<String>();
+		String threads = "1";
+		
+		//Pull out the thread sweep, everything else is handed to JMH as is
+		for(int i = 0; i < args.length; ++i)
+		{
+			if(args[i].equals("-threads") && i + 1 < args.length)
+				threads = args[++i];
+			else
+				jmhArgs.add(args[i]);
+		}
+		
+		CommandLineOptions options = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+		
+		for(String count : threads.split(","))
+		{
+			new Runner(new OptionsBuilder().parent(options).threads(Integer.parseInt(count.trim())).build()).run();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the balance updates of {@link Account}, including the rounded balance recalculation.
+ * Threads pick from accountCount accounts, so fewer accounts means more contention on each account's monitor.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark 
+{
+	@Param({"100", "10000"})
+	public int accountCount;
+	
+	private Account[] accounts;
+	
+	@Setup
+	public void createAccounts()
+	{
+		accounts = new Account[accountCount];
+		for(int i = 0; i < accountCount; ++i)
+			accounts[i] = new Account("First" + i, "Last" + i, AccountTableBenchmark.FIRST_ACCOUNT + i, 1000000.0d);
+	}
+	
+	@Benchmark
+	public void setBalance()
+	{
+		ThreadLocalRandom rand = ThreadLocalRandom.current();
+		accounts[rand.nextInt(accountCount)].setBalance(rand.nextDouble() * 1000000.0d);
+	}
+	
+	@Benchmark
+	public String getRoundedBalance()
+	{
+		return accounts[ThreadLocalRandom.current().nextInt(accountCount)].getRoundedBalance();
+	}
+}
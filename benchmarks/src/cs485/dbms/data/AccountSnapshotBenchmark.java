@@ -0,0 +1,63 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks taking an {@link AccountSnapshot} of a table, and the aggregate queries run on one.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountSnapshotBenchmark 
+{
+	@Param({"10000", "100000"})
+	public int accountCount;
+	
+	private AccountTable table;
+	private AccountSnapshot snapshot;
+	
+	@Setup
+	public void createSnapshot()
+	{
+		table = AccountTableBenchmark.fillTable(accountCount);
+		snapshot = table.snapshot();
+	}
+	
+	@Benchmark
+	public AccountSnapshot snapshot()
+	{
+		return table.snapshot();
+	}
+	
+	@Benchmark
+	public double total()
+	{
+		return snapshot.getTotal();
+	}
+	
+	@Benchmark
+	public Object top()
+	{
+		return snapshot.getTop(10);
+	}
+}
@@ -0,0 +1,135 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cs485.dbms.lock.LockOwner;
+
+/**
+ * Benchmarks the lookup (by number, number range and name), insertion, account locking and balance summary paths of {@link AccountTable}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountTableBenchmark 
+{
+	//The first account number, matching the numbering within Accounts.txt
+	static final int FIRST_ACCOUNT = 42001;
+	
+	@Param({"100", "10000"})
+	public int accountCount;
+	
+	private AccountTable table;
+	
+	@Setup(Level.Trial)
+	public void createTable()
+	{
+		table = fillTable(accountCount);
+		table.createNameIndex();
+	}
+	
+	/**
+	 * Creates a table of the given size, with accounts numbered from {@link #FIRST_ACCOUNT}.
+	 */
+	static AccountTable fillTable(int count)
+	{
+		AccountTable table = new AccountTable();
+		for(int i = 0; i < count; ++i)
+			table.add(new Account("First" + i, "Last" + i, FIRST_ACCOUNT + i, 1000000.0d));
+		return table;
+	}
+	
+	private int randomAccount()
+	{
+		return FIRST_ACCOUNT + ThreadLocalRandom.current().nextInt(accountCount);
+	}
+	
+	@Benchmark
+	public Account get()
+	{
+		return table.get(randomAccount());
+	}
+	
+	@Benchmark
+	public Object findByName()
+	{
+		int i = ThreadLocalRandom.current().nextInt(accountCount);
+		return table.findByName("Last" + i, "First" + i);
+	}
+	
+	@Benchmark
+	public int range()
+	{
+		//A branch sized range of 100 accounts
+		int first = FIRST_ACCOUNT + ThreadLocalRandom.current().nextInt(Math.max(1, accountCount - 100));
+		int count = 0;
+		for(Account account : table.getRange(first, first + 99))
+			count += account.getAccountNumber() & 1;
+		return count;
+	}
+	
+	@Benchmark
+	public void add(AddState state)
+	{
+		//Wrap around within the account count, so the table never grows past the parameter
+		if(state.nextAccount >= FIRST_ACCOUNT + accountCount)
+			state.nextAccount = FIRST_ACCOUNT;
+		
+		state.table.add(new Account("First", "Last", state.nextAccount++, 1000000.0d));
+	}
+	
+	@Benchmark
+	public boolean lockAccount()
+	{
+		int account = randomAccount();
+		LockOwner owner = new LockOwner(Thread.currentThread().getId());
+		boolean locked = table.lockAccount(owner, account);
+		table.unlockAll(owner);
+		return locked;
+	}
+	
+	@Benchmark
+	public BalanceSummary balanceSummary()
+	{
+		return table.getBalanceSummary();
+	}
+	
+	/**
+	 * A table that the add benchmark fills, one per thread as AccountTable.add is only ever called by the thread loading the accounts,
+	 * recreated before every iteration.
+	 */
+	@State(Scope.Thread)
+	public static class AddState
+	{
+		AccountTable table;
+		int nextAccount;
+		
+		@Setup(Level.Iteration)
+		public void createTable()
+		{
+			table = new AccountTable();
+			nextAccount = FIRST_ACCOUNT;
+		}
+	}
+}
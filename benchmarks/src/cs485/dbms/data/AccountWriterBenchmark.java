@@ -0,0 +1,76 @@
+package cs485.dbms.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the memory mapped account file updates of {@link AccountWriter}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountWriterBenchmark 
+{
+	@Param({"100", "10000"})
+	public int accountCount;
+	
+	private AccountTable table;
+	private AccountWriter writer;
+	private File accountFile;
+	
+	@Setup
+	public void openFile() throws IOException
+	{
+		table = AccountTableBenchmark.fillTable(accountCount);
+		accountFile = File.createTempFile("AccountsBenchmark", ".txt");
+		writer = new AccountWriter(table, accountFile.getPath());
+		writer.openAccountFile();
+	}
+	
+	@TearDown
+	public void closeFile()
+	{
+		writer.closeAccountFile();
+		accountFile.delete();
+	}
+	
+	private Account randomAccount()
+	{
+		return table.get(AccountTableBenchmark.FIRST_ACCOUNT + ThreadLocalRandom.current().nextInt(accountCount));
+	}
+	
+	@Benchmark
+	public void writeAccount()
+	{
+		writer.writeAccount(randomAccount());
+	}
+	
+	@Benchmark
+	public String formatAccount()
+	{
+		return writer.formatAccount(randomAccount());
+	}
+}
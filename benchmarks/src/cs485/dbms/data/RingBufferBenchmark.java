@@ -0,0 +1,75 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link RingBuffer} that can replace the {@link SyncQueue} of requests to the processing threads.
+ * The ring is pre-filled with accountCount requests as in {@link SyncQueueBenchmark}, with room for as many again,
+ * and the contended group hands requests from two producer threads to two consumer threads through it.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark
+{
+	@Param({"100", "10000"})
+	public int accountCount;
+	
+	private RingBuffer<String> ring;
+	
+	@Setup
+	public void fillRing()
+	{
+		ring = new RingBuffer<String>(Integer.highestOneBit(accountCount) << 2);
+		for(int i = 0; i < accountCount; ++i)
+			ring.put("<COMMIT " + i + ">");
+	}
+	
+	@Benchmark
+	@Group("ring")
+	public String putPoll()
+	{
+		//Put then poll, keeping the ring's length steady at accountCount
+		ring.put("<COMMIT 0>");
+		return ring.poll();
+	}
+	
+	@Benchmark
+	@Group("contendedRing")
+	@GroupThreads(2)
+	public boolean ringProducer()
+	{
+		//Not put, which would wait forever once the consumers stop at the end of an iteration
+		return ring.offer("<COMMIT 0>");
+	}
+	
+	@Benchmark
+	@Group("contendedRing")
+	@GroupThreads(2)
+	public String ringConsumer()
+	{
+		return ring.poll();
+	}
+}
@@ -0,0 +1,62 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link SyncQueue} operations used by the request and response queues.
+ * The queue is pre-filled with accountCount requests, mirroring a backlog of that many pending messages.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncQueueBenchmark 
+{
+	@Param({"100", "10000"})
+	public int accountCount;
+	
+	private SyncQueue<String> queue;
+	
+	@Setup
+	public void fillQueue()
+	{
+		queue = new SyncQueue<String>();
+		for(int i = 0; i < accountCount; ++i)
+			queue.add("<COMMIT " + i + ">");
+	}
+	
+	@Benchmark
+	public String addPoll()
+	{
+		//Add then poll, keeping the queue length steady at accountCount
+		queue.add("<COMMIT 0>");
+		return queue.poll();
+	}
+	
+	@Benchmark
+	public String get()
+	{
+		//Random access into the queue
+		return queue.get(ThreadLocalRandom.current().nextInt(accountCount));
+	}
+}
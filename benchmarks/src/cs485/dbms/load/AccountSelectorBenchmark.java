@@ -0,0 +1,59 @@
+package cs485.dbms.load;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the account picks a teller makes for every transfer, uniform and skewed.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountSelectorBenchmark 
+{
+	@Param({"100", "1000000"})
+	public int accountCount;
+	
+	@Param({"0", "1.2"})
+	public double skew;
+	
+	private AccountSelector selector;
+	//Each thread has its own generator, as each teller does
+	private final Random rand = new Random(42);
+	
+	@Setup
+	public void createSelector()
+	{
+		int[] accounts = new int[accountCount];
+		for(int i = 0; i < accountCount; ++i)
+			accounts[i] = 42001 + i;
+		
+		selector = new AccountSelector(accounts, skew, 42);
+	}
+	
+	@Benchmark
+	public int next()
+	{
+		return selector.next(rand);
+	}
+}
@@ -0,0 +1,207 @@
+package cs485.dbms;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The transactions submitted to a database that have not been committed or rejected yet, by request number.
+ * 
+ * Request numbers are kept as primitive ints in open addressing tables, split across segments that each have
+ * their own monitor, so threads touching different transactions rarely contend. An entry is removed once its
+ * transaction is committed or rejected, and a segment shrinks back down once emptied, so memory follows the
+ * number of transactions in flight rather than every transaction ever processed.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+class ActiveTransactions
+{
+	//A power of two, picked by the top bits of the hash
+	private static final int SEGMENT_BITS = 4;
+	private static final int INITIAL_CAPACITY = 16;
+	//Marks an empty slot, request numbers are never negative
+	private static final int EMPTY = -1;
+	
+	private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+	
+	ActiveTransactions()
+	{
+		for(int i = 0; i < segments.length; ++i)
+			segments[i] = new Segment();
+	}
+	
+	//Fibonacci hashing, so sequential request numbers spread across segments and slots
+	private static int hash(int request)
+	{
+		return request * 0x9E3779B9;
+	}
+	
+	private Segment segmentOf(int request)
+	{
+		return segments[hash(request) >>> (32 - SEGMENT_BITS)];
+	}
+	
+	/**
+	 * Adds a submitted transaction.
+	 * @param submission the submitted transaction.
+	 * @return true if added, false if a transaction with the same request number is already active.
+	 */
+	boolean add(Submission submission)
+	{
+		return segmentOf(submission.getRequestNumber()).put(submission);
+	}
+	
+	/**
+	 * @param request the request # of the transaction.
+	 * @return the active transaction, or null if it isn't active.
+	 */
+	Submission get(int request)
+	{
+		return segmentOf(request).get(request);
+	}
+	
+	/**
+	 * Removes a transaction once it is committed or rejected.
+	 * @param request the request # of the transaction.
+	 * @return the removed transaction, or null if it wasn't active.
+	 */
+	Submission remove(int request)
+	{
+		return segmentOf(request).remove(request);
+	}
+	
+	/**
+	 * @return the number of active transactions.
+	 */
+	int size()
+	{
+		int ret = 0;
+		for(Segment segment : segments)
+			ret += segment.size;
+		return ret;
+	}
+	
+	/**
+	 * Passes every active transaction to the action, one segment at a time.
+	 * @param action the action to perform on each transaction, while its segment is locked.
+	 */
+	void forEach(Consumer<Submission> action)
+	{
+		for(Segment segment : segments)
+			segment.forEach(action);
+	}
+	
+	//A linear probing table of request numbers to transactions, guarded by its own monitor
+	private static class Segment
+	{
+		private int[] keys = newKeys(INITIAL_CAPACITY);
+		private Submission[] values = new Submission[INITIAL_CAPACITY];
+		private volatile int size = 0;
+		
+		private static int[] newKeys(int capacity)
+		{
+			int[] ret = new int[capacity];
+			Arrays.fill(ret, EMPTY);
+			return ret;
+		}
+		
+		//The slot to start probing at, the low bits of the hash as the high bits picked the segment
+		private int home(int request)
+		{
+			return hash(request) & (keys.length - 1);
+		}
+		
+		//The slot holding the request, or the empty slot ending its probe
+		private int find(int request)
+		{
+			int mask = keys.length - 1;
+			int i = home(request);
+			while(keys[i] != EMPTY && keys[i] != request)
+				i = (i + 1) & mask;
+			return i;
+		}
+		
+		private synchronized Submission get(int request)
+		{
+			return values[find(request)];
+		}
+		
+		private synchronized boolean put(Submission submission)
+		{
+			//Kept at most three quarters full, so probes stay short
+			if((size + 1) * 4 > keys.length * 3)
+				resize(keys.length * 2);
+			
+			int request = submission.getRequestNumber();
+			int i = find(request);
+			if(keys[i] == request)
+				return false;
+			
+			keys[i] = request;
+			values[i] = submission;
+			++size;
+			return true;
+		}
+		
+		private synchronized Submission remove(int request)
+		{
+			int mask = keys.length - 1;
+			int i = find(request);
+			if(keys[i] == EMPTY)
+				return null;
+			
+			Submission ret = values[i];
+			
+			//Shift back any entry after the hole whose probe passed through it, instead of leaving a tombstone
+			for(int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask)
+			{
+				int home = home(keys[j]);
+				if(((j - home) & mask) >= ((j - i) & mask))
+				{
+					keys[i] = keys[j];
+					values[i] = values[j];
+					i = j;
+				}
+			}
+			
+			keys[i] = EMPTY;
+			values[i] = null;
+			--size;
+			
+			//Give memory back once a burst of transactions has drained
+			if(keys.length > INITIAL_CAPACITY && size * 8 < keys.length)
+				resize(keys.length / 2);
+			
+			return ret;
+		}
+		
+		private void resize(int capacity)
+		{
+			int[] oldKeys = keys;
+			Submission[] oldValues = values;
+			keys = newKeys(capacity);
+			values = new Submission[capacity];
+			
+			for(int i = 0; i < oldKeys.length; ++i)
+			{
+				if(oldKeys[i] != EMPTY)
+				{
+					int j = find(oldKeys[i]);
+					keys[j] = oldKeys[i];
+					values[j] = oldValues[i];
+				}
+			}
+		}
+		
+		private synchronized void forEach(Consumer<Submission> action)
+		{
+			for(int i = 0; i < keys.length; ++i)
+			{
+				if(keys[i] != EMPTY)
+					action.accept(values[i]);
+			}
+		}
+	}
+}
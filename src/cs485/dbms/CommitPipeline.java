@@ -0,0 +1,263 @@
+package cs485.dbms;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+import cs485.dbms.metrics.DatabaseMetrics;
+import cs485.dbms.metrics.DatabaseMetrics.CommitPhase;
+
+/**
+ * The journaling and response stages of a database's commits, each run by a thread of its own following a sequence cursor
+ * over a preallocated ring of slots, in the manner of the LMAX Disruptor. A processing thread hands a replicated commit over
+ * and goes back to its next request, rather than writing the log and answering the commit itself.
+ * 
+ * A processing thread claims the next position, fills its slot in place with the submission and the lines to log, and publishes it.
+ * The journaling stage follows the published positions in order, appending the lines of every slot published so far and flushing
+ * the log once for the whole batch. The response stage follows the journaling stage's cursor, marking each commit in the commit tracker
+ * and waking whoever is waiting on it, then frees the slot for the position a lap later. Neither stage passes the one before it,
+ * and slots are reused lap after lap, so handing a commit over allocates nothing.
+ * 
+ * A commit is marked committed and answered only once logged, in the order published. The processing thread releases its locks once
+ * its commit is published, but a commit that reads its writes can only lock them after that, so is published, logged and answered after it.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+class CommitPipeline
+{
+	//The tries spent spinning, then yielding, before parking while waiting on the stage before
+	private static final int SPINS = 100, YIELDS = 10;
+	//The longest a stage parks before checking again, as it is woken once there is more for it
+	private static final long IDLE_NANOS = 1000000;
+	//How long a processing thread parks at a time while every slot is waiting on the response stage
+	private static final long FULL_WAIT_NANOS = 10000;
+	
+	private final PrintWriter log;
+	private final CommitTracker commitTracker;
+	private final ActiveTransactions activeTransactions;
+	private final DatabaseMetrics metrics;
+	private final int mask;
+	private final Slot[] slots;
+	
+	//The next position for a processing thread to claim
+	private final AtomicLong claimed = new AtomicLong();
+	//Every position below these has been logged, and answered with its slot freed
+	private final AtomicLong journaled = new AtomicLong();
+	private final AtomicLong responded = new AtomicLong();
+	
+	private final Thread journal, responder;
+	//Set by each stage before parking, so the stage before knows to wake it
+	private volatile boolean journalParked = false, responderParked = false;
+	private volatile boolean closed = false;
+	
+	/**
+	 * @param name the name of the database whose commits are logged and answered, naming the stages' threads.
+	 * @param log the database's log.
+	 * @param commitTracker the database's commit tracker, marked once a commit is logged.
+	 * @param activeTransactions the database's active transactions, a commit leaves once marked.
+	 * @param metrics the database's metrics.
+	 * @param size the number of slots, a power of two.
+	 * @throws IllegalArgumentException if the size isn't a power of two of at least 2.
+	 */
+	CommitPipeline(String name, PrintWriter log, CommitTracker commitTracker, ActiveTransactions activeTransactions, DatabaseMetrics metrics, int size)
+	{
+		if(size < 2 || Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("A pipeline's size must be a power of two of at least 2, got " + size);
+		
+		this.log = log;
+		this.commitTracker = commitTracker;
+		this.activeTransactions = activeTransactions;
+		this.metrics = metrics;
+		mask = size - 1;
+		slots = new Slot[size];
+		for(int i = 0; i < size; ++i)
+			slots[i] = new Slot();
+		
+		journal = new Thread(this::journal, name + " (Journal)");
+		responder = new Thread(this::respond, name + " (Responses)");
+		journal.setDaemon(true);
+		responder.setDaemon(true);
+	}
+	
+	void start()
+	{
+		journal.start();
+		responder.start();
+	}
+	
+	/**
+	 * Hands a commit over to be logged and answered, waiting for a free slot if every one is still waiting on the response stage.
+	 * Only call once the commit has been applied and replicated.
+	 * @param submission the committed submission.
+	 * @param lines the lines to write to the log for the commit.
+	 */
+	void publish(Submission submission, String lines)
+	{
+		long position = claimed.getAndIncrement();
+		Slot slot = slots[(int) position & mask];
+		
+		//The slot still holds the commit of a lap ago until it is answered
+		for(int tries = 0; position - responded.get() > mask; ++tries)
+		{
+			if(tries < SPINS)
+				Thread.onSpinWait();
+			else if(tries < SPINS + YIELDS)
+				Thread.yield();
+			else
+				LockSupport.parkNanos(FULL_WAIT_NANOS);
+		}
+		
+		slot.submission = submission;
+		slot.lines = lines;
+		slot.publishTime = System.nanoTime();
+		//The volatile write publishes the rest of the slot to the journaling stage
+		slot.published = position;
+		if(journalParked)
+			LockSupport.unpark(journal);
+	}
+	
+	/**
+	 * Waits until every commit published so far has been written to the log.
+	 */
+	void awaitJournaled()
+	{
+		long end = claimed.get();
+		for(int tries = 0; journaled.get() < end; ++tries)
+		{
+			if(tries < SPINS)
+				Thread.onSpinWait();
+			else
+				LockSupport.parkNanos(FULL_WAIT_NANOS);
+		}
+	}
+	
+	//The journaling stage, logging every slot published after the last batch in one flush
+	private void journal()
+	{
+		long next = 0;
+		for(int tries = 0; !closed || next < claimed.get(); ++tries)
+		{
+			long end = next;
+			while(end - next <= mask && slots[(int) end & mask].published == end)
+				++end;
+			
+			if(end == next)
+			{
+				if(idle(tries))
+				{
+					journalParked = true;
+					if(slots[(int) next & mask].published != next && !closed)
+						LockSupport.parkNanos(IDLE_NANOS);
+					journalParked = false;
+				}
+				continue;
+			}
+			
+			for(long position = next; position < end; ++position)
+				log.append(slots[(int) position & mask].lines + "\n");
+			log.flush();
+			
+			long flushed = System.nanoTime();
+			for(long position = next; position < end; ++position)
+				metrics.recordPhase(CommitPhase.LOG_FLUSH, flushed - slots[(int) position & mask].publishTime);
+			
+			journaled.set(end);
+			if(responderParked)
+				LockSupport.unpark(responder);
+			next = end;
+			tries = 0;
+		}
+	}
+	
+	//The response stage, marking every logged commit committed in order and completing it
+	private void respond()
+	{
+		long next = 0;
+		for(int tries = 0; !closed || next < claimed.get(); ++tries)
+		{
+			long end = journaled.get();
+			if(end == next)
+			{
+				if(idle(tries))
+				{
+					responderParked = true;
+					if(journaled.get() == next && !closed)
+						LockSupport.parkNanos(IDLE_NANOS);
+					responderParked = false;
+				}
+				continue;
+			}
+			
+			for(; next < end; ++next)
+			{
+				Slot slot = slots[(int) next & mask];
+				Submission submission = slot.submission;
+				slot.submission = null;
+				slot.lines = null;
+				//Free the slot before completing, as whoever is woken may commit again
+				responded.set(next + 1);
+				
+				int curNum = submission.getRequestNumber();
+				//Marked before it stops being active, so a submission of it again finds it committed
+				commitTracker.markCommitted(curNum);
+				activeTransactions.remove(curNum);
+				metrics.countCommit();
+				metrics.recordPhase(CommitPhase.TOTAL, System.nanoTime() - submission.submitTime);
+				
+				Main.log.print(DebugLevel.REQUESTS, "[{}] Logged and answered request #{}", Thread.currentThread().getName(), curNum);
+				submission.future.complete(submission.transaction);
+			}
+			tries = 0;
+		}
+	}
+	
+	//Spins, then yields, while a stage waits on the one before it, returning true once it should park instead
+	private static boolean idle(int tries)
+	{
+		if(tries < SPINS)
+		{
+			Thread.onSpinWait();
+			return false;
+		}
+		if(tries < SPINS + YIELDS)
+		{
+			Thread.yield();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Stops both stages once every commit published has been logged and answered, waiting for them to finish.
+	 */
+	void close()
+	{
+		closed = true;
+		LockSupport.unpark(journal);
+		LockSupport.unpark(responder);
+		
+		try {
+			journal.join();
+			responder.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	//A commit handed over, filled in place by the processing thread that claims it, and read by a stage only once published
+	private static final class Slot
+	{
+		//The position the slot was last published for, so a stage knows whether it is filled for the position it follows
+		private volatile long published = -1;
+		private Submission submission;
+		private String lines;
+		//The System.nanoTime() the slot was published at, for the commit's log flush phase
+		private long publishTime;
+	}
+}
@@ -0,0 +1,174 @@
+package cs485.dbms;
+
+import java.util.TreeSet;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tracks which requests have been committed, with a low watermark below which every request is committed,
+ * and a ring bitmap of the requests committed out of order above it.
+ * 
+ * Memory stays bounded no matter how many requests are committed: the bitmap covers {@link #WINDOW} requests
+ * past the watermark, and only a request committed further ahead than that is held in a small overflow set
+ * until the watermark catches up. Lookups are optimistic reads that never block while no commit is being marked.
+ * 
+ * A request number that will never be committed, as one rejected or held by other shards, must be marked skipped,
+ * or the watermark would stop at it for good and every later commit would pile into the overflow set.
+ * A skipped request is looked up as committed, as it is never submitted to be committed again.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class CommitTracker
+{
+	//The number of requests past the watermark the bitmap covers, a power of two
+	static final int WINDOW = 1 << 16;
+	private static final int MASK = WINDOW - 1;
+	
+	private final StampedLock lock = new StampedLock();
+	
+	//Every request below this has been committed
+	private int watermark = 0;
+	//Bit (request & MASK) is set if the request is committed, for watermark <= request < watermark + WINDOW
+	private final long[] bits = new long[WINDOW / 64];
+	//Requests committed at or past watermark + WINDOW, moved into the bitmap once it reaches them
+	private final TreeSet<Integer> overflow = new TreeSet<Integer>();
+	
+	private volatile int committedCount = 0;
+	
+	/**
+	 * Marks a request as committed, advancing the watermark past it if every request before it is committed.
+	 * @param request the request # of the committed transaction.
+	 * @return true if marked, false if the request was already committed.
+	 */
+	public boolean markCommitted(int request)
+	{
+		return mark(request, true);
+	}
+	
+	/**
+	 * Marks a request that will never be committed, advancing the watermark past it as if committed, without counting it.
+	 * @param request the request # that will never be committed.
+	 * @return true if marked, false if the request was already committed or skipped.
+	 */
+	public boolean markSkipped(int request)
+	{
+		return mark(request, false);
+	}
+	
+	private boolean mark(int request, boolean committed)
+	{
+		long stamp = lock.writeLock();
+		try
+		{
+			if(isCommitted(request, watermark))
+				return false;
+			
+			if(request - watermark >= WINDOW)
+				overflow.add(request);
+			else
+				bits[(request & MASK) >>> 6] |= 1L << request;
+			
+			if(committed)
+				committedCount = committedCount + 1;
+			advance();
+			return true;
+		}
+		finally
+		{
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	//Moves the watermark past every committed request at it, clearing their bits for the requests a window later
+	private void advance()
+	{
+		while(true)
+		{
+			int word = (watermark & MASK) >>> 6;
+			long bit = 1L << watermark;
+			
+			if((bits[word] & bit) == 0)
+				return;
+			
+			bits[word] &= ~bit;
+			++watermark;
+			
+			//The request a window past the one just passed now falls inside the bitmap
+			if(!overflow.isEmpty() && overflow.first() - watermark < WINDOW)
+			{
+				int request = overflow.pollFirst();
+				bits[(request & MASK) >>> 6] |= 1L << request;
+			}
+		}
+	}
+	
+	//True if committed, for the given watermark, with the bitmap and overflow read by the caller's lock or stamp
+	private boolean isCommitted(int request, int watermark)
+	{
+		if(request < watermark)
+			return true;
+		if(request - watermark >= WINDOW)
+			return overflow.contains(request);
+		
+		return (bits[(request & MASK) >>> 6] & (1L << request)) != 0;
+	}
+	
+	/**
+	 * @param request the request # of a transaction.
+	 * @return true if the request has been committed or skipped, false if not.
+	 */
+	public boolean isCommitted(int request)
+	{
+		long stamp = lock.tryOptimisticRead();
+		int mark = watermark;
+		
+		//Only a request far past the watermark needs the overflow set, which can't be read optimistically
+		if(request - mark < WINDOW)
+		{
+			boolean ret = request < mark || (bits[(request & MASK) >>> 6] & (1L << request)) != 0;
+			if(lock.validate(stamp))
+				return ret;
+		}
+		
+		stamp = lock.readLock();
+		try
+		{
+			return isCommitted(request, watermark);
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * @return the lowest request # not committed yet, every request below it has been committed or skipped.
+	 */
+	public int getWatermark()
+	{
+		long stamp = lock.tryOptimisticRead();
+		int ret = watermark;
+		if(lock.validate(stamp))
+			return ret;
+		
+		stamp = lock.readLock();
+		try
+		{
+			return watermark;
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * @return the number of requests committed, not counting those skipped.
+	 */
+	public int getCommittedCount()
+	{
+		return committedCount;
+	}
+}
@@ -1,11 +1,15 @@
 package cs485.dbms;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
 
 import cs485.dbms.data.Account;
-import cs485.dbms.data.Teller;
+import cs485.dbms.lock.LockMode;
+import cs485.dbms.lock.LockOwner;
 import cs485.dbms.main.DebugLog.DebugLevel;
 import cs485.dbms.main.Main;
+import cs485.dbms.metrics.DatabaseMetrics;
+import cs485.dbms.metrics.DatabaseMetrics.CommitPhase;
 
 /**
  *  A thread to process requests and update the database that is 
@@ -18,60 +22,68 @@ import cs485.dbms.main.Main;
  */
 public class DBProcessThread extends Thread 
 {
-	//private Teller curTeller = null;
+	//The most requests a backup's processing thread takes from its ring at once, the primary's take one each to share them out
+	private static final int BACKUP_BATCH = 32;
+	//The longest to wait on an empty ring, before checking for due retries and whether the run has finished
+	private static final long IDLE_WAIT_NANOS = 1000000;
+	
 	private final DatabaseMS database;
 	
-	//Indicates which lock on the accounttable this processor will try to hold
-	private boolean rolledBack = false;
+	//The requests taken at once, handled from batchNext up to batchCount
+	private final Submission[] batch;
+	private int batchNext = 0, batchCount = 0;
 	
 	//Whether or not this thread is processing a request
 	private boolean isProcessing = false;
 	
-	private boolean holdingRLock = false, holdingWLock = false;
+	//The locks held for the request being committed, null if none are held
+	private LockOwner locks = null;
 	
 	public DBProcessThread(DatabaseMS owner, int id)
 	{
 		super(owner.getName() + " (Processing Thread " + id + ")");
 		this.database = owner;
+		batch = new Submission[owner.isBackup ? BACKUP_BATCH : 1];
 	}
 	
 	public void run()
 	{
 		//Wait until the database has been flushed and the teller has been connected to this thread.
-		while(!database.isDatabaseInitialized()) try{ sleep(100); } catch(InterruptedException e) {}		
+		while(!database.isDatabaseInitialized()) try{ sleep(100); } catch(InterruptedException e) {}
 		Main.log.print(DebugLevel.NONE, "[" + this.getName() + "] is now ready to handle requests.");
 		
+		RetryScheduler retries = database.getRetryScheduler();
+		
 		while(!database.isRequestsFinished())
 		{
-			String request = database.getRequest();
-			
-			if(request == null)
-			{
-				try {
-					sleep(5);
-				} catch (InterruptedException e) {}			
-
-				continue;
-			}
+			//Decided branches go first, as they hold their locks until finished, then retries that are due, then new requests
+			Submission submission = database.pollDecided();
+			if(submission == null)
+				submission = retries.pollDue();
+			if(submission == null)
+				submission = nextRequest();
 			
-			//If handle request returns false then an issue occurred
-			if(!handleRequest(request))
+			if(submission == null)
 			{
-				int curNum = Integer.parseInt(request.substring(request.indexOf(" ") + 1, request.indexOf(">")));
-
-				//If the request is not committed, reinsert the request.
-				if(!database.getCommittedRequests().contains(curNum))
+				//The ring already waited for a request to arrive
+				if(!database.isRingBuffered())
 				{
-					database.addRequest(request);
+					try {
+						sleep(5);
+					} catch (InterruptedException e) {}
 				}
 				
-				//Wait 5 milliseconds to attempt to handle another request.
-				try {
-					sleep(5);
-				} catch (InterruptedException e) {}			
-				
 				continue;
 			}
+			
+			//If commit returns false then an issue occurred
+			isProcessing = true;
+			if(!commit(submission))
+			{
+				database.getMetrics().countRetry();
+				retries.retry(submission);
+			}
+			isProcessing = false;
 		}
 		
 		//For the backup processor, wait until primary is done before the backup closes
@@ -81,275 +93,310 @@ public class DBProcessThread extends Thread
 		Main.log.warn(DebugLevel.NONE, "[" + getName() + "] has terminated successfully.");
 	}
 	
-	private boolean lockDatabase()
+	//The next request of the batch, taking another batch once handled
+	private Submission nextRequest()
+	{
+		if(batchNext == batchCount)
+		{
+			batchNext = 0;
+			batchCount = database.takeRequests(batch, IDLE_WAIT_NANOS);
+			if(batchCount == 0)
+				return null;
+		}
+		
+		Submission ret = batch[batchNext];
+		batch[batchNext++] = null;
+		return ret;
+	}
+	
+	//A backup locks as the primary does, so a balance read from it never sees a transaction half applied
+	private boolean lockDatabase(Submission submission)
 	{
-		if(database.isBackup)
-			return true;
+		locks = new LockOwner(submission.getRequestNumber());
 		
-		//If rolledback, then attain write lock.
-		if(rolledBack)
+		//If retrying, lock every account needed up front in order, so this can't deadlock again.
+		//As does a branch, so its locks are taken in the same order as every other branch's, across every shard.
+		//Only the accounts of this shard, as another shard's are locked by that shard
+		if(submission.getAttempts() > 0 || submission.isBranch())
 		{
-			holdingWLock = database.getAccountTable().writeLockTable();
-			return holdingWLock;
+			int[] accounts = Arrays.stream(submission.transaction.getAccountNumbers()).filter(account -> database.getAccountTable().get(account) != null).toArray();
+			return database.getAccountTable().lockAccounts(locks, accounts);
 		}
-		else //Else attain read lock
+		else //Else only announce the accounts will be locked as the updates are applied
 		{
-			holdingRLock = database.getAccountTable().readLockTable();
-			return holdingRLock;
+			return database.getAccountTable().lockTable(locks, LockMode.IX);
 		}
 	}
 	
 	private void unlockDatabase()
 	{
-		if(database.isBackup)
-			return;
-		
-		if(holdingRLock)
+		if(locks != null)
 		{
-			database.getAccountTable().unreadLockTable();
-			holdingRLock = false;
-		}
-		
-		if(holdingWLock)
-		{
-			database.getAccountTable().unwriteLockTable();
-			holdingWLock = false;
+			database.getAccountTable().unlockAll(locks);
+			locks = null;
 		}
 	}
 	
-	private boolean handleRequest(String request)
-	{	
-		int curNum = Integer.parseInt(request.substring(request.indexOf(" ") + 1, request.indexOf(">")));
+	//Applies every transfer of the transaction, logs it and waits for a quorum of the backups to commit it too
+	private boolean commit(Submission submission)
+	{
+		Transaction transaction = submission.transaction;
+		int curNum = transaction.getRequestNumber();
+		DatabaseMetrics metrics = database.getMetrics();
+		long commitStart = System.nanoTime();
 		
-		//If this is the primary database,
-		if(!database.isBackup)
+		//A prepared branch its coordinator has since decided takes back the locks it was parked with, its transfers still applied
+		LockOwner parked = submission.unpark();
+		long lockNanos = 0, applyNanos = 0, decisionStart;
+		if(parked != null)
+		{
+			locks = parked;
+			decisionStart = submission.getParkedAt();
+		}
+		else
 		{
-			//Prevent processing packets further than the backup database
-			if(DatabaseMS.getInstance(true).getRequestNumber()+1 < curNum && curNum > 0)
+			//A branch whose coordinator gave up on it before it was prepared has nothing to undo
+			if(submission.isAborted())
+			{
+				abort(submission);
+				return true;
+			}
+			
+			//If the lock can't be attained
+			if(!lockDatabase(submission))
 			{
-				//If the current packet has begun,
-				if(database.hasStarted(curNum))
+				Main.log.print(DebugLevel.REQUESTS, "[{}] Failed to lock database for request #{}, not committing yet.", getName(), curNum);
+				unlockDatabase();
+				return false;
+			}
+			
+			int rollbackIndex = -1;
+			//Time spent acquiring locks, so far only the table or up front account locks
+			lockNanos = System.nanoTime() - commitStart;
+			long applyStart = System.nanoTime();
+			
+			//Iterate through and apply each transfer
+			for(int i = 0; i < transaction.getTransferCount(); ++i)
+			{
+				//Either is null if held by another shard
+				Account source = database.getAccountTable().get(transaction.getSource(i));
+				Account target = database.getAccountTable().get(transaction.getTarget(i));
+				
+				//True if both locks are attained
+				long lockStart = System.nanoTime();
+				boolean locked = (source == null || database.getAccountTable().lockAccount(locks, source.getAccountNumber()))
+						&& (target == null || database.getAccountTable().lockAccount(locks, target.getAccountNumber()));
+				lockNanos += System.nanoTime() - lockStart;
+				
+				//If either lock failed, stop updates. Every lock is released once rolled back
+				if(!locked)
 				{
-					unlockDatabase();
-					database.addRequest("<BEGIN " + curNum + ">");
+					rollbackIndex = i;
+					break;
 				}
 				
-				//Return false, unsuccessful cause premature packet.
+				//Transfer balance and update accounts in file
+				apply(source, target, transaction.getAmount(i));
+			}
+			
+			if(rollbackIndex > -1)
+			{
+				rollback(transaction, rollbackIndex);
+				unlockDatabase();
+				metrics.countRollback();
+				//Locks could not be attained, rolling back
 				return false;
 			}
+			
+			applyNanos = System.nanoTime() - applyStart - lockNanos;
+			decisionStart = System.nanoTime();
 		}
 		
-		//If the request hasn't been started in the database,
-		if(!database.hasStarted(curNum) && !request.equals("<BEGIN " + curNum + ">"))
-		{
-			//Premature update packet. Ignore it!
-			Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] hasn't started request #" + curNum + ", skipping");
-			return false;
-		}
-		
-		//Switch based on the prefix of each request
-		switch(request.substring(0, request.indexOf(" ")))
+		//A branch of a transaction across shards is logged as prepared, then holds its locks until its coordinator decides
+		if(submission.isBranch())
 		{
-			case "<BEGIN":
+			//Already prepared if retried after its replication failed
+			if(!submission.isAborted() && !submission.prepared.isDone())
 			{
-				//Determine the request number
-				isProcessing = true;				
-				return database.startRequest(curNum);
+				database.writeToLog(transaction.toPrepareLog());
+				submission.prepared.complete(transaction);
+				Main.log.print(DebugLevel.REQUESTS, "[{}] Prepared request #{}, waiting on its coordinator", getName(), curNum);
 			}
-			case "<UPDATE":
+			
+			//Set aside with its locks rather than holding this thread for the coordinator's round trip,
+			//and finished by whichever processing thread takes it once decided
+			if(!submission.decision.isDone())
 			{
-
-				//Assemble an update packet for unpacking on parsing commit
-				String[] args = request.substring(request.indexOf(">")+1).split(",");
-				Account source = database.getAccountTable().get(Integer.parseInt(args[0]));
-				Account target = database.getAccountTable().get(Integer.parseInt(args[1]));
-				double transferAmount = Double.parseDouble(args[2]);
-				//Synchronized method in database. Returns true if the packet is unique and the request has begun
-				boolean update = database.addUpdatePacket(curNum, new DBUpdatePacket(curNum, source, target, transferAmount));
-				
-				if(update)
-					Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] Added update \'" + request + "\' for request #" + curNum);
-				else
-				{
-					//Update failed to apply
-					unlockDatabase();
-					rolledBack = true;
-					return false;
-				}
-				
-				return update;
+				recordPrepared(submission, commitStart, lockNanos, applyNanos);
+				submission.park(locks);
+				locks = null;
+				submission.decision.whenComplete((commit, error) -> database.resume(submission));
+				return true;
 			}
-			case "<COMMIT":
+			
+			//Decided, so this never waits
+			if(!submission.decision.join())
 			{
-				//If the lock can't be attained
-				if(!lockDatabase())
-				{
-					Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] Failed to lock database for request \'" + request + "\' , not committing yet. rollback = " + rolledBack);
-					//rolledBack = true;
-					return false;
-				}
-				
-				LinkedList<DBUpdatePacket> packets = database.getUpdatePackets(curNum);
-				
-				//If there are still packets in the request queue,
-				int packetCount = database.countPacketsInQueue(curNum);
-				if(packetCount > 0)
-				{
-					//This means that this request is not ready to commit.
-					Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] " + packetCount + " packets exist for request " + curNum + ", not committing yet.");
-					unlockDatabase();
-					return false;
-				}
-				
-				if(database.countUpdatesCached(curNum) == 0)
-				{
-					Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] Req #" + curNum + " has not cached any update packets. Not committing");
-					unlockDatabase();
-					return false;
-				}
-				
-				int rollbackIndex = -1;
-				
-				//Start the log addition
-				String logAppend = "<BEGIN " + curNum + ">\n";
-				
-				LinkedList<Account> accounts = new LinkedList<Account>();
-				
-				if(packets != null)
-				{
-					//Iterate through and apply each packet, adding it to the log string
-					for(int i = 0; i < packets.size(); ++i)
-					{
-						DBUpdatePacket packet = packets.get(i);
-						Account source = packet.sourceAccount;
-						Account target = packet.targetAccount;
-						double transferAmount = packet.transferAmount;
-						
-						//If database is backup, no need to lock so true. Otherwise true if lock is attained
-						boolean sourceLock = database.isBackup ? true : database.getAccountTable().lockPartition(source.getAccountNumber());
-						boolean targetLock = database.isBackup ? true : database.getAccountTable().lockPartition(target.getAccountNumber());
-						
-						//If either lock failed, release locks just attained and stop updates
-						if(!targetLock || !sourceLock)
-						{
-							if(targetLock) database.getAccountTable().unlockPartition(target.getAccountNumber());
-							if(sourceLock) database.getAccountTable().unlockPartition(source.getAccountNumber());
-							rollbackIndex = i;
-							break;
-						}
-						
-						accounts.add(source);
-						accounts.add(target);
-						
-						//Transfer balance and update accounts in file
-						source.setBalance(source.getBalance() - transferAmount);
-						target.setBalance(target.getBalance() + transferAmount);
-						database.getAccountWriter().writeAccount(source);
-						database.getAccountWriter().writeAccount(target);
-						
-						logAppend += packet.toCommand() + "\n";						
-					}
-					
-					if(rollbackIndex > -1)
-					{
-						//Revert changes already applied
-						for(int i = 0; i < rollbackIndex; ++i)
-						{
-							DBUpdatePacket packet2 = packets.get(i);
-							Account source2 = packet2.sourceAccount;
-							Account target2 = packet2.targetAccount;
-							double transferAmount2 = packet2.transferAmount;
-							
-							source2.setBalance(source2.getBalance() + transferAmount2);
-							target2.setBalance(target2.getBalance() - transferAmount2);
-							database.getAccountWriter().writeAccount(source2);
-							database.getAccountWriter().writeAccount(target2);
-							
-							database.getAccountTable().unlockPartition(source2.getAccountNumber());
-							database.getAccountTable().unlockPartition(target2.getAccountNumber());
-							database.addRequest(packet2.toCommand());
-						}
-						
-						unlockDatabase();
-						rolledBack = true;
-						//Locks could not be attained, rolling back
-						return false;
-					}
-										
-					//Send requests to backup database and wait for it to process before finalizing commit
-					if(!database.isBackup && DatabaseMS.getInstance(true).isBackup)
-					{
-						database.sendToBackupDatabase("<BEGIN " + curNum + ">");
-						
-						synchronized(packets)
-						{
-							for(DBUpdatePacket pack : packets)
-							{
-								database.sendToBackupDatabase(pack.toCommand());
-							}							
-						}
-						
-						database.sendToBackupDatabase("<COMMIT " + curNum + ">");
-						
-						//Wait on backup database to commit this transaction
-						int backNum = DatabaseMS.getInstance(true).getRequestNumber();
-						while(backNum < curNum) {
-							backNum = DatabaseMS.getInstance(true).getRequestNumber();
-							try { sleep(100); } catch(InterruptedException e) {}
-						}
-
-						Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] Finished waiting on backup, proceeding with commit");
-					}
-					
-					//If this is the backup processing thread, tellers don't update this.
-					//So update the request number once it is done being executed
-					if(database.isBackup)
-					{
-						int ret = database.incrementRequestNumber();
-						Main.log.print(DebugLevel.REQUESTS, "[" + getName() + "] Incremented request number from backup to #" + ret);
-					}
-					
-					//Write the full log string, plus a commit 
-					database.writeToLog(logAppend + "<COMMIT " + curNum + ">");
-					database.getCommittedRequests().add(curNum);
-					
-					isProcessing = false;
-					rolledBack = false;
-
-					if(!database.isBackup)
-					{
-						for(Account acc : accounts)
-						{
-							database.getAccountTable().unlockPartition(acc.getAccountNumber());
-						}						
-						
-						//Send a response to the teller, waking the thread
-						this.database.getResponses().add("<COMPLETE " + curNum + ">");
-					}
-					
-					Main.log.print(DebugLevel.REQUESTS, "["+this.getName()+"] Committed request #" + curNum);
+				rollback(transaction, transaction.getTransferCount());
+				//Nothing was logged if it was aborted before being prepared
+				if(submission.prepared.isDone())
+					database.writeToLog("<ABORT " + curNum + ">");
+				unlockDatabase();
+				metrics.countRollback();
+				abort(submission);
+				return true;
+			}
+		}
+		
+		long replicationStart = System.nanoTime();
+		
+		long logStart;
+		//Logs and answers the commit on threads of its own once handed over, if configured
+		CommitPipeline pipeline = database.getCommitPipeline();
+		//Held until logged or handed over, so no replica catches up from the log while this is missing from it
+		ReplicationGroup replication = database.isBackup ? null : DatabaseMS.getReplicationGroup();
+		if(replication != null)
+			replication.beginCommit();
+		try {
+			//Send the transaction to the backup databases and wait for a quorum to commit it before finalizing commit
+			if(replication != null)
+			{
+				try {
+					replication.replicate(transaction).join();
+				} catch (CompletionException e) {
+					//Too many replicas failed to commit it, so undo it here until it is retried. The replicas that did commit it keep it,
+					//so it is never given up on while they hold it, and they skip it when it is sent again
+					rollback(transaction, transaction.getTransferCount());
 					unlockDatabase();
-					
-					//Successful commit!
-					return true;
+					metrics.countRollback();
+					return replicationFailed(submission, replication, e.getCause());
 				}
-				
-				//This means a commit was received before a begin
-				return false;
+				Main.log.print(DebugLevel.REQUESTS, "[{}] Finished waiting on a quorum of backups, proceeding with commit", getName());
+			}
+			
+			//If this is the backup processing thread, tellers don't update this.
+			//So update the request number once it is done being executed
+			if(database.isBackup)
+			{
+				int ret = database.incrementRequestNumber();
+				Main.log.print(DebugLevel.REQUESTS, "[{}] Incremented request number from backup to #{}", getName(), ret);
 			}
 			
-			//This is an invalid operation
-			default: return false;
+			logStart = System.nanoTime();
+			
+			//Write the full transaction to the log, or just the COMMIT line after a prepared branch's
+			String log = submission.isBranch() ? "<COMMIT " + curNum + ">" : transaction.toLog();
+			if(pipeline != null)
+			{
+				pipeline.publish(submission, log);
+			}
+			else
+			{
+				database.writeToLog(log);
+				database.getCommitTracker().markCommitted(curNum);
+			}
+		} finally {
+			if(replication != null)
+				replication.endCommit();
 		}
-	}	
+		
+		long commitEnd = System.nanoTime();
+		int retries = submission.getAttempts();
+		metrics.recordTransactionRetries(retries);
+		//Recorded once parked, for a branch finished after its decision
+		if(parked == null)
+			recordPrepared(submission, commitStart, lockNanos, applyNanos);
+		metrics.recordPhase(CommitPhase.REPLICATION_WAIT, logStart - replicationStart);
+		if(submission.isBranch())
+			metrics.recordPhase(CommitPhase.DECISION_WAIT, replicationStart - decisionStart);
+		//The pipeline's stages finish a commit handed over once it is logged
+		if(pipeline == null)
+		{
+			database.getActiveTransactions().remove(curNum);
+			metrics.countCommit();
+			metrics.recordPhase(CommitPhase.LOG_FLUSH, commitEnd - logStart);
+			metrics.recordPhase(CommitPhase.TOTAL, commitEnd - submission.submitTime);
+		}
+		
+		Main.log.print(DebugLevel.REQUESTS, "[{}] Committed request #{} after {} retries", getName(), curNum, retries);
+		unlockDatabase();
+		
+		//Successful commit! Wake whoever is waiting on it
+		if(pipeline == null)
+			submission.future.complete(transaction);
+		return true;
+	}
+	
+	//Records the phases up to a transaction being applied
+	private void recordPrepared(Submission submission, long commitStart, long lockNanos, long applyNanos)
+	{
+		DatabaseMetrics metrics = database.getMetrics();
+		metrics.recordPhase(CommitPhase.LOCK_WAIT, lockNanos);
+		metrics.recordPhase(CommitPhase.APPLY, applyNanos);
+		metrics.recordPhase(CommitPhase.QUEUE_WAIT, commitStart - submission.submitTime);
+	}
+	
+	//Moves the amount of a transfer, or only this shard's half of it if the other account is held by another,
+	//or nothing if another shard holds both
+	private void apply(Account source, Account target, double amount)
+	{
+		if(source != null && target != null)
+			database.getAccountTable().transfer(source, target, amount);
+		else if(source != null)
+			database.getAccountTable().deposit(source, -amount);
+		else if(target != null)
+			database.getAccountTable().deposit(target, amount);
+		
+		if(source != null)
+			database.getAccountWriter().writeAccount(source);
+		if(target != null)
+			database.getAccountWriter().writeAccount(target);
+	}
+	
+	//Reverts the first count transfers of the transaction, already applied
+	private void rollback(Transaction transaction, int count)
+	{
+		for(int i = 0; i < count; ++i)
+		{
+			Account source = database.getAccountTable().get(transaction.getSource(i));
+			Account target = database.getAccountTable().get(transaction.getTarget(i));
+			apply(source, target, -transaction.getAmount(i));
+		}
+	}
+	
+	//Retries a transaction rolled back after failing to replicate. With too few replicas left connected for a quorum it is held in doubt
+	//instead of failed, as the replicas that committed it would be left diverged from the primary, and retried at the longest backoff
+	//until a quorum can commit it
+	private boolean replicationFailed(Submission submission, ReplicationGroup replication, Throwable cause)
+	{
+		int curNum = submission.getRequestNumber();
+		if(replication.hasQuorum())
+		{
+			Main.log.warn(DebugLevel.REQUESTS, "[{}] Failed to replicate request #{}, not committing yet: {}", getName(), curNum, cause);
+			return false;
+		}
+		
+		Main.log.warn(DebugLevel.REQUESTS, "[{}] Failed to replicate request #{} with too few replicas left for a quorum, holding it in doubt: {}",
+				getName(), curNum, cause);
+		database.getMetrics().countRetry();
+		database.getRetryScheduler().hold(submission);
+		return true;
+	}
+	
+	//Ends a branch its coordinator aborted, failing anything still waiting on it
+	private void abort(Submission submission)
+	{
+		int curNum = submission.getRequestNumber();
+		database.getActiveTransactions().remove(curNum);
+		
+		IllegalStateException cause = new IllegalStateException("Request #" + curNum + " was aborted by its coordinator");
+		submission.prepared.completeExceptionally(cause);
+		submission.future.completeExceptionally(cause);
+		Main.log.print(DebugLevel.REQUESTS, "[{}] Aborted request #{}", getName(), curNum);
+	}
 	
 	public boolean isProcessing() 
 	{
 		return isProcessing;
 	}
-
-	public void setTeller(Teller teller) {
-		//this.teller = teller;
-		teller.processor = this;
-	}
 }
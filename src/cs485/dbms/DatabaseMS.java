@@ -1,17 +1,31 @@
 package cs485.dbms;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import cs485.dbms.data.Account;
 import cs485.dbms.data.AccountTable;
 import cs485.dbms.data.AccountWriter;
+import cs485.dbms.data.RingBuffer;
 import cs485.dbms.data.SyncQueue;
-import cs485.dbms.data.Teller;
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.load.LoadGenerator;
 import cs485.dbms.main.DebugLog.DebugLevel;
 import cs485.dbms.main.Main;
+import cs485.dbms.metrics.DatabaseMetrics;
 
 /**
  *  The class containing all attributes for this database.
@@ -24,73 +38,97 @@ import cs485.dbms.main.Main;
  * @class CS485
  * @date 3.30.2021
  */
-public class DatabaseMS
+public class DatabaseMS implements Replica, Shard
 {
-	//The two instances of DatabaseMS, one for a primary database and one for a backup.
+	//The primary database, the backups in this process, and the group of every backup it replicates to
 	private static DatabaseMS instance;
-	private static DatabaseMS backupInstance;
-		
+	private static DatabaseMS[] backups;
+	private static RemoteReplica[] remoteReplicas;
+	private static ReplicationGroup replicationGroup;
+	private static ReadRouter readRouter;
+	//The settings of the workload run against the databases
+	private static LoadConfig config = LoadConfig.parse(new String[0]);
+	
 	/**
 	 * Indicates whether or not this database is a backup.
 	 */
 	public final boolean isBackup;
-
+	//0 for the primary, or the number of this replica from 1
+	private final int replica;
+	//The shard of the accounts this database holds, 0 unless sharded
+	private final int shard;
 	
 	//Indicates when the processing and teller threads should start their logic
-	private boolean finishedInit = false;
-
+	private volatile boolean finishedInit = false;
+	
 	//active accounts within the database
 	private final AccountTable accountTable = new AccountTable();
 	private final AccountWriter accountWriter;
-
-	//active tellers in the database
-	private final Teller[] tellers;
+	
+	//the generator driving the tellers of the primary database, null for the backup
+	private LoadGenerator loadGenerator;
+	//the network front end for tellers in other processes, null unless configured
+	private TellerServer tellerServer;
 	//active processing threads for this database
 	private final DBProcessThread[] processThreads;
-	private Integer curRequestNumber = -1;
+	private final AtomicInteger curRequestNumber = new AtomicInteger(-1);
+	//The number of requests that will be sent in total, unknown until a timed run finishes
+	private volatile int requestTotal = Integer.MAX_VALUE;
 	
 	//The output file, logging each transaction step
 	private final File logFile;
 	private PrintWriter logWriter;
 	
-	//A queue holding a single set of instructions for curProcess
-	private SyncQueue<String> dbRequests = new SyncQueue<String>();
-	//A queue of responses given from requests.
-	private SyncQueue<String> dbResponses = new SyncQueue<String>();
-	
-	//A list of all updates for each request, stored by request number.
-	private HashMap<Integer, LinkedList<DBUpdatePacket>> updatePackets = new HashMap<Integer, LinkedList<DBUpdatePacket>>();
-	//A list of all requests that have been committed. Essentially a flag, true when committedRequests.contains(request#)
-	private SyncQueue<Integer> committedRequests = new SyncQueue<Integer>();
+	//A queue of the submitted transactions, each committed whole by one processing thread.
+	//Handed over through the ring instead if configured, null if not
+	private SyncQueue<Submission> dbRequests = new SyncQueue<Submission>();
+	private final RingBuffer<Submission> ring;
+	//Logs and answers the commits of the processing threads on threads of its own, if the ring is configured, null if not
+	private final CommitPipeline pipeline;
+	
+	//The submitted transactions that haven't been committed yet
+	private final ActiveTransactions activeTransactions = new ActiveTransactions();
+	//The transactions waiting to be retried after a processing thread failed to handle them
+	private final RetryScheduler retryScheduler = new RetryScheduler(activeTransactions);
+	//The prepared branches whose coordinators have decided, waiting on a processing thread to finish them
+	private final ConcurrentLinkedQueue<Submission> decidedBranches = new ConcurrentLinkedQueue<Submission>();
+	//The metrics of this database, exported over JMX
+	private final DatabaseMetrics metrics = new DatabaseMetrics(this);
+	
+	//The requests that have been committed
+	private final CommitTracker commitTracker = new CommitTracker();
 	
 	//The constructor is private to prevent multiple instances of the DatabaseMS from being created.
-	private DatabaseMS(boolean backup)
+	private DatabaseMS(int replica)
 	{
-		isBackup = backup;
-		accountWriter = new AccountWriter(this, "Accounts" + (backup ? "Replicate" : "Primary") + ".txt");
+		isBackup = replica > 0;
+		this.replica = replica;
+		shard = config.getShard();
+		//Replica 1 keeps the file names of the single backup, the rest are numbered. Shard 0 keeps the unsharded names
+		String number = replica > 1 ? "" + replica : "";
+		String suffix = shard > 0 ? "_Shard" + shard : "";
+		accountWriter = new AccountWriter(this, "Accounts" + (isBackup ? "Replicate" + number : "Primary") + suffix + ".txt");
 		
-		if(!backup)
-			tellers = new Teller[4];
-		else
-			tellers = new Teller[0];//No tellers for backup database
-		
-		//If this is a backup thread, only needs a single processing. Otherwise match the number of tellers.
-		processThreads = new DBProcessThread[backup ? 1 : tellers.length];
+		//If this is a backup thread, only needs a single processing. Otherwise use the configured amount.
+		processThreads = new DBProcessThread[isBackup ? 1 : config.getProcessors()];
+		ring = config.getRing() > 0 ? new RingBuffer<Submission>(config.getRing()) : null;
 		
 		//Create the log file that will be modified, based on whether this database is a backup or not
-		logFile = new File("DBLog" + (backup ? "_Backup" : "") + ".txt");
+		logFile = new File("DBLog" + (isBackup ? "_Backup" + number : "") + suffix + ".txt");
 		try {
 			if(logFile.exists())
 				logFile.delete();
 			//And create the stream to write to the file with.
 			logWriter = new PrintWriter(logFile);
 		} catch (FileNotFoundException e) { System.err.println("Unable to open stream to write database log.\n" + e.toString());}
+		
+		pipeline = config.getRing() > 0 ? new CommitPipeline(getName(), logWriter, commitTracker, activeTransactions, metrics, config.getRing()) : null;
 	}
 	
-	//This indicates a primary database. Private to prevent instantiation, creating singular instances of both the primary and backup database
+	//This indicates a primary database. Private to prevent instantiation, creating singular instances of the primary and each backup database
 	private DatabaseMS()
 	{
-		this(false);
+		this(0);
 	}
 	
 	/**
@@ -98,6 +136,9 @@ public class DatabaseMS
 	 */
 	private void startDatabase()
 	{
+		if(pipeline != null)
+			pipeline.start();
+		
 		//Initialize and start each processing thread
 		for(int i = 0; i < processThreads.length; ++i)
 		{
@@ -105,14 +146,40 @@ public class DatabaseMS
 			processThreads[i].start();
 		}
 		
-		//Start by reading the accounts from the file
-		accountWriter.readAccountsFromFile();
+		//Start by reading the accounts of this shard from the file
+		accountWriter.readAccountsFromFile(account -> config.shardOf(account) == shard);
+		if(config.isNameIndexed())
+			accountTable.createNameIndex();
+		metrics.register();
+		//Before the teller server starts, so its selector threads never wait on the accounts to be read
+		finishInit();
 		
-		//If this is the primary database, initialize and connect the tellers
+		//If this is the primary database, start the tellers
 		if(!isBackup)
-			initTellers();
-		
-		finishInit();
+		{
+			//The primary of another shard is only reached over the network, on its port of the shard list
+			int port = shard > 0 ? config.getShards()[shard - 1].getPort() : config.getServerPort();
+			if(port > 0)
+			{
+				try {
+					tellerServer = new TellerServer(this, port, config.getServerThreads(), config.getMaxFrame());
+					tellerServer.start();
+				} catch (IOException e) {
+					throw new UncheckedIOException("Unable to serve tellers on port " + port, e);
+				}
+			}
+			
+			//The tellers only run in the process of shard 0, sending to every shard through its router
+			if(shard == 0)
+			{
+				loadGenerator = new LoadGenerator(this, config);
+				loadGenerator.start();
+			}
+			
+			//Only the primary database has contended locks to report, a backup only contends with balance reads
+			if(config.getLockReportSeconds() > 0)
+				accountTable.getLockProfiler().startReporting(getName(), config.getLockReportSeconds());
+		}
 	}
 	
 	//Indicates to child threads to) begin executing
@@ -123,27 +190,14 @@ public class DatabaseMS
 		finishedInit = true;
 	}
 	
-	//Initializes the primary database connections
-	private void initTellers()
-	{
-		//Initialize and start each teller thread
-		for(int i = 0; i < tellers.length; ++i)
-		{
-			tellers[i] = new Teller(this, i);
-			tellers[i].start();
-		}
-		
-		//Tie the processing threads and the teller threads together
-		for(int i = 0; i < processThreads.length; ++i)
-		{
-			processThreads[i].setTeller(tellers[i]);
-		}
-	}
-	
 	//Called once the main thread exits
-	private void closeDatabase()
+	void closeDatabase()
 	{
+		if(tellerServer != null)
+			tellerServer.close();
 		accountWriter.closeAccountFile();
+		if(pipeline != null)
+			pipeline.close();
 		logWriter.flush();
 		logWriter.close();
 	}
@@ -153,7 +207,23 @@ public class DatabaseMS
 	 */
 	public String getName()
 	{
-		return (isBackup ? "(Backup) " : "") + "DBMS";
+		return (isBackup ? "(Backup" + (replica > 1 ? " " + replica : "") + ") " : "") + "DBMS" + (shard > 0 ? " (Shard " + shard + ")" : "");
+	}
+	
+	/**
+	 * @return the number of this replica from 1, or 0 for the primary.
+	 */
+	public int getReplica()
+	{
+		return replica;
+	}
+	
+	/**
+	 * @return the shard of the accounts this database holds, 0 unless sharded.
+	 */
+	public int getShard()
+	{
+		return shard;
 	}
 	
 	/**
@@ -174,6 +244,75 @@ public class DatabaseMS
 		logWriter.flush();
 	}
 	
+	/**
+	 * @return the journaling and response stages the processing threads hand their commits to, or null if they log and answer them themselves.
+	 */
+	CommitPipeline getCommitPipeline()
+	{
+		return pipeline;
+	}
+	
+	/**
+	 * Waits until every commit handed over to be logged so far has been written to the logfile.
+	 */
+	void awaitLogged()
+	{
+		if(pipeline != null)
+			pipeline.awaitJournaled();
+	}
+	
+	/**
+	 * Reads back every transaction written to the logfile, in the order they were committed.
+	 * A transaction still being written at the end of the log, or prepared but not committed, is left out.
+	 * @return the logged transactions.
+	 * @throws IOException if the logfile could not be read.
+	 */
+	List<Transaction> readLog() throws IOException
+	{
+		ArrayList<Transaction> ret = new ArrayList<Transaction>();
+		//The BEGIN and UPDATE lines of each prepared transaction, until its own COMMIT or ABORT line
+		HashMap<String, String> prepared = new HashMap<String, String>();
+		
+		try(BufferedReader reader = new BufferedReader(new FileReader(logFile)))
+		{
+			StringBuilder block = new StringBuilder();
+			for(String line = reader.readLine(); line != null; line = reader.readLine())
+			{
+				//A line cut off mid write has no closing bracket yet
+				if(line.startsWith("<PREPARE ") && line.endsWith(">"))
+				{
+					prepared.put(line.substring(9), block.toString());
+					block.setLength(0);
+					continue;
+				}
+				
+				//The decision of a prepared transaction, which is never written in the middle of another's block
+				if(block.length() == 0 && (line.startsWith("<COMMIT ") || line.startsWith("<ABORT ")) && line.endsWith(">"))
+				{
+					String lines = prepared.remove(line.substring(line.indexOf(' ') + 1));
+					if(lines != null && line.startsWith("<COMMIT "))
+						ret.add(Transaction.fromLog(lines + line));
+					if(lines != null)
+						continue;
+				}
+				
+				block.append(line);
+				
+				if(line.startsWith("<COMMIT ") && line.endsWith(">"))
+				{
+					ret.add(Transaction.fromLog(block.toString()));
+					block.setLength(0);
+				}
+				else
+				{
+					block.append('\n');
+				}
+			}
+		}
+		
+		return ret;
+	}
+	
 	/**
 	 * @return the up-to-date AccountTable associated with this database.
 	 */
@@ -196,14 +335,7 @@ public class DatabaseMS
 	 */
 	public int incrementRequestNumber() 
 	{
-		int ret = -1;
-		synchronized(curRequestNumber)
-		{
-			++curRequestNumber;
-			ret = curRequestNumber;
-		}
-		
-		return ret;
+		return curRequestNumber.incrementAndGet();
 	}
 	
 	/**
@@ -211,10 +343,7 @@ public class DatabaseMS
 	 */
 	public int getRequestNumber()
 	{
-		synchronized(curRequestNumber)
-		{
-			return curRequestNumber;			
-		}
+		return curRequestNumber.get();
 	}
 	
 	/**
@@ -238,179 +367,364 @@ public class DatabaseMS
 	}
 	
 	/**
-	 * Starts the given request
-	 * @param request the request # to start
-	 * @return true if request is not started yet, false if already started.
+	 * @return the requests that have been committed to this database.
 	 */
-	protected boolean startRequest(int request)
+	public CommitTracker getCommitTracker()
 	{
-		synchronized(updatePackets)
-		{
-			//Clear the stored updates for this request if it's began already
-			if(updatePackets.get(request) != null) updatePackets.get(request).clear();
-			
-			updatePackets.put(request, new LinkedList<DBUpdatePacket>());
-			return true;
-		}
+		return commitTracker;
 	}
 	
 	/**
-	 * Checks if the request has been started.
-	 * @param request the request # to check
-	 * @return true if the request is started, false if not
+	 * @return the metrics of this database.
 	 */
-	public boolean hasStarted(int request)
+	public DatabaseMetrics getMetrics()
 	{
-		synchronized(updatePackets)
-		{
-			return updatePackets.get(request) != null;
-		}
+		return metrics;
 	}
 	
-	protected SyncQueue<Integer> getCommittedRequests()
+	/**
+	 * @return the transactions waiting to be retried.
+	 */
+	public RetryScheduler getRetryScheduler()
 	{
-		return committedRequests;
+		return retryScheduler;
 	}
 	
 	/**
-	 * Adds an update packet for the indicated request.
-	 * @param request the request # to add this update to
-	 * @param packet the update packet to add
-	 * @return true if packet addition was successful, false if request not begun
+	 * @return the root of the hash tree over this database's account file, equal between databases whose account files match.
 	 */
-	protected boolean addUpdatePacket(int request, DBUpdatePacket packet)
+	public long getAccountsRootHash()
 	{
-		synchronized(updatePackets)
-		{
-			if(updatePackets.get(request) == null)
-				{
-				System.out.println("Updates were null, not adding");
-				return false;
-				}
-			
-			updatePackets.get(request).add(packet);
-			return true;
-		}
+		return accountWriter.getTree().getRoot();
 	}
 	
 	/**
-	 * Counts the number of packets for the given request within the request queue of this database.
-	 * @param reqNum the request # to check
-	 * @return the number of packets within the response queue for this request #
+	 * @return the submitted transactions that haven't been committed yet.
 	 */
-	protected int countPacketsInQueue(int reqNum)
+	ActiveTransactions getActiveTransactions()
 	{
-		synchronized(dbRequests)
-		{
-			int ret = 0;
-			
-			if(dbRequests.isEmpty())
-				return 0;
-			
-			for(int i = 0; i < dbRequests.size(); ++i)
-			{
-				try {
-					String req = dbRequests.get(i);
-					if(req == null)
-						break;
-					if(Integer.parseInt(req.substring(req.indexOf(" ") + 1, req.indexOf(">"))) == reqNum)
-						++ret;
-					
-				} catch(Exception e) {continue;}
-			}
-			
-			return ret;
-		}
+		return activeTransactions;
+	}
+	
+	/**
+	 * @return the number of submitted transactions that haven't been committed yet.
+	 */
+	public int getActiveTransactionCount()
+	{
+		return activeTransactions.size();
+	}
+	
+	/**
+	 * @return the number of transactions waiting in the request queue.
+	 */
+	public int getRequestQueueDepth()
+	{
+		return ring != null ? ring.size() : dbRequests.size();
+	}
+	
+	/**
+	 * Submits a transaction to be committed by one of the processing threads.
+	 * Submitting a request number that is still active or already committed doesn't commit it again.
+	 * @param transaction the transaction to commit.
+	 * @return a future completed with the transaction once committed, or completed exceptionally with an IllegalArgumentException 
+	 * if the transaction touches an account not in this database, or its request number is negative or still active as a different transaction.
+	 * For a request number still active as the same transaction, the future of its first submission.
+	 */
+	public CompletableFuture<Transaction> submit(Transaction transaction)
+	{
+		//Wait until this is finished initing, as the accounts to check against aren't read until then
+		while(!this.finishedInit) try{Thread.sleep(10);} catch(InterruptedException e) {}
+		return submit(transaction, null);
 	}
 	
 	/**
-	 * Retrieves the maximum number of update packets for the given request number.
-	 * @param curNum the request number to check.
-	 * @return The number of update packets received in the request queue.
+	 * Submits a transaction as {@link #submit(Transaction)} does, for a network thread that mustn't wait on the database.
+	 * Only called once initialized, as every server is started after. If the ring is full the submission is added to the backlog,
+	 * as is every one after while the backlog isn't empty, so the caller should stop reading requests until it has handed
+	 * the whole backlog over in order with {@link #offer(Submission)}.
+	 * @param transaction the transaction to commit.
+	 * @param backlog the submissions of the caller waiting on room in the ring, or null to wait for room here.
+	 * @return the future as returned by {@link #submit(Transaction)}.
 	 */
-	protected int countUpdatesCached(int curNum) 
+	CompletableFuture<Transaction> submit(Transaction transaction, Queue<Submission> backlog)
 	{
-		synchronized(updatePackets)
+		Submission submission = new Submission(transaction);
+		
+		//Rejected up front, as a processing thread can never commit it. A backup commits whatever part its primary held
+		IllegalArgumentException invalid = validate(transaction, isBackup);
+		if(invalid != null)
 		{
-			return updatePackets.get(curNum) == null ? 0 : updatePackets.get(curNum).size();
+			skip(transaction.getRequestNumber());
+			submission.future.completeExceptionally(invalid);
+			return submission.future;
 		}
+		
+		return enqueue(submission, backlog).future;
 	}
 	
 	/**
-	 * Retrieves the list of update packets for the given request.
-	 * 
-	 * @param request the request # to retrieve for
-	 * @return the current list of update packets for the given request.
+	 * Submits a transaction across shards to have this shard's part of it prepared by one of the processing threads,
+	 * which holds its locks until {@link #decide(int, boolean)}.
+	 * @param transaction the transaction to prepare.
+	 * @return a future completed with the transaction once prepared, or completed exceptionally with an IllegalArgumentException
+	 * if the transaction touches an account that should be in this shard but isn't, or no account of this shard,
+	 * or its request number is negative or still active as a different transaction.
 	 */
-	protected LinkedList<DBUpdatePacket> getUpdatePackets(int request)
+	public CompletableFuture<Transaction> prepare(Transaction transaction)
 	{
-		synchronized(updatePackets)
+		while(!this.finishedInit) try{Thread.sleep(10);} catch(InterruptedException e) {}
+		return prepare(transaction, null);
+	}
+	
+	/**
+	 * Prepares this shard's part of a transaction as {@link #prepare(Transaction)} does, without waiting on room in the ring.
+	 * See {@link #submit(Transaction, Queue)}.
+	 * @param transaction the transaction to prepare.
+	 * @param backlog the submissions of the caller waiting on room in the ring, or null to wait for room here.
+	 * @return the future as returned by {@link #prepare(Transaction)}.
+	 */
+	CompletableFuture<Transaction> prepare(Transaction transaction, Queue<Submission> backlog)
+	{
+		Submission submission = new Submission(transaction, true);
+		
+		IllegalArgumentException invalid = validate(transaction, true);
+		if(invalid != null)
 		{
-			return updatePackets.get(request);
+			skip(transaction.getRequestNumber());
+			submission.prepared.completeExceptionally(invalid);
+			return submission.prepared;
 		}
+		
+		Submission queued = enqueue(submission, backlog);
+		return queued.isBranch() ? queued.prepared : queued.future;
+	}
+	
+	public CompletableFuture<Void> decide(int requestNumber, boolean commit)
+	{
+		//Already decided, or never prepared here, which leaves nothing to undo
+		Submission submission = requestNumber < 0 ? null : activeTransactions.get(requestNumber);
+		if(submission == null || !submission.isBranch())
+			return CompletableFuture.completedFuture(null);
+		
+		submission.decision.complete(commit);
+		return submission.future.handle((committed, error) -> null);
+	}
+	
+	/**
+	 * Marks a request that will never be committed here, as one rejected or held by other shards, so the commit watermark moves past it,
+	 * and tells the replicas of a primary. A request still active is left to be committed or aborted.
+	 * @param requestNumber the request number.
+	 */
+	public void skip(int requestNumber)
+	{
+		if(requestNumber < 0 || activeTransactions.get(requestNumber) != null || !commitTracker.markSkipped(requestNumber))
+			return;
+		
+		ReplicationGroup replication = isBackup ? null : getReplicationGroup();
+		if(replication != null)
+			replication.skip(requestNumber);
 	}
 	
 	/**
-	 * Sends a request to the backup database, if backups are enabled.
+	 * Reads the committed balance of an account of this database, waiting on its lock.
+	 * @param accountNumber the number of the account.
+	 * @return a future completed with the balance, or NaN if there is no such account.
 	 */
-	public void sendToBackupDatabase(String request)
+	public CompletableFuture<Double> getBalance(int accountNumber)
+	{
+		return CompletableFuture.completedFuture(accountTable.readBalance(accountNumber));
+	}
+	
+	//Why the transaction can't be committed here, or null if it can. Accounts of other shards are only allowed if the caller says so
+	private IllegalArgumentException validate(Transaction transaction, boolean otherShards)
 	{
-		if(this.isBackup)
+		//Negative numbers mark empty slots of the active transactions
+		if(transaction.getRequestNumber() < 0)
+			return new IllegalArgumentException("Request number " + transaction.getRequestNumber() + " is negative, in " + transaction);
+		
+		boolean touched = false;
+		for(int account : transaction.getAccountNumbers())
 		{
-			//Once this is finished initing, add a request to the only processing thread.
-			while(!this.finishedInit) try{Thread.sleep(10);} catch(InterruptedException e) {}
-			this.addRequest(request);
-			//System.out.println("Sent " + request + " to backup database");
+			if(config.shardOf(account) != shard)
+			{
+				if(!otherShards)
+					return new IllegalArgumentException("Account #" + account + " is held by shard " + config.shardOf(account) + ", in " + transaction);
+			}
+			else if(accountTable.get(account) == null)
+			{
+				return new IllegalArgumentException("Account #" + account + " does not exist, in " + transaction);
+			}
+			else
+			{
+				touched = true;
+			}
 		}
-		else
+		
+		return touched ? null : new IllegalArgumentException("No account of shard " + shard + " is in " + transaction);
+	}
+	
+	//Adds the submission for the processing threads, or to the backlog if given and the ring is full, returning it,
+	//or the first submission of its request number if still active. Returned completed if already committed,
+	//or failed if a different transaction under an active request number
+	private Submission enqueue(Submission submission, Queue<Submission> backlog)
+	{
+		int request = submission.getRequestNumber();
+		
+		//Submitted twice, as when a replica catching up from the log is sent the same commit live
+		if(!activeTransactions.add(submission))
 		{
-			//Call the function in the backup database.
-			DatabaseMS.getInstance(true).sendToBackupDatabase(request);
+			//Null if committed in between, which is marked before it stops being active
+			Submission first = activeTransactions.get(request);
+			if(first == null)
+				return completed(submission);
+			if(first.transaction.equals(submission.transaction))
+				return first;
+			
+			//Not a retransmission but another transaction reusing the number, which can't be committed under it too
+			IllegalArgumentException cause = new IllegalArgumentException("Request #" + request + " is already active as " + first.transaction + ", rejecting " + submission.transaction);
+			if(submission.isBranch())
+				submission.prepared.completeExceptionally(cause);
+			submission.future.completeExceptionally(cause);
+			return submission;
 		}
+		
+		if(commitTracker.isCommitted(request))
+		{
+			activeTransactions.remove(request);
+			return completed(submission);
+		}
+		
+		//Add the transaction for the processing threads, waiting for a free slot if the ring is full and there is no backlog.
+		//Still active while in the backlog, so a submission of the same number again waits on this one
+		if(backlog == null)
+		{
+			if(ring != null)
+				ring.put(submission);
+			else
+				dbRequests.add(submission);
+		}
+		else if(!backlog.isEmpty() || !offer(submission))
+		{
+			backlog.add(submission);
+		}
+		return submission;
 	}
 	
-	public SyncQueue<String> getResponses()
+	//Completes a submission of a request already committed
+	private Submission completed(Submission submission)
 	{
-		return dbResponses;
+		if(submission.isBranch())
+			submission.prepared.complete(submission.transaction);
+		submission.future.complete(submission.transaction);
+		return submission;
 	}
 	
 	/**
-	 * Adds a request to this processing thread.
-	 * @param req the request to add.
+	 * Hands a submission from a backlog of {@link #submit(Transaction, Queue)} over to the processing threads, unless the ring is full.
+	 * @param submission the submission at the front of the backlog.
+	 * @return true if handed over, false if the ring is still full.
 	 */
-	public void addRequest(String req)
+	boolean offer(Submission submission)
 	{
-		dbRequests.add(req);
+		if(ring != null)
+			return ring.offer(submission);
+		
+		dbRequests.add(submission);
+		return true;
 	}
 	
 	/**
-	 * @return true if each teller has committed Teller.MAX_REQUESTS requests to this database, false if not.
+	 * @return true if every request sent by the tellers has been committed to this database, false if not.
 	 */
 	public boolean isRequestsFinished()
 	{
-		synchronized(committedRequests)
-		{
-			return committedRequests.size() >= getInstance(false).tellers.length * Teller.MAX_REQUESTS;				
-		}
+		//A backup in its own process has no primary to ask, so never knows the total
+		DatabaseMS primary = instance != null ? instance : this;
+		return commitTracker.getCommittedCount() >= primary.requestTotal;
 	}
 	
 	/**
-	 * Retrieves the current request.
+	 * @return the number of requests committed to this database.
 	 */
-	protected String getRequest()
+	public int getCommittedCount()
 	{
-		String ret = dbRequests.poll();
-		return ret;
+		return commitTracker.getCommittedCount();
+	}
+	
+	/**
+	 * Sets the number of requests that will be sent to this database in total, once known.
+	 * @param total the total number of requests.
+	 */
+	public void setRequestTotal(int total)
+	{
+		requestTotal = total;
+	}
+	
+	/**
+	 * @return the number of requests that will be sent to this database in total, or Integer.MAX_VALUE if not known yet.
+	 */
+	public int getRequestTotal()
+	{
+		return requestTotal;
+	}
+	
+	/**
+	 * @return the network front end for tellers, or null if not serving tellers over the network.
+	 */
+	public TellerServer getTellerServer()
+	{
+		return tellerServer;
 	}
 	
 	/**
-	 * Sorts the requests by their request number.
+	 * @return the load generator sending requests to this database, or null for the backup database.
 	 */
-	protected void sortRequests()
+	public LoadGenerator getLoadGenerator()
 	{
-		dbRequests.sort((String a, String b) -> {return Integer.parseInt(a.substring(a.indexOf(" ")+1, a.indexOf(">")));});
+		return loadGenerator;
 	}
+	
+	/**
+	 * Retrieves the next requests, as many as fit from the ring if configured, or else the next one from the queue.
+	 * @param into the array to fill from index 0.
+	 * @param timeoutNanos the longest to wait for a request on the ring, the queue is never waited on.
+	 * @return the number of requests retrieved, 0 if none are waiting.
+	 */
+	int takeRequests(Submission[] into, long timeoutNanos)
+	{
+		if(ring != null)
+			return ring.drain(into, timeoutNanos);
 		
+		into[0] = dbRequests.poll();
+		return into[0] != null ? 1 : 0;
+	}
+	
+	/**
+	 * Hands a parked branch back to the processing threads once its coordinator decides. Called from whichever thread decides,
+	 * so it never waits.
+	 * @param submission the branch decided.
+	 */
+	void resume(Submission submission)
+	{
+		decidedBranches.offer(submission);
+	}
+	
+	/**
+	 * @return the next parked branch whose coordinator has decided, or null if none are waiting to be finished.
+	 */
+	Submission pollDecided()
+	{
+		return decidedBranches.poll();
+	}
+	
+	/**
+	 * @return true if requests are handed to the processing threads through a ring, which waits for them to arrive.
+	 */
+	boolean isRingBuffered()
+	{
+		return ring != null;
+	}
+	
 	/**
 	 * @return The primary DatabaseMS. See the version of this call with a parameter to access the backup.
 	 */
@@ -418,44 +732,134 @@ public class DatabaseMS
 	{
 		return getInstance(false);
 	}
-
+	
 	/**
 	 * Retrieves the active DatabaseMS, or creates one if it has not been activated.
-	 * Additionally, creates the backup DatabaseMS if it does not exist.
-	 * @param backup true if accessing the backup database, false if not.
-	 * @return the primary DatabaseMS or the backup DatabaseMS, depending on the parameter.
+	 * Additionally, creates the backup DatabaseMS replicas if they do not exist.
+	 * @param backup true if accessing the first backup database, false if not. See {@link #getReplicationGroup()} for the rest.
+	 * @return the primary DatabaseMS or the first backup DatabaseMS, depending on the parameter. 
+	 * Null for the backup if every backup is in another process.
 	 */
 	public static DatabaseMS getInstance(boolean backup)
 	{
 		if(instance == null)
 		{
 			instance = new DatabaseMS();
-		}
-
-		if(backupInstance == null)
-		{
-			backupInstance = new DatabaseMS(true);
+			
+			backups = new DatabaseMS[config.getReplicas()];
+			for(int i = 0; i < backups.length; ++i)
+				backups[i] = new DatabaseMS(i + 1);
+			
+			remoteReplicas = new RemoteReplica[config.getRemoteReplicas().length];
+			for(int i = 0; i < remoteReplicas.length; ++i)
+				remoteReplicas[i] = new RemoteReplica(config.getRemoteReplicas()[i]);
+			
+			Replica[] replicas = new Replica[backups.length + remoteReplicas.length];
+			System.arraycopy(backups, 0, replicas, 0, backups.length);
+			System.arraycopy(remoteReplicas, 0, replicas, backups.length, remoteReplicas.length);
+			replicationGroup = new ReplicationGroup(instance, replicas, config.getQuorum());
+			readRouter = new ReadRouter(instance, backups);
 		}
 		
-		return backup ? backupInstance : instance;
+		return backup ? (backups.length > 0 ? backups[0] : null) : instance;
+	}
+	
+	/**
+	 * @return the backup databases the primary replicates to.
+	 */
+	public static ReplicationGroup getReplicationGroup()
+	{
+		getInstance(false);
+		return replicationGroup;
+	}
+	
+	/**
+	 * @return the router serving balance reads from the primary or the backups in this process.
+	 */
+	public static ReadRouter getReadRouter()
+	{
+		getInstance(false);
+		return readRouter;
 	}
 	
 	/**
 	 * Sets up both the primary and backup databases.
 	 * Creates and connects the DBProcessThreads and Tellers together, and starts the requests.
+	 * @param loadConfig the workload the tellers will send.
 	 */
-	public static void startDatabases()
+	public static void startDatabases(LoadConfig loadConfig)
 	{
+		config = loadConfig;
+		getInstance(false);
+		
+		//Backups in other processes are connected before the tellers can send anything to replicate
+		for(RemoteReplica replica : remoteReplicas)
+		{
+			try {
+				replica.connect();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to connect to " + replica.getName(), e);
+			}
+		}
+		
 		getInstance(false).startDatabase();
-		getInstance(true).startDatabase();
+		for(DatabaseMS backup : backups)
+			backup.startDatabase();
+	}
+	
+	/**
+	 * Sets up a backup database on its own, for a replica running in another process than its primary. See {@link ReplicaServer}.
+	 * @param replica the number of the replica, from 1.
+	 * @param loadConfig the settings of the database.
+	 * @return the started backup database.
+	 */
+	static DatabaseMS startReplica(int replica, LoadConfig loadConfig)
+	{
+		config = loadConfig;
+		DatabaseMS ret = new DatabaseMS(replica);
+		ret.startDatabase();
+		return ret;
+	}
+	
+	/**
+	 * Sets up both the primary and backup databases, with the default workload of 4 tellers sending 400 requests.
+	 */
+	public static void startDatabases()
+	{
+		startDatabases(LoadConfig.parse(new String[0]));
+	}
+	
+	/**
+	 * Compares the account file of each backup database in this process against the primary's by their hash trees,
+	 * and copies the primary's balance into any row of a backup that diverged.
+	 * Only call once every database has finished committing.
+	 * @return the number of accounts repaired across the backups, 0 if every backup already matched.
+	 */
+	public static int repairBackup()
+	{
+		int ret = 0;
+		
+		getInstance(false);
+		for(DatabaseMS backup : backups)
+		{
+			Account[] repaired = backup.accountWriter.repairFrom(getInstance(false).accountWriter);
+			
+			for(Account account : repaired)
+				Main.log.warn(DebugLevel.NONE, "[{}] Repaired account #{} which diverged from the primary", backup.getName(), account.getAccountNumber());
+			ret += repaired.length;
+		}
+		
+		return ret;
 	}
 	
 	/**
-	 * Closes the files for both the primary and backup databases.
+	 * Closes the files for the primary and every backup database in this process.
 	 */
 	public static void closeDatabases()
 	{
-		getInstance(true).closeDatabase();
+		getInstance(false);
+		for(DatabaseMS backup : backups)
+			backup.closeDatabase();
 		getInstance(false).closeDatabase();
 	}
 }
\ No newline at end of file
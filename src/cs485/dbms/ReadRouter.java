@@ -0,0 +1,183 @@
+package cs485.dbms;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Serves balance reads from the backup databases in this process, so balance inquiries don't take the primary's locks
+ * from the transactions it is committing. A read is only served by a backup fresh enough for its {@link Consistency},
+ * trying each backup in turn from a different one each read, and otherwise falls back to the primary.
+ * 
+ * Freshness is judged from each backup's {@link CommitTracker}. A backup locks its accounts as the primary does, applying a request's writes
+ * before unlocking them and marking it committed no sooner, so a read that finds a backup has committed a request sees its writes
+ * once it has the account's lock.
+ * Backups in other processes can't be read from, as the replication channel only carries commits.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReadRouter
+{
+	private final DatabaseMS primary;
+	private final DatabaseMS[] backups;
+	
+	//The backup the next read tries first, so reads are spread across the backups
+	private final AtomicInteger next = new AtomicInteger();
+	private final LongAdder backupReads = new LongAdder();
+	private final LongAdder primaryReads = new LongAdder();
+	
+	ReadRouter(DatabaseMS primary, DatabaseMS[] backups)
+	{
+		this.primary = primary;
+		this.backups = backups.clone();
+	}
+	
+	/**
+	 * Reads the committed balance of an account from the primary.
+	 * @param accountNumber the number of the account.
+	 * @return the balance of the account, or NaN if there is no such account.
+	 */
+	public double readBalance(int accountNumber)
+	{
+		primaryReads.increment();
+		return primary.getAccountTable().readBalance(accountNumber);
+	}
+	
+	/**
+	 * Reads the balance of an account from a backup at most maxLag commits behind the primary, or from the primary if none is.
+	 * @param accountNumber the number of the account.
+	 * @param maxLag the most commits the primary may have made that the backup read from hasn't.
+	 * @return the balance of the account, or NaN if there is no such account.
+	 */
+	public double readBalanceWithin(int accountNumber, int maxLag)
+	{
+		//Taken before the backup's count, so the backup is no further behind than checked
+		int committed = primary.getCommittedCount();
+		return read(accountNumber, backup -> committed - backup.getCommittedCount() <= maxLag);
+	}
+	
+	/**
+	 * Reads the balance of an account from a backup that has committed every request up to the given one, or from the primary if none has,
+	 * so a teller passing its {@link Session#getToken()} reads its own writes.
+	 * @param accountNumber the number of the account.
+	 * @param token the highest request # of the reader's committed transactions, or -1 to read from any backup.
+	 * @return the balance of the account, or NaN if there is no such account.
+	 */
+	public double readBalanceAfter(int accountNumber, int token)
+	{
+		return read(accountNumber, backup -> Session.hasCommitted(backup.getCommitTracker(), token));
+	}
+	
+	/**
+	 * Reads the balance of an account with the given consistency.
+	 * @param accountNumber the number of the account.
+	 * @param consistency which databases may serve the read.
+	 * @param maxLag the most commits a backup may be behind, for {@link Consistency#BOUNDED}.
+	 * @param token the highest request # of the reader's committed transactions or -1 if none, for {@link Consistency#SESSION}.
+	 * @return the balance of the account, or NaN if there is no such account.
+	 */
+	public double readBalance(int accountNumber, Consistency consistency, int maxLag, int token)
+	{
+		switch(consistency)
+		{
+			case BOUNDED: return readBalanceWithin(accountNumber, maxLag);
+			case SESSION: return readBalanceAfter(accountNumber, token);
+			default: return readBalance(accountNumber);
+		}
+	}
+	
+	//Reads from the first backup fresh enough, or the primary if none is
+	private double read(int accountNumber, Predicate<DatabaseMS> fresh)
+	{
+		int start = next.getAndIncrement();
+		for(int i = 0; i < backups.length; ++i)
+		{
+			DatabaseMS backup = backups[Math.floorMod(start + i, backups.length)];
+			if(backup.isDatabaseInitialized() && fresh.test(backup))
+			{
+				backupReads.increment();
+				return backup.getAccountTable().readBalance(accountNumber);
+			}
+		}
+		
+		return readBalance(accountNumber);
+	}
+	
+	/**
+	 * @return the number of reads served by a backup.
+	 */
+	public long getBackupReadCount()
+	{
+		return backupReads.sum();
+	}
+	
+	/**
+	 * @return the number of reads served by the primary, including those no backup was fresh enough for.
+	 */
+	public long getPrimaryReadCount()
+	{
+		return primaryReads.sum();
+	}
+	
+	/**
+	 * The session token of a reader with several transactions in flight, which commit in whatever order they finish.
+	 * 
+	 * The token is the highest request # the reader has had committed, and a backup may only serve the reader once
+	 * its watermark has passed it. Checking the token alone with {@link CommitTracker#isCommitted(int)} isn't enough,
+	 * as a backup may commit the reader's latest request before an earlier one the reader has already seen committed.
+	 */
+	public static class Session
+	{
+		private final AtomicInteger token = new AtomicInteger(-1);
+		
+		/**
+		 * Records one of the reader's transactions as committed, keeping the highest request # seen.
+		 * @param request the request # of the committed transaction.
+		 */
+		public void committed(int request)
+		{
+			token.accumulateAndGet(request, Math::max);
+		}
+		
+		/**
+		 * @return the highest request # of the reader's committed transactions, or -1 if none.
+		 */
+		public int getToken()
+		{
+			return token.get();
+		}
+		
+		/**
+		 * @param tracker the commit tracker of the database that would serve the read.
+		 * @param token the highest request # of the reader's committed transactions, or -1 if none.
+		 * @return true if the database has committed every request up to the token, and so every one the reader has.
+		 */
+		static boolean hasCommitted(CommitTracker tracker, int token)
+		{
+			return token < 0 || tracker.getWatermark() > token;
+		}
+	}
+	
+	/**
+	 * How fresh the database serving a read must be.
+	 */
+	public enum Consistency
+	{
+		/**
+		 * Only the primary serves reads.
+		 */
+		PRIMARY,
+		/**
+		 * A backup serves reads while within a set number of commits of the primary.
+		 */
+		BOUNDED,
+		/**
+		 * A backup serves a reader's reads once it has committed every request up to the reader's {@link Session} token,
+		 * so the reader reads its own writes.
+		 */
+		SESSION
+	}
+}
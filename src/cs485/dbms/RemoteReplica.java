@@ -0,0 +1,257 @@
+package cs485.dbms;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * A backup database running in another process as a {@link ReplicaServer}, replicated to over a non-blocking socket.
+ * 
+ * Transactions are queued by the submitting threads and sent by a single I/O thread, batching every transaction waiting
+ * into one frame of the {@link ReplicationProtocol}. At most {@link #WINDOW} transactions are sent without being acknowledged,
+ * so a replica that falls behind holds the rest in this queue rather than in its socket buffers.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RemoteReplica implements Replica
+{
+	/**
+	 * The most transactions sent to the replica without being acknowledged, past which sending waits on acknowledgements.
+	 */
+	public static final int WINDOW = 1024;
+	//How long to keep trying to connect, as the replica may still be starting
+	private static final long CONNECT_TIMEOUT_MILLIS = 10000;
+	
+	private final InetSocketAddress address;
+	//The transactions the replica has acknowledged committing
+	private final CommitTracker acknowledged = new CommitTracker();
+	
+	//Every transaction submitted and not acknowledged yet, and those of them not sent yet
+	private final ConcurrentHashMap<Integer, Submission> pending = new ConcurrentHashMap<Integer, Submission>();
+	private final ConcurrentLinkedQueue<Submission> unsent = new ConcurrentLinkedQueue<Submission>();
+	//The requests the primary will never commit, not sent yet
+	private final ConcurrentLinkedQueue<Integer> unsentSkips = new ConcurrentLinkedQueue<Integer>();
+	private volatile boolean closed = false;
+	
+	//Only touched by the I/O thread
+	private SocketChannel channel;
+	private Selector selector;
+	private int inFlight = 0;
+	private ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME).flip();
+	private final ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader();
+	
+	/**
+	 * @param address the address the replica's {@link ReplicaServer} listens on.
+	 */
+	public RemoteReplica(InetSocketAddress address)
+	{
+		this.address = address;
+	}
+	
+	/**
+	 * Connects to the replica, retrying for a while if it isn't listening yet, and starts sending it transactions.
+	 * @throws IOException if the replica could not be connected to.
+	 */
+	public void connect() throws IOException
+	{
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+		while(channel == null)
+		{
+			try {
+				channel = SocketChannel.open(address);
+			} catch (ConnectException e) {
+				if(System.currentTimeMillis() > deadline)
+					throw e;
+				try { Thread.sleep(100); } catch(InterruptedException e2) {}
+			}
+		}
+		
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		channel.configureBlocking(false);
+		selector = Selector.open();
+		channel.register(selector, SelectionKey.OP_READ);
+		
+		Thread thread = new Thread(this::run, "Replication to " + getName());
+		//The replica sees the primary's process end as the connection closing
+		thread.setDaemon(true);
+		thread.start();
+		Main.log.print(DebugLevel.NONE, "[{}] Connected to the replica at {}", getName(), address);
+	}
+	
+	public String getName()
+	{
+		return "(Backup " + address.getHostString() + ":" + address.getPort() + ") DBMS";
+	}
+	
+	public CompletableFuture<Transaction> submit(Transaction transaction)
+	{
+		int request = transaction.getRequestNumber();
+		Submission submission = new Submission(transaction);
+		
+		if(acknowledged.isCommitted(request))
+		{
+			submission.future.complete(transaction);
+			return submission.future;
+		}
+		
+		Submission first = pending.putIfAbsent(request, submission);
+		if(first != null)
+			return first.future;
+		
+		unsent.add(submission);
+		//Failed after the connection closed, as nothing will send it
+		if(closed && pending.remove(request, submission))
+			submission.future.completeExceptionally(new IOException("The connection to " + getName() + " is closed."));
+		
+		selector.wakeup();
+		return submission.future;
+	}
+	
+	public void skip(int requestNumber)
+	{
+		//Never acknowledged, so passed over here as well as by the replica
+		acknowledged.markSkipped(requestNumber);
+		if(closed)
+			return;
+		
+		unsentSkips.add(requestNumber);
+		selector.wakeup();
+	}
+	
+	public CommitTracker getCommitTracker()
+	{
+		return acknowledged;
+	}
+	
+	public boolean isConnected()
+	{
+		return !closed;
+	}
+	
+	//The I/O thread, reading acknowledgements and sending batches of transactions until the connection closes
+	private void run()
+	{
+		try {
+			SelectionKey key = channel.keyFor(selector);
+			while(true)
+			{
+				selector.select();
+				if(selector.selectedKeys().remove(key) && key.isReadable() && !reader.read(channel, this::handle))
+					throw new EOFException("The replica closed the connection.");
+				
+				fill();
+				if(out.hasRemaining())
+					channel.write(out);
+				key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+			}
+		} catch (IOException e) {
+			Main.log.warn(DebugLevel.NONE, "[{}] Lost the connection to the replica: {}", getName(), e);
+			close(e);
+		}
+	}
+	
+	//Once the last frame is sent, batches every unsent transaction the window allows into the next, or else every unsent skip
+	private void fill()
+	{
+		if(out.hasRemaining())
+			return;
+		
+		if(unsent.isEmpty() || inFlight >= WINDOW)
+		{
+			if(!unsentSkips.isEmpty())
+				fillSkips();
+			return;
+		}
+		
+		ReplicationProtocol.beginFrame(out);
+		int count = 0;
+		
+		for(Submission next = unsent.peek(); next != null && inFlight < WINDOW; next = unsent.peek())
+		{
+			int size = ReplicationProtocol.sizeOf(next.transaction);
+			if(size > out.remaining())
+			{
+				if(count > 0)
+					break;
+				
+				//Too big for any frame of the usual size, so it gets its own
+				out = ByteBuffer.allocate(ReplicationProtocol.HEADER + size);
+				ReplicationProtocol.beginFrame(out);
+			}
+			
+			unsent.poll();
+			ReplicationProtocol.putTransaction(out, next.transaction);
+			++count;
+			++inFlight;
+		}
+		
+		ReplicationProtocol.endFrame(out, ReplicationProtocol.TRANSACTIONS, count);
+	}
+	
+	private void fillSkips()
+	{
+		ReplicationProtocol.beginFrame(out);
+		int count = 0;
+		for(Integer request = unsentSkips.poll(); request != null; request = out.remaining() >= 4 ? unsentSkips.poll() : null)
+		{
+			out.putInt(request);
+			++count;
+		}
+		
+		ReplicationProtocol.endFrame(out, ReplicationProtocol.SKIPS, count);
+	}
+	
+	private void handle(byte type, int count, ByteBuffer entries)
+	{
+		for(int i = 0; i < count; ++i)
+		{
+			int request = entries.getInt();
+			Submission submission = pending.remove(request);
+			if(submission == null)
+				continue;
+			
+			--inFlight;
+			if(type == ReplicationProtocol.ACKS)
+			{
+				acknowledged.markCommitted(request);
+				submission.future.complete(submission.transaction);
+			}
+			else
+			{
+				submission.future.completeExceptionally(new IllegalArgumentException(getName() + " rejected " + submission.transaction));
+			}
+		}
+	}
+	
+	//Fails every transaction not acknowledged yet, and any submitted after
+	private void close(IOException cause)
+	{
+		closed = true;
+		try {
+			channel.close();
+			selector.close();
+		} catch (IOException e) {}
+		
+		for(Integer request : pending.keySet())
+		{
+			Submission submission = pending.remove(request);
+			if(submission != null)
+				submission.future.completeExceptionally(cause);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package cs485.dbms;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A backup the primary database replicates its commits to, either a {@link DatabaseMS} in the same process
+ * or a {@link RemoteReplica} in another.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public interface Replica
+{
+	/**
+	 * @return the name of the replica.
+	 */
+	public String getName();
+	
+	/**
+	 * Sends a transaction to the replica to commit. Sending a transaction it is still committing or already committed doesn't commit it again.
+	 * @param transaction the transaction to commit.
+	 * @return a future completed with the transaction once the replica has committed it, or completed exceptionally if it can't.
+	 */
+	public CompletableFuture<Transaction> submit(Transaction transaction);
+	
+	/**
+	 * Tells the replica the primary will never commit a request, so the replica's commit watermark doesn't wait on it.
+	 * @param requestNumber the request number.
+	 */
+	public void skip(int requestNumber);
+	
+	/**
+	 * @return the requests the replica is known to have committed.
+	 */
+	public CommitTracker getCommitTracker();
+	
+	/**
+	 * @return false once the replica can no longer be reached, so won't commit anything more.
+	 */
+	public default boolean isConnected()
+	{
+		return true;
+	}
+}
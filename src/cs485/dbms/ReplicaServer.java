@@ -0,0 +1,207 @@
+package cs485.dbms;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Runs a backup database in its own process, committing the transactions a primary sends it over the {@link ReplicationProtocol},
+ * so the backup isn't held up by the primary's heap and garbage collection pauses. The primary connects with a {@link RemoteReplica}.
+ * 
+ * Arguments are given as "--name=value":
+ *  --port=7001     the port to listen on for the primary
+ *  --replica=1     the number of this replica, naming its log and account file as in the primary's process
+ *  --log=NONE      the {@link DebugLevel} of the console output
+ * Any other argument is a {@link LoadConfig} setting, such as --nameIndex.
+ * 
+ * Serves a single primary, and exits once it disconnects and every transaction it sent is committed.
+ * While the database's ring is full, the transactions read are held in a backlog and the socket isn't read until they are handed over,
+ * so the I/O thread never waits on the processing thread.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReplicaServer
+{
+	//How often to try handing the backlog over again while the ring is full
+	private static final long STALLED_WAIT_MILLIS = 1;
+	
+	private final DatabaseMS database;
+	private final int port;
+	
+	//The request numbers to acknowledge or reject, added by the processing thread as it commits
+	private final ConcurrentLinkedQueue<Integer> acks = new ConcurrentLinkedQueue<Integer>();
+	private final ConcurrentLinkedQueue<Integer> rejects = new ConcurrentLinkedQueue<Integer>();
+	
+	//Only touched by the I/O thread
+	private Selector selector;
+	private final ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME).flip();
+	private final ReplicationProtocol.FrameReader reader;
+	//Read while the ring was full, in order, and handed over before reading any more
+	private final ArrayDeque<Submission> backlog = new ArrayDeque<Submission>();
+	
+	/**
+	 * @param database the backup database to commit to.
+	 * @param port the port to listen on for the primary.
+	 * @param maxFrame the longest frame in bytes accepted from the primary, closing the connection if it sends a longer one.
+	 */
+	public ReplicaServer(DatabaseMS database, int port, int maxFrame)
+	{
+		this.database = database;
+		this.port = port;
+		reader = new ReplicationProtocol.FrameReader(maxFrame);
+	}
+	
+	public static void main(String[] args) throws IOException
+	{
+		int port = 7001, replica = 1;
+		DebugLevel level = DebugLevel.NONE;
+		ArrayList<String> loadArgs = new ArrayList<String>();
+		
+		for(String arg : args)
+		{
+			if(arg.startsWith("--port="))
+				port = Integer.parseInt(arg.substring(7));
+			else if(arg.startsWith("--replica="))
+				replica = Integer.parseInt(arg.substring(10));
+			else if(arg.startsWith("--log="))
+				level = DebugLevel.valueOf(arg.substring(6));
+			else
+				loadArgs.add(arg);
+		}
+		
+		if(replica < 1)
+			throw new IllegalArgumentException("Replicas are numbered from 1, got " + replica);
+		
+		Main.log.setDebugLevel(level);
+		LoadConfig config = LoadConfig.parse(loadArgs.toArray(new String[0]));
+		DatabaseMS database = DatabaseMS.startReplica(replica, config);
+		new ReplicaServer(database, port, config.getMaxFrame()).serve();
+		
+		database.closeDatabase();
+		Main.log.warn(DebugLevel.NONE, "[{}] has terminated successfully.", database.getName());
+		Main.log.close();
+		//The processing thread waits on a primary this process doesn't have
+		System.exit(0);
+	}
+	
+	/**
+	 * Waits for a primary to connect, and commits what it sends until it disconnects.
+	 * @throws IOException if the port could not be listened on.
+	 */
+	public void serve() throws IOException
+	{
+		SocketChannel channel;
+		try(ServerSocketChannel server = ServerSocketChannel.open())
+		{
+			server.bind(new InetSocketAddress(port));
+			Main.log.print(DebugLevel.NONE, "[{}] Waiting for the primary on port {}", database.getName(), port);
+			channel = server.accept();
+		}
+		
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		channel.configureBlocking(false);
+		selector = Selector.open();
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		Main.log.print(DebugLevel.NONE, "[{}] The primary connected from {}", database.getName(), channel.getRemoteAddress());
+		
+		try {
+			while(true)
+			{
+				if(backlog.isEmpty())
+					selector.select();
+				else
+					selector.select(STALLED_WAIT_MILLIS);
+				
+				handOver();
+				if(selector.selectedKeys().remove(key) && key.isReadable() && !reader.read(channel, this::handle))
+					break;
+				
+				fill();
+				if(out.hasRemaining())
+					channel.write(out);
+				int read = backlog.isEmpty() ? SelectionKey.OP_READ : 0;
+				key.interestOps(out.hasRemaining() ? read | SelectionKey.OP_WRITE : read);
+			}
+		} catch (IOException e) {
+			Main.log.warn(DebugLevel.NONE, "[{}] Lost the connection to the primary: {}", database.getName(), e);
+		}
+		
+		channel.close();
+		selector.close();
+		
+		//Nothing is left to acknowledge to, but whatever was sent is still committed
+		while(database.getActiveTransactionCount() > 0)
+		{
+			handOver();
+			try { Thread.sleep(10); } catch(InterruptedException e) {}
+		}
+	}
+	
+	//Hands over as much of the backlog as the ring has room for
+	private void handOver()
+	{
+		while(!backlog.isEmpty() && database.offer(backlog.peek()))
+			backlog.poll();
+	}
+	
+	private void handle(byte type, int count, ByteBuffer entries)
+	{
+		if(type == ReplicationProtocol.SKIPS)
+		{
+			for(int i = 0; i < count; ++i)
+				database.skip(entries.getInt());
+			return;
+		}
+		if(type != ReplicationProtocol.TRANSACTIONS)
+			return;
+		
+		for(int i = 0; i < count; ++i)
+		{
+			Transaction transaction = ReplicationProtocol.getTransaction(entries);
+			database.submit(transaction, backlog).whenComplete((committed, error) ->
+			{
+				if(error == null)
+					acks.add(transaction.getRequestNumber());
+				else
+					rejects.add(transaction.getRequestNumber());
+				selector.wakeup();
+			});
+		}
+	}
+	
+	//Once the last frame is sent, batches every waiting acknowledgement into the next, or else every waiting rejection
+	private void fill()
+	{
+		if(out.hasRemaining())
+			return;
+		
+		ConcurrentLinkedQueue<Integer> requests = !acks.isEmpty() ? acks : rejects;
+		if(requests.isEmpty())
+			return;
+		
+		ReplicationProtocol.beginFrame(out);
+		int count = 0;
+		for(Integer request = requests.poll(); request != null; request = out.remaining() >= 4 ? requests.poll() : null)
+		{
+			out.putInt(request);
+			++count;
+		}
+		
+		ReplicationProtocol.endFrame(out, requests == acks ? ReplicationProtocol.ACKS : ReplicationProtocol.REJECTS, count);
+	}
+}
@@ -0,0 +1,263 @@
+package cs485.dbms;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * The backup databases of the primary, each with its own log and account file, in this process or in another as a {@link RemoteReplica}.
+ * 
+ * The primary sends each commit to every attached replica, and commits once a quorum of them have committed it,
+ * so the slowest replicas don't hold up the commit. They carry on committing from their own queues in the background.
+ * A replica can be detached to stop sending it commits, and once reattached it catches up from the primary's log.
+ * 
+ * Replicas are numbered from 1, replica 1 being the backup database of {@link DatabaseMS#getInstance(boolean)}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReplicationGroup
+{
+	private final DatabaseMS primary;
+	private final Replica[] replicas;
+	//The number of replicas that must commit a transaction before the primary does
+	private final int quorum;
+	
+	//Whether each replica is sent new commits, guarded by membership
+	private final boolean[] attached;
+	private int attachedCount;
+	//Read locked by each commit of the primary until it is logged, and write locked to change which replicas are attached
+	private final ReentrantReadWriteLock membership = new ReentrantReadWriteLock();
+	
+	ReplicationGroup(DatabaseMS primary, Replica[] replicas, int quorum)
+	{
+		if(quorum < 1 || quorum > replicas.length)
+			throw new IllegalArgumentException("A quorum of " + quorum + " is not possible with " + replicas.length + " replicas.");
+		
+		this.primary = primary;
+		this.replicas = replicas.clone();
+		this.quorum = quorum;
+		
+		attached = new boolean[replicas.length];
+		for(int i = 0; i < attached.length; ++i)
+			attached[i] = true;
+		attachedCount = replicas.length;
+	}
+	
+	/**
+	 * Called by the primary before replicating a commit, and held until the commit is logged or handed to its journal,
+	 * so no replica can start catching up from the log while a commit it wasn't sent is missing from it.
+	 */
+	void beginCommit()
+	{
+		membership.readLock().lock();
+	}
+	
+	/**
+	 * Called by the primary once a commit started with {@link #beginCommit()} is logged or handed to its journal.
+	 */
+	void endCommit()
+	{
+		membership.readLock().unlock();
+	}
+	
+	/**
+	 * Sends a transaction to every attached replica. Only call between {@link #beginCommit()} and {@link #endCommit()}.
+	 * @param transaction the transaction to replicate.
+	 * @return a future completed with the transaction once a quorum of replicas have committed it, or completed exceptionally
+	 * once too many replicas have failed to commit it for a quorum.
+	 */
+	CompletableFuture<Transaction> replicate(Transaction transaction)
+	{
+		CompletableFuture<Transaction> ret = new CompletableFuture<Transaction>();
+		AtomicInteger acknowledged = new AtomicInteger(), failed = new AtomicInteger();
+		//Detaching is held off by beginCommit, so this can't change while sending
+		int tolerated = attachedCount - quorum;
+		
+		for(int i = 0; i < replicas.length; ++i)
+		{
+			if(!attached[i])
+				continue;
+			
+			replicas[i].submit(transaction).whenComplete((committed, error) ->
+			{
+				if(error == null)
+				{
+					if(acknowledged.incrementAndGet() == quorum)
+						ret.complete(transaction);
+				}
+				else if(failed.incrementAndGet() == tolerated + 1)
+				{
+					ret.completeExceptionally(error);
+				}
+			});
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Tells every replica of a request the primary will never commit. Detached replicas are told too,
+	 * as skips aren't logged for them to catch up on once reattached.
+	 * @param request the request number.
+	 */
+	void skip(int request)
+	{
+		for(Replica replica : replicas)
+			replica.skip(request);
+	}
+	
+	/**
+	 * Stops sending new commits to a replica, which still commits the ones it was already sent.
+	 * Waits for any commit being replicated to finish first.
+	 * @param replica the number of the replica, from 1.
+	 * @throws IllegalStateException if detaching the replica would leave too few attached for a quorum.
+	 */
+	public void detach(int replica)
+	{
+		membership.writeLock().lock();
+		try {
+			if(!attached[replica - 1])
+				return;
+			if(attachedCount == quorum)
+				throw new IllegalStateException("Can't detach " + replicas[replica - 1].getName() + ", leaving fewer than a quorum of " + quorum + " replicas.");
+			
+			attached[replica - 1] = false;
+			--attachedCount;
+		} finally {
+			membership.writeLock().unlock();
+		}
+		
+		Main.log.warn(DebugLevel.NONE, "[{}] Detached from replication", replicas[replica - 1].getName());
+	}
+	
+	/**
+	 * Starts sending new commits to a detached replica again, and catches it up by resubmitting every transaction
+	 * in the primary's log the replica hasn't committed. Returns once resubmitted, the replica commits them in the background.
+	 * @param replica the number of the replica, from 1.
+	 * @return the number of transactions resubmitted from the log, 0 if the replica was already attached.
+	 * @throws IOException if the primary's log could not be read.
+	 */
+	public int reattach(int replica) throws IOException
+	{
+		Replica database = replicas[replica - 1];
+		
+		membership.writeLock().lock();
+		try {
+			if(attached[replica - 1])
+				return 0;
+			
+			attached[replica - 1] = true;
+			++attachedCount;
+		} finally {
+			membership.writeLock().unlock();
+		}
+		
+		//Every commit from before reattaching is logged once the primary's journal catches up, and every one since is sent to the replica.
+		//One in both is committed only once, as submitting an active or committed transaction again is ignored
+		primary.awaitLogged();
+		int ret = 0;
+		for(Transaction transaction : primary.readLog())
+		{
+			if(!database.getCommitTracker().isCommitted(transaction.getRequestNumber()))
+			{
+				database.submit(transaction);
+				++ret;
+			}
+		}
+		
+		Main.log.warn(DebugLevel.NONE, "[{}] Reattached to replication, catching up on {} transactions from the log", database.getName(), ret);
+		return ret;
+	}
+	
+	/**
+	 * @param replica the number of the replica, from 1.
+	 * @return true if the replica is sent new commits.
+	 */
+	public boolean isAttached(int replica)
+	{
+		membership.readLock().lock();
+		try {
+			return attached[replica - 1];
+		} finally {
+			membership.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * @return true if enough attached replicas are still connected for a quorum to commit a transaction.
+	 */
+	boolean hasQuorum()
+	{
+		membership.readLock().lock();
+		try {
+			int connected = 0;
+			for(int i = 0; i < replicas.length; ++i)
+			{
+				if(attached[i] && replicas[i].isConnected())
+					++connected;
+			}
+			
+			return connected >= quorum;
+		} finally {
+			membership.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * @param replica the number of the replica, from 1.
+	 * @return the replica.
+	 */
+	public Replica getReplica(int replica)
+	{
+		return replicas[replica - 1];
+	}
+	
+	public int getReplicaCount()
+	{
+		return replicas.length;
+	}
+	
+	/**
+	 * @return the number of replicas that must commit a transaction before the primary does.
+	 */
+	public int getQuorum()
+	{
+		return quorum;
+	}
+	
+	/**
+	 * @return true if every request sent by the tellers has been committed to every replica still connected.
+	 */
+	public boolean isRequestsFinished()
+	{
+		for(Replica replica : replicas)
+		{
+			if(replica.isConnected() && replica.getCommitTracker().getCommittedCount() < primary.getRequestTotal())
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * @return how many more requests the primary has committed than the connected replica furthest behind.
+	 */
+	public int getLag()
+	{
+		int slowest = Integer.MAX_VALUE;
+		for(Replica replica : replicas)
+		{
+			if(replica.isConnected())
+				slowest = Math.min(slowest, replica.getCommitTracker().getCommittedCount());
+		}
+		
+		return Math.max(0, primary.getCommittedCount() - slowest);
+	}
+}
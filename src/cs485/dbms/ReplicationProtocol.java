@@ -0,0 +1,208 @@
+package cs485.dbms;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The framed binary protocol between the primary and a {@link ReplicaServer}.
+ * 
+ * Every frame is an int length (of the rest of the frame), a byte type and an int count, then count entries:
+ *  TRANSACTIONS   primary to replica, each an int request number, an int transfer count, and per transfer an int source,
+ *                 int target and double amount
+ *  ACKS           replica to primary, each the int request number of a committed transaction
+ *  REJECTS        replica to primary, each the int request number of a transaction the replica can't commit
+ *  SKIPS          primary to replica, each the int request number of a transaction the primary will never commit
+ * 
+ * A reader checks the length and counts it is sent before allocating for them, as a server's peer may be any client,
+ * and fails with a {@link ProtocolException} on a malformed frame, closing the connection as any other I/O error does.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+final class ReplicationProtocol
+{
+	static final byte TRANSACTIONS = 1;
+	static final byte ACKS = 2;
+	static final byte REJECTS = 3;
+	static final byte SKIPS = 4;
+	
+	//The length, type and count
+	static final int HEADER = 9;
+	//The size frames are batched up to, other than a single transaction too big for it
+	static final int MAX_FRAME = 1 << 16;
+	//The longest frame a reader accepts unless given another, room for a transaction of over 65000 transfers
+	static final int MAX_ACCEPTED_FRAME = 1 << 20;
+	
+	private ReplicationProtocol() {}
+	
+	/**
+	 * Starts a frame in the buffer, leaving room for the header.
+	 * @param out the buffer to write the frame into, cleared first.
+	 */
+	static void beginFrame(ByteBuffer out)
+	{
+		out.clear();
+		out.position(HEADER);
+	}
+	
+	/**
+	 * Fills in the header of the frame written since {@link #beginFrame(ByteBuffer)}, and flips the buffer to be written to the channel.
+	 * @param out the buffer holding the frame.
+	 * @param type the type of the frame.
+	 * @param count the number of entries in the frame.
+	 */
+	static void endFrame(ByteBuffer out, byte type, int count)
+	{
+		out.putInt(0, out.position() - 4);
+		out.put(4, type);
+		out.putInt(5, count);
+		out.flip();
+	}
+	
+	/**
+	 * @param transaction a transaction.
+	 * @return the number of bytes the transaction takes in a frame.
+	 */
+	static int sizeOf(Transaction transaction)
+	{
+		return 8 + transaction.getTransferCount() * 16;
+	}
+	
+	static void putTransaction(ByteBuffer out, Transaction transaction)
+	{
+		out.putInt(transaction.getRequestNumber());
+		out.putInt(transaction.getTransferCount());
+		
+		for(int i = 0; i < transaction.getTransferCount(); ++i)
+		{
+			out.putInt(transaction.getSource(i));
+			out.putInt(transaction.getTarget(i));
+			out.putDouble(transaction.getAmount(i));
+		}
+	}
+	
+	/**
+	 * @param in the entries of a frame, positioned at a transaction.
+	 * @return the transaction.
+	 * @throws IllegalArgumentException if the transfer count is negative or more than the rest of the entries hold.
+	 */
+	static Transaction getTransaction(ByteBuffer in)
+	{
+		int requestNumber = in.getInt();
+		int count = in.getInt();
+		//Checked before allocating, as the count is only what the peer claims
+		if(count < 0 || (long) count * 16 > in.remaining())
+			throw new IllegalArgumentException("Request #" + requestNumber + " claims " + count + " transfers in " + in.remaining() + " bytes");
+		int[] sources = new int[count], targets = new int[count];
+		double[] amounts = new double[count];
+		
+		for(int i = 0; i < count; ++i)
+		{
+			sources[i] = in.getInt();
+			targets[i] = in.getInt();
+			amounts[i] = in.getDouble();
+		}
+		
+		return new Transaction(requestNumber, sources, targets, amounts);
+	}
+	
+	/**
+	 * Handles a whole frame read from the channel.
+	 */
+	interface FrameHandler
+	{
+		/**
+		 * @param type the type of the frame.
+		 * @param count the number of entries in the frame.
+		 * @param entries the entries of the frame, only valid until this returns.
+		 */
+		void handle(byte type, int count, ByteBuffer entries);
+	}
+	
+	/**
+	 * Collects the bytes read from a non-blocking channel into whole frames.
+	 */
+	static class FrameReader
+	{
+		//The longest frame accepted, length included
+		private final int maxFrame;
+		//Left in write mode between reads
+		private ByteBuffer in = ByteBuffer.allocate(MAX_FRAME);
+		
+		/**
+		 * Creates a reader accepting frames of up to {@link ReplicationProtocol#MAX_ACCEPTED_FRAME} bytes.
+		 */
+		FrameReader()
+		{
+			this(MAX_ACCEPTED_FRAME);
+		}
+		
+		/**
+		 * @param maxFrame the longest frame accepted in bytes, length included, at least {@link ReplicationProtocol#MAX_FRAME}.
+		 */
+		FrameReader(int maxFrame)
+		{
+			this.maxFrame = maxFrame;
+		}
+		
+		/**
+		 * Reads whatever has arrived on the channel, and passes each frame now whole to the handler.
+		 * @param channel the channel to read from.
+		 * @param handler the handler of each whole frame.
+		 * @return false once the other end has closed the channel.
+		 * @throws ProtocolException if a frame is too long or too short, claims a negative count, or its entries are malformed.
+		 * @throws IOException if the channel could not be read.
+		 */
+		boolean read(SocketChannel channel, FrameHandler handler) throws IOException
+		{
+			int read = channel.read(in);
+			in.flip();
+			
+			while(in.remaining() >= 4 && in.remaining() >= 4 + checkLength(in.getInt(in.position())))
+			{
+				int end = in.position() + 4 + in.getInt();
+				byte type = in.get();
+				int count = in.getInt();
+				if(count < 0)
+					throw new ProtocolException("A frame of type " + type + " claims " + count + " entries");
+				
+				try {
+					handler.handle(type, count, in.slice(in.position(), end - in.position()));
+				} catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+					//Entries shorter than their count claims, or holding values they can't
+					ProtocolException malformed = new ProtocolException("A malformed frame of type " + type + ": " + e.getMessage());
+					malformed.initCause(e);
+					throw malformed;
+				}
+				in.position(end);
+			}
+			
+			//Grow to fit a frame bigger than the buffer, otherwise move the part of the next frame to the front
+			if(in.remaining() >= 4 && 4 + in.getInt(in.position()) > in.capacity())
+			{
+				ByteBuffer bigger = ByteBuffer.allocate(4 + in.getInt(in.position()));
+				bigger.put(in);
+				in = bigger;
+			}
+			else
+			{
+				in.compact();
+			}
+			
+			return read >= 0;
+		}
+		
+		//The length of the rest of a frame, if it is at least the type and count and no longer than accepted
+		private int checkLength(int length) throws ProtocolException
+		{
+			if(length < HEADER - 4 || length > maxFrame - 4)
+				throw new ProtocolException("A frame of " + length + " bytes, only " + (HEADER - 4) + " to " + (maxFrame - 4) + " are accepted");
+			return length;
+		}
+	}
+}
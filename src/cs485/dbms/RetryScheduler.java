@@ -0,0 +1,133 @@
+package cs485.dbms;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the transactions a processing thread failed to commit, until they are due to be retried.
+ * 
+ * Each failure doubles the backoff up to a limit, with jitter so transactions failing together don't retry together.
+ * Transactions are retried in the order they fall due, and gain priority as they age: once a transaction
+ * was submitted {@link #AGING_NANOS} ago it stops backing off, so it goes ahead of every transaction still backing off.
+ * 
+ * The retry count of each transaction is kept on its {@link Submission}, so only the transactions
+ * currently waiting are held here.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RetryScheduler
+{
+	//The backoff after the first failure, doubled by each failure after it up to the max
+	private static final long BASE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+	private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	//How long after being submitted a transaction retries with backoff, before it is retried as soon as possible
+	private static final long AGING_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+	
+	//The transactions of the database that haven't committed, for the retry counts
+	private final ActiveTransactions active;
+	//The transactions waiting to be retried, the first due at the head, oldest first when due together. Guarded by this
+	private final PriorityQueue<Submission> waiting = new PriorityQueue<Submission>(
+			Comparator.comparingLong(Submission::getNextAttempt).thenComparingLong(submission -> submission.submitTime));
+	//When the head of the queue is due, Long.MAX_VALUE if none are waiting. Read without the lock, so the processing threads
+	//only take it once a retry is due
+	private volatile long nextDue = Long.MAX_VALUE;
+	
+	RetryScheduler(ActiveTransactions active)
+	{
+		this.active = active;
+	}
+	
+	/**
+	 * Schedules a retry of the failed transaction.
+	 * @param submission the transaction that failed
+	 */
+	void retry(Submission submission)
+	{
+		schedule(submission, RetryScheduler::backoff);
+	}
+	
+	/**
+	 * Schedules a retry of a transaction that can't commit until enough replicas are connected for a quorum,
+	 * after the longest backoff however long it has been retrying, so it doesn't spin while held in doubt.
+	 * @param submission the transaction held
+	 */
+	void hold(Submission submission)
+	{
+		schedule(submission, (attempts, sinceSubmit) -> MAX_BACKOFF_NANOS);
+	}
+	
+	private void schedule(Submission submission, Submission.Backoff backoff)
+	{
+		submission.fail(backoff);
+		
+		synchronized(this)
+		{
+			waiting.add(submission);
+			nextDue = waiting.peek().getNextAttempt();
+		}
+	}
+	
+	//Equal jitter, half the exponential backoff plus a random amount up to the other half
+	private static long backoff(int attempts, long sinceSubmit)
+	{
+		if(sinceSubmit >= AGING_NANOS)
+			return 0;
+		
+		long backoff = Math.min(MAX_BACKOFF_NANOS, BASE_BACKOFF_NANOS << Math.min(attempts - 1, 16));
+		return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+	
+	/**
+	 * Takes the transaction that fell due to be retried first.
+	 * @return the transaction to retry, or null if none are due.
+	 */
+	Submission pollDue()
+	{
+		//Checked before every request taken, so only lock once one is due
+		long due = nextDue;
+		if(due == Long.MAX_VALUE || System.nanoTime() - due < 0)
+			return null;
+		
+		synchronized(this)
+		{
+			//Another thread may have taken it first
+			Submission ret = waiting.peek();
+			if(ret == null || System.nanoTime() - ret.getNextAttempt() < 0)
+				return null;
+			
+			waiting.poll();
+			Submission next = waiting.peek();
+			nextDue = next != null ? next.getNextAttempt() : Long.MAX_VALUE;
+			return ret;
+		}
+	}
+	
+	/**
+	 * @return the number of retries so far of each uncommitted transaction that has failed, by request number.
+	 */
+	public Map<Integer, Integer> getRetryCounts()
+	{
+		TreeMap<Integer, Integer> ret = new TreeMap<Integer, Integer>();
+		active.forEach(submission -> {
+			int attempts = submission.getAttempts();
+			if(attempts > 0)
+				ret.put(submission.getRequestNumber(), attempts);
+		});
+		return ret;
+	}
+	
+	/**
+	 * @return the number of transactions waiting to be retried.
+	 */
+	public synchronized int getWaitingCount()
+	{
+		return waiting.size();
+	}
+}
@@ -0,0 +1,57 @@
+package cs485.dbms;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A primary database holding the accounts hashed to one shard, either the {@link DatabaseMS} of this process
+ * or a {@link ShardServer} in another, reached through a {@link TellerClient.Connection}.
+ * 
+ * A {@link ShardRouter} submits a transaction touching a single shard straight to it, and commits a transaction
+ * touching several with a two phase commit: every shard touched prepares its part, holding its locks, then each
+ * is told to commit or abort it together.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public interface Shard
+{
+	/**
+	 * Sends a transaction touching only this shard's accounts to commit.
+	 * @param transaction the transaction to commit.
+	 * @return a future completed with the transaction once committed, or completed exceptionally if it can't be.
+	 */
+	public CompletableFuture<Transaction> submit(Transaction transaction);
+	
+	/**
+	 * Sends a transaction touching this and other shards, to apply and log this shard's part of without committing it.
+	 * @param transaction the transaction to prepare.
+	 * @return a future completed with the transaction once prepared, the shard's vote to commit it,
+	 * or completed exceptionally if it can't be prepared.
+	 */
+	public CompletableFuture<Transaction> prepare(Transaction transaction);
+	
+	/**
+	 * Commits or aborts this shard's part of a prepared transaction, as decided by its coordinator.
+	 * Deciding a transaction not prepared here, or already decided, does nothing.
+	 * @param requestNumber the request number of the transaction.
+	 * @param commit true to commit, false to abort.
+	 * @return a future completed once the decision is applied.
+	 */
+	public CompletableFuture<Void> decide(int requestNumber, boolean commit);
+	
+	/**
+	 * Tells the shard a request will never be committed by it, as it touches none of the shard's accounts or was aborted,
+	 * so the shard's commit watermark doesn't wait on it.
+	 * @param requestNumber the request number.
+	 */
+	public void skip(int requestNumber);
+	
+	/**
+	 * Reads the committed balance of one of this shard's accounts.
+	 * @param accountNumber the number of the account.
+	 * @return a future completed with the balance, NaN if the shard holds no such account.
+	 */
+	public CompletableFuture<Double> getBalance(int accountNumber);
+}
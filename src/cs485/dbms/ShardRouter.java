@@ -0,0 +1,340 @@
+package cs485.dbms;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Routes transactions to the shards holding their accounts, acting as the coordinator of those touching more than one.
+ * 
+ * A transaction touching a single shard is submitted straight to it. One touching several is committed with a two phase commit:
+ * the router logs that it is preparing the transaction, has every shard touched prepare its part, then logs its decision
+ * and sends it to each, logging the transaction's end once every shard has applied it.
+ * 
+ * The shards prepare one after another in order, each locking its accounts in order, so every transaction across shards
+ * takes its locks in the same global order and none can deadlock with another in a way no single shard could see.
+ * A shard refusing its part aborts the transaction for good. One not prepared within {@link #PREPARE_TIMEOUT_MILLIS},
+ * as when unreachable, aborts the attempt, which is retried after a backoff.
+ * 
+ * Every shard is told of each request it will never commit, as one touching none of its accounts or aborted for good,
+ * so its commit watermark isn't left waiting on the request.
+ * 
+ * Decisions are logged to "DBLog_Coordinator.txt" before being sent, so a router restarted after a crash finishes
+ * whatever the last one left undone: it commits each transaction logged as committed but not ended, and aborts each
+ * logged as preparing but not decided, releasing the locks held for them by the shards still running.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ShardRouter implements Closeable
+{
+	//How long every shard touched has to prepare its part, before the attempt is aborted
+	private static final long PREPARE_TIMEOUT_MILLIS = 1000;
+	//The longest wait before retrying an aborted attempt
+	private static final long MAX_BACKOFF_MILLIS = 50;
+	//How long to keep trying to reach a shard that isn't listening yet
+	private static final long CONNECT_TIMEOUT_MILLIS = 10000;
+	
+	private final LoadConfig config;
+	//Shard 0 is the primary of this process, the rest are reached through the client
+	private final Shard[] shards;
+	private final TellerClient client;
+	
+	//The coordinator log, recording each transaction across shards as it is prepared, decided and ended
+	private final File logFile = new File("DBLog_Coordinator.txt");
+	private PrintWriter logWriter;
+	
+	//The number of transactions routed to each shard, counted once however many times they are retried
+	private final AtomicIntegerArray routed;
+	private final LongAdder crossShard = new LongAdder();
+	private final LongAdder aborts = new LongAdder();
+	
+	/**
+	 * Connects to every other shard, and finishes any transaction the coordinator log was left in the middle of.
+	 * @param local the primary of this process, shard 0.
+	 * @param config the settings listing the other shards.
+	 * @throws IOException if a shard could not be reached, or the coordinator log could not be recovered.
+	 */
+	public ShardRouter(DatabaseMS local, LoadConfig config) throws IOException
+	{
+		this.config = config;
+		shards = new Shard[config.getShardCount()];
+		routed = new AtomicIntegerArray(shards.length);
+		client = new TellerClient();
+		
+		shards[0] = local;
+		for(int i = 1; i < shards.length; ++i)
+			shards[i] = connect(config.getShards()[i - 1]);
+		
+		recover();
+		//Everything logged before is finished, so start the log over
+		logWriter = new PrintWriter(logFile);
+	}
+	
+	//Connects to a shard, waiting for it to start listening
+	private TellerClient.Connection connect(InetSocketAddress address) throws IOException
+	{
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+		while(true)
+		{
+			try {
+				TellerClient.Connection ret = client.connect(address);
+				Main.log.print(DebugLevel.NONE, "[Shard Router] Connected to the shard at {}", address);
+				return ret;
+			} catch (ConnectException e) {
+				if(System.currentTimeMillis() > deadline)
+					throw e;
+				try { Thread.sleep(100); } catch(InterruptedException e2) {}
+			}
+		}
+	}
+	
+	/**
+	 * Sends a transaction to the shards holding its accounts.
+	 * @param transaction the transaction to commit.
+	 * @return a future completed with the transaction once every shard touched has committed it,
+	 * or completed exceptionally if a shard can't commit its part, in which case no shard does.
+	 */
+	public CompletableFuture<Transaction> submit(Transaction transaction)
+	{
+		int[] touched = shardsOf(transaction);
+		for(int shard : touched)
+			routed.incrementAndGet(shard);
+		
+		for(int shard = 0; shard < shards.length; ++shard)
+		{
+			if(Arrays.binarySearch(touched, shard) < 0)
+				shards[shard].skip(transaction.getRequestNumber());
+		}
+		
+		if(touched.length == 1)
+			return shards[touched[0]].submit(transaction);
+		
+		crossShard.increment();
+		CompletableFuture<Transaction> ret = new CompletableFuture<Transaction>();
+		commitAcross(transaction, touched, ret);
+		return ret;
+	}
+	
+	/**
+	 * Reads the balance of an account from the primary of the shard holding it.
+	 * @param accountNumber the number of the account.
+	 * @return a future completed with the balance, NaN if there is no such account.
+	 */
+	public CompletableFuture<Double> getBalance(int accountNumber)
+	{
+		return shards[config.shardOf(accountNumber)].getBalance(accountNumber);
+	}
+	
+	//The shards holding the accounts of the transaction, in order
+	private int[] shardsOf(Transaction transaction)
+	{
+		return Arrays.stream(transaction.getAccountNumbers()).map(config::shardOf).distinct().sorted().toArray();
+	}
+	
+	//One attempt at the two phase commit of a transaction across shards, completing ret once it commits or is refused
+	private void commitAcross(Transaction transaction, int[] touched, CompletableFuture<Transaction> ret)
+	{
+		int request = transaction.getRequestNumber();
+		String shardList = toList(touched);
+		writeToLog("<PREPARE " + request + ">" + shardList);
+		
+		//Set once the attempt is decided, after which no shard is sent its prepare, so none prepares after being told to abort
+		AtomicBoolean decided = new AtomicBoolean();
+		
+		//Each shard prepares once the one before it has, stopping at the first that doesn't
+		CompletableFuture<Transaction> votes = shards[touched[0]].prepare(transaction);
+		for(int i = 1; i < touched.length; ++i)
+		{
+			Shard next = shards[touched[i]];
+			votes = votes.thenCompose(prepared -> {
+				synchronized(decided)
+				{
+					if(decided.get())
+						return CompletableFuture.failedFuture(new IllegalStateException("Request #" + request + " was already decided"));
+					return next.prepare(transaction);
+				}
+			});
+		}
+		
+		votes.orTimeout(PREPARE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).whenComplete((vote, error) ->
+		{
+			synchronized(decided)
+			{
+				decided.set(true);
+			}
+			
+			if(error == null)
+			{
+				//The commit point, once logged the transaction commits even if this process doesn't live to send it
+				writeToLog("<COMMIT " + request + ">" + shardList);
+				decide(request, touched, true).whenComplete((applied, failure) -> {
+					if(failure != null)
+					{
+						//Left unended in the log, for the next router to finish
+						Main.log.warn(DebugLevel.NONE, "[Shard Router] Committed request #{} but couldn't reach every shard: {}", request, failure);
+						ret.completeExceptionally(failure);
+						return;
+					}
+					
+					writeToLog("<END " + request + ">");
+					ret.complete(transaction);
+				});
+				return;
+			}
+			
+			aborts.increment();
+			Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+			//A shard refusing can never prepare it, while a slow shard, or one still undoing the last attempt, may next time
+			boolean retry = cause instanceof TimeoutException || cause instanceof IllegalStateException;
+			Main.log.print(DebugLevel.REQUESTS, "[Shard Router] Aborting request #{}{}: {}", request, retry ? " to retry" : "", cause);
+			
+			decide(request, touched, false).whenComplete((applied, failure) -> {
+				if(failure != null)
+				{
+					ret.completeExceptionally(failure);
+					return;
+				}
+				
+				writeToLog("<END " + request + ">");
+				if(!retry)
+				{
+					for(int shard : touched)
+						shards[shard].skip(request);
+					ret.completeExceptionally(cause);
+					return;
+				}
+				
+				//Jittered, so transactions aborted together don't deadlock again together
+				long backoff = ThreadLocalRandom.current().nextLong(MAX_BACKOFF_MILLIS + 1);
+				CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> commitAcross(transaction, touched, ret));
+			});
+		});
+	}
+	
+	//Sends the decision to every shard touched
+	private CompletableFuture<Void> decide(int request, int[] touched, boolean commit)
+	{
+		CompletableFuture<?>[] decided = new CompletableFuture<?>[touched.length];
+		for(int i = 0; i < touched.length; ++i)
+			decided[i] = shards[touched[i]].decide(request, commit);
+		return CompletableFuture.allOf(decided);
+	}
+	
+	private static String toList(int[] shards)
+	{
+		StringBuilder ret = new StringBuilder();
+		for(int shard : shards)
+			ret.append(ret.length() > 0 ? "," : "").append(shard);
+		return ret.toString();
+	}
+	
+	private synchronized void writeToLog(String line)
+	{
+		logWriter.append(line + "\n");
+		logWriter.flush();
+	}
+	
+	//Commits every transaction the coordinator log decided to commit but didn't end, and aborts every one it didn't decide
+	private void recover() throws IOException
+	{
+		if(!logFile.exists())
+			return;
+		
+		//The last PREPARE or COMMIT line of each transaction not ended, in the order they were logged
+		LinkedHashMap<Integer, String> unfinished = new LinkedHashMap<Integer, String>();
+		try(BufferedReader reader = new BufferedReader(new FileReader(logFile)))
+		{
+			for(String line = reader.readLine(); line != null; line = reader.readLine())
+			{
+				//A line cut off mid write has no closing bracket yet
+				if(line.indexOf('>') < 0)
+					continue;
+				
+				int request = Integer.parseInt(line.substring(line.indexOf(' ') + 1, line.indexOf('>')));
+				if(line.startsWith("<END "))
+					unfinished.remove(request);
+				else
+					unfinished.put(request, line);
+			}
+		}
+		
+		for(Map.Entry<Integer, String> entry : unfinished.entrySet())
+		{
+			String line = entry.getValue();
+			boolean commit = line.startsWith("<COMMIT ");
+			int[] touched = Arrays.stream(line.substring(line.indexOf('>') + 1).split(",")).mapToInt(Integer::parseInt).toArray();
+			
+			try {
+				decide(entry.getKey(), touched, commit).join();
+			} catch (CompletionException e) {
+				throw new IOException("Unable to " + (commit ? "commit" : "abort") + " request #" + entry.getKey() + " left in the coordinator log", e.getCause());
+			}
+			if(!commit)
+			{
+				for(int shard : touched)
+					shards[shard].skip(entry.getKey());
+			}
+			Main.log.warn(DebugLevel.NONE, "[Shard Router] Recovered request #{} from the coordinator log, {}", entry.getKey(), commit ? "committed" : "aborted");
+		}
+	}
+	
+	/**
+	 * @param shard the number of a shard.
+	 * @return the number of transactions sent to the shard, including those across shards.
+	 */
+	public int getRoutedCount(int shard)
+	{
+		return routed.get(shard);
+	}
+	
+	/**
+	 * @return the number of transactions sent that touched more than one shard.
+	 */
+	public long getCrossShardCount()
+	{
+		return crossShard.sum();
+	}
+	
+	/**
+	 * @return the number of attempts at a transaction across shards that were aborted, including those retried.
+	 */
+	public long getAbortCount()
+	{
+		return aborts.sum();
+	}
+	
+	/**
+	 * Disconnects from the other shards, failing anything not answered yet, and closes the coordinator log.
+	 */
+	public void close()
+	{
+		client.close();
+		synchronized(this)
+		{
+			logWriter.close();
+		}
+	}
+}
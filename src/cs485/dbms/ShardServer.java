@@ -0,0 +1,71 @@
+package cs485.dbms;
+
+import java.util.ArrayList;
+
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Runs the primary database of a shard in its own process, holding only the accounts hashed to the shard,
+ * so the accounts and the work of committing them are spread over several processes or machines.
+ * A {@link ShardRouter} in the tellers' process connects to it as a {@link TellerServer}, on its port of the shard list.
+ * 
+ * Arguments are given as "--name=value":
+ *  --log=NONE      the {@link DebugLevel} of the console output
+ * Every other argument is a {@link LoadConfig} setting, which must include the same --shards as the tellers' process
+ * and the --shard of this process, from 1. Its backups are set up as for any primary, by --replicas and --remoteReplicas.
+ * 
+ * Exits once every router has disconnected and no transaction is left active, so a shard holding a transaction
+ * its router prepared but never decided waits for a restarted router to decide it.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ShardServer
+{
+	public static void main(String[] args)
+	{
+		DebugLevel level = DebugLevel.NONE;
+		ArrayList<String> loadArgs = new ArrayList<String>();
+		
+		for(String arg : args)
+		{
+			if(arg.startsWith("--log="))
+				level = DebugLevel.valueOf(arg.substring(6));
+			else
+				loadArgs.add(arg);
+		}
+		
+		LoadConfig config = LoadConfig.parse(loadArgs.toArray(new String[0]));
+		if(config.getShard() < 1)
+			throw new IllegalArgumentException("A shard server holds a shard from 1, got " + config.getShard());
+		
+		Main.log.setDebugLevel(level);
+		DatabaseMS.startDatabases(config);
+		DatabaseMS database = DatabaseMS.getInstance();
+		TellerServer server = database.getTellerServer();
+		
+		//Wait for a router to connect, then for every router to be gone and every transaction it sent to be done
+		while(server.getConnectionCount() == 0)
+			try { Thread.sleep(100); } catch(InterruptedException e) {}
+		while(server.getConnectionCount() > 0 || database.getActiveTransactionCount() > 0)
+			try { Thread.sleep(100); } catch(InterruptedException e) {}
+		
+		//Nothing more will be sent, so let the processing threads finish once the backups have caught up
+		database.setRequestTotal(database.getCommittedCount());
+		while(!DatabaseMS.getReplicationGroup().isRequestsFinished())
+			try { Thread.sleep(100); } catch(InterruptedException e) {}
+		
+		int repaired = DatabaseMS.repairBackup();
+		Main.log.print(DebugLevel.PERCENT, "[{}] {} requests committed, backups {} the primary", database.getName(), database.getCommittedCount(),
+				repaired == 0 ? "match" : "repaired " + repaired + " accounts to match");
+		
+		DatabaseMS.closeDatabases();
+		Main.log.warn(DebugLevel.NONE, "[{}] has terminated successfully.", database.getName());
+		Main.log.close();
+		System.exit(0);
+	}
+}
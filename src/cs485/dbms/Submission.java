@@ -0,0 +1,125 @@
+package cs485.dbms;
+
+import java.util.concurrent.CompletableFuture;
+
+import cs485.dbms.lock.LockOwner;
+
+/**
+ * A {@link Transaction} submitted to a database, waiting in its request queue or retry scheduler until it is committed.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+class Submission
+{
+	final Transaction transaction;
+	//Completed with the transaction once committed
+	final CompletableFuture<Transaction> future = new CompletableFuture<Transaction>();
+	//The System.nanoTime() the transaction was submitted, for its queue wait
+	final long submitTime = System.nanoTime();
+	//Only for a branch of a transaction across shards, null otherwise. Completed once the branch is prepared,
+	//and with the coordinator's decision, true to commit
+	final CompletableFuture<Transaction> prepared;
+	final CompletableFuture<Boolean> decision;
+	
+	//Retry state, guarded by this. The number of failed attempts and when to try again
+	private int attempts = 0;
+	private long nextAttempt;
+	//A prepared branch waiting on its coordinator, guarded by this. The locks it holds meanwhile and when it began waiting, null if not waiting
+	private LockOwner parked;
+	private long parkedAt;
+	
+	Submission(Transaction transaction)
+	{
+		this(transaction, false);
+	}
+	
+	/**
+	 * @param transaction the transaction submitted.
+	 * @param branch true if only this shard's part of the transaction is committed, once its coordinator decides to.
+	 */
+	Submission(Transaction transaction, boolean branch)
+	{
+		this.transaction = transaction;
+		prepared = branch ? new CompletableFuture<Transaction>() : null;
+		decision = branch ? new CompletableFuture<Boolean>() : null;
+	}
+	
+	int getRequestNumber()
+	{
+		return transaction.getRequestNumber();
+	}
+	
+	boolean isBranch()
+	{
+		return decision != null;
+	}
+	
+	/**
+	 * @return true once the coordinator of a branch has decided to abort it.
+	 */
+	boolean isAborted()
+	{
+		return decision != null && !decision.getNow(true);
+	}
+	
+	/**
+	 * Counts a failed attempt, and schedules the next one after the backoff.
+	 * @param backoff decides the nanoseconds to wait, given the failed attempts so far and nanoseconds since the transaction was submitted.
+	 */
+	synchronized void fail(Backoff backoff)
+	{
+		long now = System.nanoTime();
+		nextAttempt = now + backoff.nanos(++attempts, now - submitTime);
+	}
+	
+	/**
+	 * @return the number of times this transaction failed and was retried.
+	 */
+	synchronized int getAttempts()
+	{
+		return attempts;
+	}
+	
+	synchronized long getNextAttempt()
+	{
+		return nextAttempt;
+	}
+	
+	/**
+	 * Sets aside a prepared branch until its coordinator decides, with the locks it holds until then.
+	 * @param locks the locks of the branch, held by no thread while it waits.
+	 */
+	synchronized void park(LockOwner locks)
+	{
+		parked = locks;
+		parkedAt = System.nanoTime();
+	}
+	
+	/**
+	 * Takes back the locks of a branch set aside by {@link #park(LockOwner)}, so it is only finished once.
+	 * @return the locks it was parked with, or null if it isn't parked.
+	 */
+	synchronized LockOwner unpark()
+	{
+		LockOwner ret = parked;
+		parked = null;
+		return ret;
+	}
+	
+	/**
+	 * @return the System.nanoTime() the branch was last parked, for its decision wait.
+	 */
+	synchronized long getParkedAt()
+	{
+		return parkedAt;
+	}
+	
+	//How long a failed transaction waits before it is tried again
+	interface Backoff
+	{
+		long nanos(int attempts, long sinceSubmit);
+	}
+}
@@ -0,0 +1,475 @@
+package cs485.dbms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Connects tellers to a {@link TellerServer} over the {@link TellerProtocol}.
+ * 
+ * A client holds any number of connections, all read and written by the client's single I/O thread,
+ * so thousands of tellers can each have their own connection without a thread apiece.
+ * Requests are queued by the calling thread and batched into frames by the I/O thread, and answered through futures.
+ * 
+ * A connection pipelines its transactions: any number may be in flight at once, up to its window, completing in whatever order
+ * the database commits them and matched to their futures by request number. Submitting with the window full blocks until one completes.
+ * 
+ * A connection to the primary of a shard is also a {@link Shard}, for a {@link ShardRouter} to prepare and decide transactions across shards.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class TellerClient implements Closeable
+{
+	private final Selector selector;
+	//Connections with requests waiting to be written
+	private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<Connection>();
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Starts the I/O thread of a client with no connections yet.
+	 * @throws IOException if the selector could not be opened.
+	 */
+	public TellerClient() throws IOException
+	{
+		selector = Selector.open();
+		
+		Thread thread = new Thread(this::run, "Teller Client");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Opens a connection to a teller server, with no limit on the transactions in flight.
+	 * @param address the address of the server.
+	 * @return the connection.
+	 * @throws IOException if the server could not be connected to.
+	 */
+	public Connection connect(InetSocketAddress address) throws IOException
+	{
+		return connect(address, 0);
+	}
+	
+	/**
+	 * Opens a connection to a teller server.
+	 * @param address the address of the server.
+	 * @param window the most transactions in flight at once before {@link Connection#submit(Transaction)} blocks, or 0 for no limit.
+	 * @return the connection.
+	 * @throws IOException if the server could not be connected to.
+	 */
+	public Connection connect(InetSocketAddress address, int window) throws IOException
+	{
+		if(window < 0)
+			throw new IllegalArgumentException("The window can't be negative, got " + window);
+		
+		SocketChannel channel = SocketChannel.open(address);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		channel.configureBlocking(false);
+		
+		Connection ret = new Connection(channel, window);
+		connections.add(ret);
+		//Registered by the I/O thread itself, the first time it flushes the connection
+		ret.schedule();
+		return ret;
+	}
+	
+	/**
+	 * @return the number of connections open.
+	 */
+	public int getConnectionCount()
+	{
+		return connections.size();
+	}
+	
+	/**
+	 * Closes every connection, failing any request not answered yet, and stops the I/O thread.
+	 */
+	public void close()
+	{
+		for(Connection connection : connections)
+			connection.close();
+		
+		try {
+			selector.close();
+		} catch (IOException e) {}
+	}
+	
+	//The I/O thread
+	private void run()
+	{
+		try {
+			while(true)
+			{
+				selector.select();
+				for(SelectionKey key : selector.selectedKeys())
+				{
+					Connection connection = (Connection) key.attachment();
+					if(key.isValid() && key.isReadable())
+						connection.read();
+					if(key.isValid() && key.isWritable())
+						connection.flush();
+				}
+				selector.selectedKeys().clear();
+				
+				for(Connection connection = ready.poll(); connection != null; connection = ready.poll())
+					connection.flush();
+			}
+		} catch (IOException | ClosedSelectorException e) {}
+	}
+	
+	/**
+	 * A connection to a teller server. Requests may be sent from any thread.
+	 */
+	public class Connection implements Closeable, Shard
+	{
+		private final SocketChannel channel;
+		private volatile boolean closed = false;
+		
+		//Every request not answered yet, and those of them not sent yet
+		private final ConcurrentHashMap<Integer, Submission> transactions = new ConcurrentHashMap<Integer, Submission>();
+		private final ConcurrentHashMap<Integer, CompletableFuture<Double>> queries = new ConcurrentHashMap<Integer, CompletableFuture<Double>>();
+		private final ConcurrentHashMap<Integer, Submission> prepares = new ConcurrentHashMap<Integer, Submission>();
+		private final ConcurrentHashMap<Integer, CompletableFuture<Void>> decisions = new ConcurrentHashMap<Integer, CompletableFuture<Void>>();
+		private final ConcurrentLinkedQueue<Transaction> unsentTransactions = new ConcurrentLinkedQueue<Transaction>();
+		private final ConcurrentLinkedQueue<Transaction> unsentPrepares = new ConcurrentLinkedQueue<Transaction>();
+		private final ConcurrentLinkedQueue<Integer> unsentCommits = new ConcurrentLinkedQueue<Integer>();
+		private final ConcurrentLinkedQueue<Integer> unsentAborts = new ConcurrentLinkedQueue<Integer>();
+		private final ConcurrentLinkedQueue<Integer> unsentSkips = new ConcurrentLinkedQueue<Integer>();
+		//The query id in the high half and the account number in the low half
+		private final ConcurrentLinkedQueue<Long> unsentQueries = new ConcurrentLinkedQueue<Long>();
+		private final AtomicInteger nextQuery = new AtomicInteger();
+		//A permit per transaction that may still be sent, or null for no limit
+		private final Semaphore window;
+		
+		//Only touched by the I/O thread
+		private SelectionKey key;
+		private final ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader();
+		private ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME).flip();
+		//True while waiting in the client's ready queue
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		
+		private Connection(SocketChannel channel, int window)
+		{
+			this.channel = channel;
+			this.window = window > 0 ? new Semaphore(window) : null;
+		}
+		
+		/**
+		 * Sends a transaction to the database to commit, first waiting for room in the window if it is full.
+		 * @param transaction the transaction to commit.
+		 * @return a future completed with the transaction once committed, or completed exceptionally if the database can't commit it
+		 * or the connection closes first. For a request number already waiting on this connection, the future of the first.
+		 */
+		public CompletableFuture<Transaction> submit(Transaction transaction)
+		{
+			if(window != null)
+				window.acquireUninterruptibly();
+			
+			Submission submission = new Submission(transaction);
+			Submission first = transactions.putIfAbsent(transaction.getRequestNumber(), submission);
+			if(first != null)
+			{
+				if(window != null)
+					window.release();
+				return first.future;
+			}
+			
+			//Completed by either the I/O thread or close, which frees its place in the window
+			if(window != null)
+				submission.future.whenComplete((committed, error) -> window.release());
+			
+			unsentTransactions.add(transaction);
+			if(closed && transactions.remove(transaction.getRequestNumber(), submission))
+				submission.future.completeExceptionally(new IOException("The connection is closed."));
+			
+			schedule();
+			return submission.future;
+		}
+		
+		public CompletableFuture<Transaction> prepare(Transaction transaction)
+		{
+			Submission submission = new Submission(transaction);
+			Submission first = prepares.putIfAbsent(transaction.getRequestNumber(), submission);
+			if(first != null)
+				return first.future;
+			
+			unsentPrepares.add(transaction);
+			if(closed && prepares.remove(transaction.getRequestNumber(), submission))
+				submission.future.completeExceptionally(new IOException("The connection is closed."));
+			
+			schedule();
+			return submission.future;
+		}
+		
+		public CompletableFuture<Void> decide(int requestNumber, boolean commit)
+		{
+			CompletableFuture<Void> ret = new CompletableFuture<Void>();
+			CompletableFuture<Void> first = decisions.putIfAbsent(requestNumber, ret);
+			if(first != null)
+				return first;
+			
+			(commit ? unsentCommits : unsentAborts).add(requestNumber);
+			if(closed && decisions.remove(requestNumber, ret))
+				ret.completeExceptionally(new IOException("The connection is closed."));
+			
+			schedule();
+			return ret;
+		}
+		
+		public void skip(int requestNumber)
+		{
+			//Nothing is waiting on it, so simply dropped once closed
+			if(closed)
+				return;
+			
+			unsentSkips.add(requestNumber);
+			schedule();
+		}
+		
+		/**
+		 * @return the number of transactions sent on this connection that haven't completed yet.
+		 */
+		public int getInFlight()
+		{
+			return transactions.size();
+		}
+		
+		/**
+		 * Reads the committed balance of an account.
+		 * @param accountNumber the number of the account.
+		 * @return a future completed with the balance of the account, or NaN if there is no such account,
+		 * or completed exceptionally if the connection closes first.
+		 */
+		public CompletableFuture<Double> getBalance(int accountNumber)
+		{
+			int id = nextQuery.getAndIncrement();
+			CompletableFuture<Double> ret = new CompletableFuture<Double>();
+			queries.put(id, ret);
+			
+			unsentQueries.add(((long) id << 32) | (accountNumber & 0xFFFFFFFFL));
+			if(closed && queries.remove(id, ret))
+				ret.completeExceptionally(new IOException("The connection is closed."));
+			
+			schedule();
+			return ret;
+		}
+		
+		/**
+		 * @return true until the connection is closed, by either end.
+		 */
+		public boolean isOpen()
+		{
+			return !closed;
+		}
+		
+		/**
+		 * Closes the connection, failing any request not answered yet.
+		 */
+		public void close()
+		{
+			closed = true;
+			connections.remove(this);
+			try {
+				channel.close();
+			} catch (IOException e) {}
+			
+			IOException cause = new IOException("The connection is closed.");
+			for(Integer request : transactions.keySet())
+			{
+				Submission submission = transactions.remove(request);
+				if(submission != null)
+					submission.future.completeExceptionally(cause);
+			}
+			for(Integer id : queries.keySet())
+			{
+				CompletableFuture<Double> query = queries.remove(id);
+				if(query != null)
+					query.completeExceptionally(cause);
+			}
+			for(Integer request : prepares.keySet())
+			{
+				Submission submission = prepares.remove(request);
+				if(submission != null)
+					submission.future.completeExceptionally(cause);
+			}
+			for(Integer request : decisions.keySet())
+			{
+				CompletableFuture<Void> decision = decisions.remove(request);
+				if(decision != null)
+					decision.completeExceptionally(cause);
+			}
+		}
+		
+		//Has the I/O thread flush this connection, unless already waiting to be
+		private void schedule()
+		{
+			if(!scheduled.getAndSet(true))
+			{
+				ready.add(this);
+				selector.wakeup();
+			}
+		}
+		
+		private void read()
+		{
+			try {
+				if(!reader.read(channel, this::handle))
+				{
+					Main.log.warn(DebugLevel.NONE, "[Teller Client] The server closed a connection");
+					close();
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+		
+		private void handle(byte type, int count, ByteBuffer entries)
+		{
+			for(int i = 0; i < count; ++i)
+			{
+				int id = entries.getInt();
+				if(type == TellerProtocol.BALANCE)
+				{
+					double balance = entries.getDouble();
+					CompletableFuture<Double> query = queries.remove(id);
+					if(query != null)
+						query.complete(balance);
+					continue;
+				}
+				
+				if(type == TellerProtocol.DECIDED)
+				{
+					CompletableFuture<Void> decision = decisions.remove(id);
+					if(decision != null)
+						decision.complete(null);
+					continue;
+				}
+				
+				boolean prepare = type == TellerProtocol.PREPARED || type == TellerProtocol.REFUSED;
+				Submission submission = (prepare ? prepares : transactions).remove(id);
+				if(submission == null)
+					continue;
+				
+				if(type == TellerProtocol.COMMITTED || type == TellerProtocol.PREPARED)
+					submission.future.complete(submission.transaction);
+				else
+					submission.future.completeExceptionally(new IllegalArgumentException("The database " + (prepare ? "refused to prepare " : "rejected ") + submission.transaction));
+			}
+		}
+		
+		private void flush()
+		{
+			scheduled.set(false);
+			if(closed)
+				return;
+			
+			try {
+				if(key == null)
+					key = channel.register(selector, SelectionKey.OP_READ, this);
+				
+				//Until everything is written, or the socket can't take more for now
+				for(fill(); out.hasRemaining(); fill())
+				{
+					channel.write(out);
+					if(out.hasRemaining())
+						break;
+				}
+				
+				key.interestOps(out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+			} catch (IOException e) {
+				close();
+			}
+		}
+		
+		//Once the last frame is written, batches the waiting decisions, prepares or transactions into the next, or else the waiting skips or queries.
+		//Commits go first, as a prepared transaction holds its locks until decided, but aborts wait for the prepares
+		//so an abort never reaches the shard before the prepare sent ahead of it
+		private void fill()
+		{
+			if(out.hasRemaining())
+				return;
+			
+			if(!unsentCommits.isEmpty())
+				fillRequests(unsentCommits, TellerProtocol.COMMIT);
+			else if(!unsentPrepares.isEmpty())
+				fillTransactions(unsentPrepares, TellerProtocol.PREPARE);
+			else if(!unsentAborts.isEmpty())
+				fillRequests(unsentAborts, TellerProtocol.ABORT);
+			else if(!unsentTransactions.isEmpty())
+				fillTransactions(unsentTransactions, TellerProtocol.SUBMIT);
+			else if(!unsentSkips.isEmpty())
+				fillRequests(unsentSkips, TellerProtocol.SKIP);
+			else if(!unsentQueries.isEmpty())
+			{
+				ReplicationProtocol.beginFrame(out);
+				int count = 0;
+				
+				for(Long next = unsentQueries.poll(); next != null; next = out.remaining() >= 8 ? unsentQueries.poll() : null)
+				{
+					out.putLong(next);
+					++count;
+				}
+				
+				ReplicationProtocol.endFrame(out, TellerProtocol.QUERY, count);
+			}
+		}
+		
+		private void fillTransactions(ConcurrentLinkedQueue<Transaction> unsent, byte type)
+		{
+			ReplicationProtocol.beginFrame(out);
+			int count = 0;
+			
+			for(Transaction next = unsent.peek(); next != null; next = unsent.peek())
+			{
+				int size = ReplicationProtocol.sizeOf(next);
+				if(size > out.remaining())
+				{
+					if(count > 0)
+						break;
+					
+					//Too big for any frame of the usual size, so it gets its own
+					out = ByteBuffer.allocate(ReplicationProtocol.HEADER + size);
+					ReplicationProtocol.beginFrame(out);
+				}
+				
+				unsent.poll();
+				ReplicationProtocol.putTransaction(out, next);
+				++count;
+			}
+			
+			ReplicationProtocol.endFrame(out, type, count);
+		}
+		
+		private void fillRequests(ConcurrentLinkedQueue<Integer> unsent, byte type)
+		{
+			ReplicationProtocol.beginFrame(out);
+			int count = 0;
+			
+			for(Integer next = unsent.poll(); next != null; next = out.remaining() >= 4 ? unsent.poll() : null)
+			{
+				out.putInt(next);
+				++count;
+			}
+			
+			ReplicationProtocol.endFrame(out, type, count);
+		}
+	}
+}
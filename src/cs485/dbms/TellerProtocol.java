@@ -0,0 +1,45 @@
+package cs485.dbms;
+
+/**
+ * The binary protocol between a {@link TellerClient} and a {@link TellerServer}, framed as in the {@link ReplicationProtocol}:
+ * an int length, a byte type and an int count, then count entries of the type.
+ *  SUBMIT      client to server, each a transaction encoded as in the replication protocol
+ *  COMMITTED   server to client, each the int request number of a committed transaction
+ *  REJECTED    server to client, each the int request number of a transaction the database can't commit
+ *  QUERY       client to server, each an int query id, picked by the client, and the int account number to read the balance of
+ *  BALANCE     server to client, each the int query id and the double balance, NaN if there is no such account
+ * And between a {@link ShardRouter} and the primary of a shard, for its part of a transaction across shards:
+ *  PREPARE     client to server, each a transaction encoded as in the replication protocol
+ *  PREPARED    server to client, each the int request number of a transaction whose part is prepared
+ *  REFUSED     server to client, each the int request number of a transaction whose part can't be prepared
+ *  COMMIT      client to server, each the int request number of a prepared transaction to commit
+ *  ABORT       client to server, each the int request number of a transaction to abort
+ *  DECIDED     server to client, each the int request number of a transaction whose decision is applied
+ *  SKIP        client to server, each the int request number of a transaction the shard will never commit
+ * 
+ * Request numbers are picked by the client, as by the in-process tellers, and shared by every shard a transaction touches,
+ * so clients must not reuse each other's. The server rejects a SUBMIT or refuses a PREPARE whose number is negative,
+ * already committed or skipped, or still waiting on its response to any client.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+final class TellerProtocol
+{
+	static final byte SUBMIT = 1;
+	static final byte COMMITTED = 2;
+	static final byte REJECTED = 3;
+	static final byte QUERY = 4;
+	static final byte BALANCE = 5;
+	static final byte PREPARE = 6;
+	static final byte PREPARED = 7;
+	static final byte REFUSED = 8;
+	static final byte COMMIT = 9;
+	static final byte ABORT = 10;
+	static final byte DECIDED = 11;
+	static final byte SKIP = 12;
+	
+	private TellerProtocol() {}
+}
@@ -0,0 +1,433 @@
+package cs485.dbms;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * A non-blocking network front end to a database, for tellers connecting with a {@link TellerClient} over the {@link TellerProtocol}.
+ * 
+ * An acceptor thread hands each new connection to one of a small pool of selector threads, round robin, which reads its
+ * frames and writes its responses. Transactions are submitted to the database and answered as their futures complete,
+ * so a selector thread never waits on the database, and a few threads serve thousands of connections.
+ * While the database's ring is full, a connection holds what it has read in a backlog and stops reading until it is handed over,
+ * so a teller sending faster than the database commits is held back by its socket.
+ * Balance reads may wait on an account's lock, so are run by a separate pool of the same size.
+ * The primary of a shard also prepares and decides the parts of transactions across shards sent by a {@link ShardRouter}.
+ * 
+ * Request numbers are picked by the clients, so a transaction whose number another client's is waiting under,
+ * or that is already committed or skipped, is turned away rather than answered for the first.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class TellerServer
+{
+	private final DatabaseMS database;
+	private final ServerSocketChannel server;
+	private final Selector[] selectors;
+	private final Worker[] workers;
+	private final ExecutorService reads;
+	//The longest frame accepted from a teller
+	private final int maxFrame;
+	
+	private final AtomicInteger connections = new AtomicInteger();
+	//The request numbers of every transaction submitted or prepared and not answered yet, across every connection
+	private final Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * @param database the database to serve.
+	 * @param port the port to listen on, or 0 for any free port.
+	 * @param threads the number of selector threads.
+	 * @param maxFrame the longest frame in bytes accepted from a teller, closing its connection if it sends a longer one.
+	 * @throws IOException if the port could not be listened on.
+	 */
+	public TellerServer(DatabaseMS database, int port, int threads, int maxFrame) throws IOException
+	{
+		this.database = database;
+		this.maxFrame = maxFrame;
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		
+		selectors = new Selector[threads];
+		workers = new Worker[threads];
+		for(int i = 0; i < threads; ++i)
+		{
+			selectors[i] = Selector.open();
+			workers[i] = new Worker(selectors[i], database.getName() + " (Teller Server " + i + ")");
+		}
+		
+		reads = Executors.newFixedThreadPool(threads, reader ->
+		{
+			Thread ret = new Thread(reader, database.getName() + " (Balance Reader)");
+			ret.setDaemon(true);
+			return ret;
+		});
+	}
+	
+	/**
+	 * Starts accepting connections.
+	 */
+	public void start()
+	{
+		for(Worker worker : workers)
+			worker.start();
+		
+		Thread acceptor = new Thread(this::accept, database.getName() + " (Teller Acceptor)");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		Main.log.print(DebugLevel.NONE, "[{}] Serving tellers on port {}", database.getName(), getPort());
+	}
+	
+	/**
+	 * @return the port listened on.
+	 */
+	public int getPort()
+	{
+		return server.socket().getLocalPort();
+	}
+	
+	/**
+	 * @return the number of tellers connected.
+	 */
+	public int getConnectionCount()
+	{
+		return connections.get();
+	}
+	
+	/**
+	 * Stops accepting connections, and closes every connection.
+	 */
+	public void close()
+	{
+		try {
+			server.close();
+			for(Selector selector : selectors)
+			{
+				for(SelectionKey key : selector.keys())
+					key.channel().close();
+				selector.close();
+			}
+		} catch (IOException | ClosedSelectorException e) {}
+		
+		reads.shutdown();
+	}
+	
+	//The acceptor thread, handing each connection to the next selector thread
+	private void accept()
+	{
+		int next = 0;
+		
+		try {
+			while(true)
+			{
+				SocketChannel channel = server.accept();
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.configureBlocking(false);
+				connections.incrementAndGet();
+				
+				Worker worker = workers[next];
+				next = (next + 1) % workers.length;
+				//Registered by the selector thread itself, the first time it flushes the connection
+				new Connection(worker, channel).schedule();
+			}
+		} catch (IOException e) {
+			if(server.isOpen())
+				Main.log.warn(DebugLevel.NONE, "[{}] Stopped accepting tellers: {}", database.getName(), e);
+		}
+	}
+	
+	//A selector thread, reading and writing every connection handed to it
+	private static class Worker extends Thread
+	{
+		//How often connections stopped on a full ring try handing over their backlog again
+		private static final long STALLED_WAIT_MILLIS = 1;
+		
+		private final Selector selector;
+		//Connections with responses waiting to be written
+		private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<Connection>();
+		//Connections not read until their backlog is handed over, only touched by this thread
+		private final ArrayList<Connection> stalled = new ArrayList<Connection>();
+		
+		private Worker(Selector selector, String name)
+		{
+			super(name);
+			this.selector = selector;
+			setDaemon(true);
+		}
+		
+		public void run()
+		{
+			try {
+				while(true)
+				{
+					if(stalled.isEmpty())
+						selector.select();
+					else
+						selector.select(STALLED_WAIT_MILLIS);
+					
+					//Those with their backlog handed over are read again
+					stalled.removeIf(Connection::resume);
+					for(SelectionKey key : selector.selectedKeys())
+					{
+						Connection connection = (Connection) key.attachment();
+						if(key.isValid() && key.isReadable())
+							connection.read();
+						if(key.isValid() && key.isWritable())
+							connection.flush();
+					}
+					selector.selectedKeys().clear();
+					
+					for(Connection connection = ready.poll(); connection != null; connection = ready.poll())
+						connection.flush();
+				}
+			} catch (IOException | ClosedSelectorException e) {}
+		}
+	}
+	
+	//A response waiting to be written, the balance only for a BALANCE
+	private static class Response
+	{
+		private final byte type;
+		private final int id;
+		private final double balance;
+		
+		private Response(byte type, int id, double balance)
+		{
+			this.type = type;
+			this.id = id;
+			this.balance = balance;
+		}
+	}
+	
+	//A teller's connection, only read and written by its selector thread
+	private class Connection
+	{
+		private final Worker worker;
+		private final SocketChannel channel;
+		private SelectionKey key;
+		private final ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader(maxFrame);
+		private final ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME).flip();
+		
+		//Read while the database's ring was full, in order, and handed over before reading any more
+		private final ArrayDeque<Submission> backlog = new ArrayDeque<Submission>();
+		//Added to by whichever thread completes a request
+		private final ConcurrentLinkedQueue<Response> responses = new ConcurrentLinkedQueue<Response>();
+		//True while waiting in the worker's ready queue
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		
+		private Connection(Worker worker, SocketChannel channel)
+		{
+			this.worker = worker;
+			this.channel = channel;
+		}
+		
+		//Has the selector thread flush this connection, unless already waiting to be
+		private void schedule()
+		{
+			if(!scheduled.getAndSet(true))
+			{
+				worker.ready.add(this);
+				worker.selector.wakeup();
+			}
+		}
+		
+		private void respond(byte type, int id, double balance)
+		{
+			responses.add(new Response(type, id, balance));
+			schedule();
+		}
+		
+		private void read()
+		{
+			try {
+				if(!reader.read(channel, this::handle))
+				{
+					close();
+				}
+				else if(!backlog.isEmpty())
+				{
+					//Stop reading until the ring has room for the backlog
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+					worker.stalled.add(this);
+				}
+			} catch (ProtocolException e) {
+				//Closed before anything is allocated for it, so it can't take down the other connections of the selector thread
+				Main.log.warn(DebugLevel.NONE, "[{}] Closing a teller that sent a malformed frame: {}", database.getName(), e);
+				close();
+			} catch (IOException e) {
+				close();
+			}
+		}
+		
+		private void handle(byte type, int count, ByteBuffer entries)
+		{
+			for(int i = 0; i < count; ++i)
+			{
+				if(type == TellerProtocol.SUBMIT)
+				{
+					Transaction transaction = ReplicationProtocol.getTransaction(entries);
+					int request = transaction.getRequestNumber();
+					if(!claim(request))
+					{
+						respond(TellerProtocol.REJECTED, request, 0);
+						continue;
+					}
+					
+					database.submit(transaction, backlog).whenComplete((committed, error) ->
+					{
+						claimed.remove(request);
+						respond(error == null ? TellerProtocol.COMMITTED : TellerProtocol.REJECTED, request, 0);
+					});
+				}
+				else if(type == TellerProtocol.PREPARE)
+				{
+					Transaction transaction = ReplicationProtocol.getTransaction(entries);
+					int request = transaction.getRequestNumber();
+					if(!claim(request))
+					{
+						respond(TellerProtocol.REFUSED, request, 0);
+						continue;
+					}
+					
+					database.prepare(transaction, backlog).whenComplete((prepared, error) ->
+					{
+						claimed.remove(request);
+						respond(error == null ? TellerProtocol.PREPARED : TellerProtocol.REFUSED, request, 0);
+					});
+				}
+				else if(type == TellerProtocol.COMMIT || type == TellerProtocol.ABORT)
+				{
+					int request = entries.getInt();
+					database.decide(request, type == TellerProtocol.COMMIT).whenComplete((decided, error) -> respond(TellerProtocol.DECIDED, request, 0));
+				}
+				else if(type == TellerProtocol.SKIP)
+				{
+					database.skip(entries.getInt());
+				}
+				else if(type == TellerProtocol.QUERY)
+				{
+					int id = entries.getInt(), account = entries.getInt();
+					CompletableFuture.supplyAsync(() -> database.getAccountTable().readBalance(account), reads).whenComplete((balance, error) ->
+						respond(TellerProtocol.BALANCE, id, error == null ? balance : Double.NaN));
+				}
+				else
+				{
+					Main.log.warn(DebugLevel.NONE, "[{}] Closing a teller that sent a frame of unknown type {}", database.getName(), type);
+					close();
+					return;
+				}
+			}
+		}
+		
+		//Hands over as much of the backlog as the ring has room for, reading again once all of it is. Returns true once it is
+		private boolean resume()
+		{
+			while(!backlog.isEmpty() && database.offer(backlog.peek()))
+				backlog.poll();
+			
+			if(!backlog.isEmpty())
+				return false;
+			if(key.isValid())
+				key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+			return true;
+		}
+		
+		//Takes the request number for this connection's transaction, unless it can't be committed under it
+		private boolean claim(int request)
+		{
+			//Checked once claimed, as a number is only released once its transaction is marked committed
+			if(request >= 0 && claimed.add(request))
+			{
+				if(!database.getCommitTracker().isCommitted(request))
+					return true;
+				claimed.remove(request);
+			}
+			
+			Main.log.warn(DebugLevel.REQUESTS, "[{}] Turned away a teller's transaction reusing request #{}", database.getName(), request);
+			return false;
+		}
+		
+		private void flush()
+		{
+			scheduled.set(false);
+			if(!channel.isOpen())
+				return;
+			
+			try {
+				if(key == null)
+					key = channel.register(worker.selector, SelectionKey.OP_READ, this);
+				
+				//Until everything is written, or the socket can't take more for now
+				for(fill(); out.hasRemaining(); fill())
+				{
+					channel.write(out);
+					if(out.hasRemaining())
+						break;
+				}
+				
+				int read = backlog.isEmpty() ? SelectionKey.OP_READ : 0;
+				key.interestOps(out.hasRemaining() ? read | SelectionKey.OP_WRITE : read);
+			} catch (IOException e) {
+				close();
+			}
+		}
+		
+		//Once the last frame is written, batches the responses waiting into the next, up to the first of a different type
+		private void fill()
+		{
+			if(out.hasRemaining())
+				return;
+			
+			Response first = responses.peek();
+			if(first == null)
+				return;
+			
+			ReplicationProtocol.beginFrame(out);
+			int count = 0;
+			for(Response next = first; next != null && next.type == first.type && out.remaining() >= 12; next = responses.peek())
+			{
+				responses.poll();
+				out.putInt(next.id);
+				if(next.type == TellerProtocol.BALANCE)
+					out.putDouble(next.balance);
+				++count;
+			}
+			
+			ReplicationProtocol.endFrame(out, first.type, count);
+		}
+		
+		private void close()
+		{
+			if(!channel.isOpen())
+				return;
+			
+			try {
+				channel.close();
+			} catch (IOException e) {}
+			connections.decrementAndGet();
+		}
+	}
+}
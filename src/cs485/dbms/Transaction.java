@@ -0,0 +1,185 @@
+package cs485.dbms;
+
+import java.util.Arrays;
+
+/**
+ * An immutable transaction: a request number and the transfers between accounts to commit together.
+ * Submitted whole with {@link DatabaseMS#submit(Transaction)}, and committed whole by a single processing thread.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public final class Transaction
+{
+	private final int requestNumber;
+	//Transfer i moves amounts[i] from sources[i] to targets[i]
+	private final int[] sources;
+	private final int[] targets;
+	private final double[] amounts;
+	
+	/**
+	 * @param requestNumber the request number of the transaction.
+	 * @param sources the account each transfer is taken from.
+	 * @param targets the account each transfer is given to.
+	 * @param amounts the amount of each transfer.
+	 * @throws IllegalArgumentException if the arrays aren't the same length, or there are no transfers.
+	 */
+	public Transaction(int requestNumber, int[] sources, int[] targets, double[] amounts)
+	{
+		if(sources.length != targets.length || sources.length != amounts.length)
+			throw new IllegalArgumentException("Every transfer needs a source, target and amount.");
+		if(sources.length == 0)
+			throw new IllegalArgumentException("A transaction needs at least one transfer.");
+		
+		this.requestNumber = requestNumber;
+		this.sources = sources.clone();
+		this.targets = targets.clone();
+		this.amounts = amounts.clone();
+	}
+	
+	public int getRequestNumber()
+	{
+		return requestNumber;
+	}
+	
+	/**
+	 * @return the number of transfers in this transaction.
+	 */
+	public int getTransferCount()
+	{
+		return sources.length;
+	}
+	
+	/**
+	 * @param transfer the index of the transfer.
+	 * @return the account the transfer is taken from.
+	 */
+	public int getSource(int transfer)
+	{
+		return sources[transfer];
+	}
+	
+	/**
+	 * @param transfer the index of the transfer.
+	 * @return the account the transfer is given to.
+	 */
+	public int getTarget(int transfer)
+	{
+		return targets[transfer];
+	}
+	
+	/**
+	 * @param transfer the index of the transfer.
+	 * @return the amount of the transfer.
+	 */
+	public double getAmount(int transfer)
+	{
+		return amounts[transfer];
+	}
+	
+	/**
+	 * @return every account this transaction touches, source then target of each transfer (with repeats).
+	 */
+	public int[] getAccountNumbers()
+	{
+		int[] ret = new int[sources.length * 2];
+		for(int i = 0; i < sources.length; ++i)
+		{
+			ret[i * 2] = sources[i];
+			ret[i * 2 + 1] = targets[i];
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * @return this transaction as written to the database log, a BEGIN line, an UPDATE line per transfer, and a COMMIT line.
+	 * Amounts are written as by {@link Double#toString(double)}, so they read back exactly whatever the default locale.
+	 */
+	public String toLog()
+	{
+		return toLog("COMMIT");
+	}
+	
+	/**
+	 * @return this transaction as written to the database log of a shard once prepared to commit its part, as by {@link #toLog()}
+	 * but ending in a PREPARE line. The COMMIT or ABORT line deciding it is written later, on its own.
+	 */
+	public String toPrepareLog()
+	{
+		return toLog("PREPARE");
+	}
+	
+	private String toLog(String end)
+	{
+		StringBuilder ret = new StringBuilder(32 + sources.length * 40);
+		ret.append("<BEGIN ").append(requestNumber).append(">\n");
+		
+		for(int i = 0; i < sources.length; ++i)
+		{
+			ret.append("<UPDATE ").append(requestNumber).append('>')
+				.append(sources[i]).append(',').append(targets[i]).append(',').append(amounts[i]).append('\n');
+		}
+		
+		return ret.append('<').append(end).append(' ').append(requestNumber).append('>').toString();
+	}
+	
+	/**
+	 * Parses a transaction back from the lines written by {@link #toLog()}.
+	 * @param log the BEGIN line, UPDATE lines and COMMIT line of one transaction.
+	 * @return the parsed transaction.
+	 * @throws IllegalArgumentException if the lines aren't one whole transaction.
+	 */
+	public static Transaction fromLog(String log)
+	{
+		String[] lines = log.split("\n");
+		if(lines.length < 3 || !lines[0].startsWith("<BEGIN ") || !lines[lines.length - 1].startsWith("<COMMIT "))
+			throw new IllegalArgumentException("Not a whole logged transaction: " + log);
+		
+		try {
+			int requestNumber = Integer.parseInt(lines[0].substring(7, lines[0].indexOf('>')));
+			int count = lines.length - 2;
+			int[] sources = new int[count], targets = new int[count];
+			double[] amounts = new double[count];
+			
+			for(int i = 0; i < count; ++i)
+			{
+				String line = lines[i + 1];
+				String[] fields = line.substring(line.indexOf('>') + 1).split(",");
+				sources[i] = Integer.parseInt(fields[0]);
+				targets[i] = Integer.parseInt(fields[1]);
+				amounts[i] = Double.parseDouble(fields[2]);
+			}
+			
+			return new Transaction(requestNumber, sources, targets, amounts);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Not a whole logged transaction: " + log, e);
+		}
+	}
+	
+	/**
+	 * @return true if the other is a transaction of the same request number and transfers.
+	 */
+	public boolean equals(Object other)
+	{
+		if(!(other instanceof Transaction))
+			return false;
+		
+		Transaction transaction = (Transaction) other;
+		return requestNumber == transaction.requestNumber && Arrays.equals(sources, transaction.sources)
+			&& Arrays.equals(targets, transaction.targets) && Arrays.equals(amounts, transaction.amounts);
+	}
+	
+	public int hashCode()
+	{
+		return 31 * (31 * (31 * requestNumber + Arrays.hashCode(sources)) + Arrays.hashCode(targets)) + Arrays.hashCode(amounts);
+	}
+	
+	public String toString()
+	{
+		return "[Transaction #" + requestNumber + ", sources " + Arrays.toString(sources) + ", targets " + Arrays.toString(targets)
+			+ ", amounts " + Arrays.toString(amounts) + "]";
+	}
+}
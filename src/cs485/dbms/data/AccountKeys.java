@@ -0,0 +1,116 @@
+package cs485.dbms.data;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The account numbers of an {@link AccountTable}, in a primitive array for constant time random sampling.
+ * 
+ * The array and its size are published together, and the part of an array already published is never written again
+ * (an add writes past the end, a remove copies), so reads and snapshots take no lock and always see a consistent set.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AccountKeys
+{
+	private static final int INITIAL_CAPACITY = 16;
+	
+	//Replaced on every change, guarded by this for writers
+	private volatile Keys keys = new Keys(new int[INITIAL_CAPACITY], 0);
+	
+	synchronized void add(int accountNumber)
+	{
+		Keys cur = keys;
+		int[] array = cur.array;
+		if(cur.size == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		
+		array[cur.size] = accountNumber;
+		keys = new Keys(array, cur.size + 1);
+	}
+	
+	synchronized void remove(int accountNumber)
+	{
+		Keys cur = keys;
+		for(int i = 0; i < cur.size; ++i)
+		{
+			if(cur.array[i] == accountNumber)
+			{
+				//Copied so readers of the current array never see the gap being filled
+				int[] array = Arrays.copyOf(cur.array, cur.array.length);
+				array[i] = array[cur.size - 1];
+				keys = new Keys(array, cur.size - 1);
+				return;
+			}
+		}
+	}
+	
+	synchronized void clear()
+	{
+		keys = new Keys(new int[INITIAL_CAPACITY], 0);
+	}
+	
+	/**
+	 * @return the number of account numbers.
+	 */
+	public int size()
+	{
+		return keys.size;
+	}
+	
+	/**
+	 * @param rand the random number generator to pick with.
+	 * @return an account number picked uniformly at random.
+	 * @throws NoSuchElementException if there are no accounts.
+	 */
+	public int sample(Random rand)
+	{
+		Keys cur = keys;
+		if(cur.size == 0)
+			throw new NoSuchElementException("There are no accounts to sample.");
+		
+		return cur.array[rand.nextInt(cur.size)];
+	}
+	
+	/**
+	 * @return a copy of every account number, in the order they were added (other than removals filling their gap with the last).
+	 */
+	public int[] snapshot()
+	{
+		Keys cur = keys;
+		return Arrays.copyOf(cur.array, cur.size);
+	}
+	
+	/**
+	 * Creates a sampler picking the current account numbers by weight.
+	 * @param weightOf gives the weight of each account number, at least 0.
+	 * @return a sampler picking each account number with a probability proportional to its weight.
+	 */
+	public AliasSampler weighted(IntToDoubleFunction weightOf)
+	{
+		int[] accounts = snapshot();
+		double[] weights = new double[accounts.length];
+		for(int i = 0; i < accounts.length; ++i)
+			weights[i] = weightOf.applyAsDouble(accounts[i]);
+		
+		return new AliasSampler(accounts, weights);
+	}
+	
+	//An array and how much of it is in use, published together
+	private static class Keys
+	{
+		private final int[] array;
+		private final int size;
+		
+		private Keys(int[] array, int size)
+		{
+			this.array = array;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+package cs485.dbms.data;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A consistent copy of every account balance in an {@link AccountTable}, taken by {@link AccountTable#snapshot()},
+ * for aggregate queries that run in parallel without holding any lock on the table.
+ * 
+ * The copy is laid out partition by partition in flat arrays, and queries are split on partition boundaries.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AccountSnapshot
+{
+	//Account i of the snapshot, laid out partition by partition
+	private final int[] accountNumbers;
+	private final double[] balances;
+	//Partition p holds the accounts from partitionStarts[p] up to partitionStarts[p + 1]
+	private final int[] partitionStarts;
+	
+	AccountSnapshot(int[] accountNumbers, double[] balances, int[] partitionStarts)
+	{
+		this.accountNumbers = accountNumbers;
+		this.balances = balances;
+		this.partitionStarts = partitionStarts;
+	}
+	
+	//Lays out the copy of each partition one after another
+	static AccountSnapshot of(int[][] accountNumbers, double[][] balances)
+	{
+		int[] partitionStarts = new int[accountNumbers.length + 1];
+		for(int i = 0; i < accountNumbers.length; ++i)
+			partitionStarts[i + 1] = partitionStarts[i] + accountNumbers[i].length;
+		
+		int[] flatNumbers = new int[partitionStarts[accountNumbers.length]];
+		double[] flatBalances = new double[flatNumbers.length];
+		for(int i = 0; i < accountNumbers.length; ++i)
+		{
+			System.arraycopy(accountNumbers[i], 0, flatNumbers, partitionStarts[i], accountNumbers[i].length);
+			System.arraycopy(balances[i], 0, flatBalances, partitionStarts[i], balances[i].length);
+		}
+		
+		return new AccountSnapshot(flatNumbers, flatBalances, partitionStarts);
+	}
+	
+	/**
+	 * @return the number of accounts in this snapshot.
+	 */
+	public int size()
+	{
+		return balances.length;
+	}
+	
+	/**
+	 * @return a parallel stream of the indexes of every account in this snapshot, split on partition boundaries.
+	 */
+	public IntStream indexes()
+	{
+		return StreamSupport.intStream(new PartitionSpliterator(0, partitionStarts.length - 1), true);
+	}
+	
+	/**
+	 * @param index the index of an account in this snapshot.
+	 * @return the account number of the account.
+	 */
+	public int getAccountNumber(int index)
+	{
+		return accountNumbers[index];
+	}
+	
+	/**
+	 * @param index the index of an account in this snapshot.
+	 * @return the balance of the account.
+	 */
+	public double getBalance(int index)
+	{
+		return balances[index];
+	}
+	
+	/**
+	 * @return the total balance of every account.
+	 */
+	public double getTotal()
+	{
+		//DoubleStream.sum compensates for rounding, so the total doesn't drift with the account count
+		return indexes().mapToDouble(i -> balances[i]).sum();
+	}
+	
+	/**
+	 * @return the count, total, min, max and average balance of the accounts.
+	 */
+	public DoubleSummaryStatistics getStatistics()
+	{
+		return indexes().mapToDouble(i -> balances[i]).summaryStatistics();
+	}
+	
+	/**
+	 * Counts the accounts by balance, into buckets split at the given bounds.
+	 * @param bounds the ascending balances splitting the buckets.
+	 * @return the number of accounts with balance below bounds[0], then each from bounds[i - 1] up to bounds[i],
+	 * then at or above the last bound.
+	 */
+	public long[] getDistribution(double[] bounds)
+	{
+		return indexes().collect(() -> new long[bounds.length + 1], (counts, i) -> {
+			int bucket = Arrays.binarySearch(bounds, balances[i]);
+			++counts[bucket >= 0 ? bucket + 1 : -bucket - 1];
+		}, (counts, other) -> {
+			for(int b = 0; b < counts.length; ++b)
+				counts[b] += other[b];
+		});
+	}
+	
+	/**
+	 * @param n the number of accounts to return.
+	 * @return the account numbers and balances of the n accounts with the highest balance, highest first.
+	 */
+	public Map<Integer, Double> getTop(int n)
+	{
+		TopAccounts top = indexes().collect(() -> new TopAccounts(n), TopAccounts::add, TopAccounts::addAll);
+		
+		//The heap keeps the lowest on top, so take them out lowest first and reverse
+		int[] order = new int[top.heap.size()];
+		for(int i = order.length - 1; i >= 0; --i)
+			order[i] = top.heap.poll();
+		
+		LinkedHashMap<Integer, Double> ret = new LinkedHashMap<Integer, Double>();
+		for(int i : order)
+			ret.put(accountNumbers[i], balances[i]);
+		return ret;
+	}
+	
+	//The indexes of the n highest balances seen, in a min heap so the lowest is replaced first
+	private class TopAccounts
+	{
+		private final int n;
+		private final PriorityQueue<Integer> heap;
+		
+		private TopAccounts(int n)
+		{
+			this.n = n;
+			heap = new PriorityQueue<Integer>(Math.max(1, n + 1), (a, b) -> Double.compare(balances[a], balances[b]));
+		}
+		
+		private void add(int index)
+		{
+			if(heap.size() < n)
+				heap.add(index);
+			else if(n > 0 && balances[index] > balances[heap.peek()])
+			{
+				heap.poll();
+				heap.add(index);
+			}
+		}
+		
+		private void addAll(TopAccounts other)
+		{
+			for(int index : other.heap)
+				add(index);
+		}
+	}
+	
+	//Splits the accounts between partitions, never inside one
+	private class PartitionSpliterator implements Spliterator.OfInt
+	{
+		//The next index to return, and the end of the last partition covered
+		private int index, end;
+		private int firstPartition, lastPartition;
+		
+		//Covers the partitions from first up to, but not including, last
+		private PartitionSpliterator(int first, int last)
+		{
+			firstPartition = first;
+			lastPartition = last;
+			index = partitionStarts[first];
+			end = partitionStarts[last];
+		}
+		
+		@Override
+		public OfInt trySplit()
+		{
+			//Only split before any has been returned, and while covering more than one partition
+			if(index != partitionStarts[firstPartition] || lastPartition - firstPartition < 2)
+				return null;
+			
+			int mid = (firstPartition + lastPartition) >>> 1;
+			PartitionSpliterator prefix = new PartitionSpliterator(firstPartition, mid);
+			firstPartition = mid;
+			index = partitionStarts[mid];
+			return prefix;
+		}
+		
+		@Override
+		public boolean tryAdvance(IntConsumer action)
+		{
+			if(index >= end)
+				return false;
+			
+			action.accept(index++);
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(IntConsumer action)
+		{
+			for(; index < end; ++index)
+				action.accept(index);
+		}
+		
+		@Override
+		public long estimateSize()
+		{
+			return end - index;
+		}
+		
+		@Override
+		public int characteristics()
+		{
+			return ORDERED | SIZED | SUBSIZED | DISTINCT | IMMUTABLE | NONNULL;
+		}
+	}
+}
@@ -1,14 +1,22 @@
 package cs485.dbms.data;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.IntStream;
 
-import cs485.dbms.main.Main;
-import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.lock.LockManager;
+import cs485.dbms.lock.LockMode;
+import cs485.dbms.lock.LockOwner;
+import cs485.dbms.metrics.LockProfiler;
 
 /**
  *  A structured, partitioned list of accounts stored 
@@ -21,9 +29,6 @@ import cs485.dbms.main.DebugLog.DebugLevel;
  */
 public class AccountTable implements Iterable<Account>
 {
-	//A constant for how many times to try to acquire a lock
-	private static final int LOCK_DEPTH = 5;
-	
 	//The array of lists of accounts.
 	private AccountTableEntry[] entryArray;
 	//The number of partitions that the account table is divided into
@@ -32,12 +37,31 @@ public class AccountTable implements Iterable<Account>
 	//# Accounts inside (constant in the assignment, but in real application useful)
 	private int size = 0;
 	
-	//Locks for this data repository
-	private final WriteLock writeLock;
-	private final ReadLock readLock;
+	//The number of row locks the accounts are striped over
+	private static final int LOCK_STRIPES = 1024;
+	//A transaction locking more than this many accounts up front locks the whole table instead
+	private static final int ESCALATION_THRESHOLD = 64;
+	
+	//Contention statistics of the table lock, and of the row locks by partition
+	private final LockProfiler lockProfiler = new LockProfiler(partitionCount);
+	//Locks for this data repository, the table and each account
+	private final LockManager lockManager = new LockManager(partitionCount, LOCK_STRIPES, lockProfiler);
+	
+	//The times a summary or snapshot collects the partitions without locking them all before giving up and locking them all
+	private static final int OPTIMISTIC_SUMMARIES = 4;
 	
-	//Set of account numbers
-	private LinkedList<Integer> keySet = new LinkedList<Integer>();
+	//Identifies the lock owner of a snapshot. A snapshot only waits on the table lock while holding nothing, so is never in a deadlock
+	private static final long SNAPSHOT_OWNER = -1;
+	//Identifies the lock owner of a balance read
+	private static final long READ_OWNER = -2;
+	
+	//The index of accounts by holder name, null unless created with createNameIndex
+	private volatile NameIndex nameIndex = null;
+	
+	//Every account ordered by account number, as the partitions scatter a range of numbers
+	private final ConcurrentSkipListMap<Integer, Account> numberIndex = new ConcurrentSkipListMap<Integer, Account>();
+	//Every account number in an array, for random sampling
+	private final AccountKeys accountKeys = new AccountKeys();
 	
 	/**
 	 * Creates an account table to store accounts, partitioned into 20 sublists.
@@ -47,12 +71,8 @@ public class AccountTable implements Iterable<Account>
 		entryArray = new AccountTableEntry[partitionCount];
 		for(int i = 0; i < partitionCount; ++i)
 		{
-			entryArray[i] = new AccountTableEntry(i);
+			entryArray[i] = new AccountTableEntry();
 		}
-		
-		ReentrantReadWriteLock l = new ReentrantReadWriteLock();
-		writeLock = l.writeLock();
-		readLock = l.readLock();
 	}
 	
 	/**
@@ -61,12 +81,20 @@ public class AccountTable implements Iterable<Account>
 	 */
 	public void add(Account account)
 	{
-		int hashIndex = account.getAccountNumber() % partitionCount;
+		AccountTableEntry entry = entryArray[account.getAccountNumber() % partitionCount];
 		
-		if(!entryArray[hashIndex].accounts.contains(account))
+		if(!entry.accounts.contains(account))
 		{
-			entryArray[hashIndex].accounts.add(account);
-			keySet.add(account.getAccountNumber());
+			//Under the partition's monitor, so a snapshot copying it sees the account and its balance together
+			synchronized(entry)
+			{
+				entry.accounts.add(account);
+				entry.addBalance(toCents(account.getBalance()));
+			}
+			numberIndex.put(account.getAccountNumber(), account);
+			accountKeys.add(account.getAccountNumber());
+			if(nameIndex != null)
+				nameIndex.add(account);
 			account.setTableIndex(size);
 			++size;			
 		}
@@ -79,7 +107,8 @@ public class AccountTable implements Iterable<Account>
 	 */
 	public Account get(int accountNumber)
 	{
-		int hashIndex = accountNumber % partitionCount;
+		//Floored, so a negative number, as a remote teller may send, is just not found
+		int hashIndex = Math.floorMod(accountNumber, partitionCount);
 		
 		for(Account account: entryArray[hashIndex].accounts)
 		{
@@ -93,96 +122,316 @@ public class AccountTable implements Iterable<Account>
 	}
 	
 	/**
-	 * Locks the partition of this AccountTable containing the given account.
-	 * @param accountNumber the number of the account to lock
-	 * @return true if successful, false if lock not acquired
+	 * Indexes every account by holder name, kept up to date as accounts are added and removed, 
+	 * for {@link #findByLastName(String)} and {@link #findByName(String, String)}.
 	 */
-	public boolean lockPartition(int accountNumber)
+	public void createNameIndex()
 	{
-		return entryArray[accountNumber % partitionCount].lockPartition();
+		if(nameIndex != null)
+			return;
+		
+		NameIndex index = new NameIndex();
+		for(Account account : this)
+			index.add(account);
+		nameIndex = index;
 	}
 	
 	/**
-	 * Unlocks the partition of this AccountTable with the given account.
-	 * @param accountNumber the number of the account to unlock
+	 * Finds accounts by last name, ignoring case. Needs the index from {@link #createNameIndex()}.
+	 * @param lastNamePrefix the start of the last name.
+	 * @return every account with a last name starting with the prefix, ordered by last name then first name.
+	 * @throws IllegalStateException if the name index hasn't been created.
 	 */
-	public void unlockPartition(int accountNumber)
+	public List<Account> findByLastName(String lastNamePrefix)
 	{
-		entryArray[accountNumber % partitionCount].unlockPartition();
+		return getNameIndex().findByLastName(lastNamePrefix);
 	}
 	
 	/**
-	 * Attempts to lock the readLock for this AccountTable.
-	 * @return true if successful, false if lock not acquired
+	 * Finds accounts by last and first name, ignoring case. Needs the index from {@link #createNameIndex()}.
+	 * @param lastName the whole last name.
+	 * @param firstNamePrefix the start of the first name.
+	 * @return every account with the last name and a first name starting with the prefix, ordered by first name.
+	 * @throws IllegalStateException if the name index hasn't been created.
 	 */
-	public boolean readLockTable()
+	public List<Account> findByName(String lastName, String firstNamePrefix)
+	{
+		return getNameIndex().findByName(lastName, firstNamePrefix);
+	}
+	
+	private NameIndex getNameIndex()
 	{
-		try {
-			int depth = LOCK_DEPTH;
-			while(depth > 0)
+		NameIndex ret = nameIndex;
+		if(ret == null)
+			throw new IllegalStateException("The name index has not been created.");
+		return ret;
+	}
+	
+	/**
+	 * Reads the committed balance of an account, locking it first so a transaction still applying to it finishes.
+	 * Blocks until the lock is acquired.
+	 * @param accountNumber the number of the account
+	 * @return the balance of the account, or NaN if there is no such account
+	 */
+	public double readBalance(int accountNumber)
+	{
+		Account account = get(accountNumber);
+		if(account == null)
+			return Double.NaN;
+		
+		LockOwner owner = new LockOwner(READ_OWNER);
+		try
+		{
+			//Only fails if picked as the victim of a deadlock, holding nothing else to give up
+			while(!lockAccount(owner, accountNumber))
+				unlockAll(owner);
+			return account.getBalance();
+		}
+		finally
+		{
+			unlockAll(owner);
+		}
+	}
+	
+	/**
+	 * Moves an amount from one account to another, keeping the balance summaries of their partitions up to date.
+	 * The caller must hold the locks of both accounts.
+	 * @param source the account the amount is taken from
+	 * @param target the account the amount is given to
+	 * @param amount the amount to move, negative to move it back
+	 */
+	public void transfer(Account source, Account target, double amount)
+	{
+		int sourcePartition = source.getAccountNumber() % partitionCount, targetPartition = target.getAccountNumber() % partitionCount;
+		
+		//Both partitions are held for the whole transfer, in order, so a summary never sees it in one and not the other
+		synchronized(entryArray[Math.min(sourcePartition, targetPartition)])
+		{
+			synchronized(entryArray[Math.max(sourcePartition, targetPartition)])
 			{
-				if(readLock.tryLock() || readLock.tryLock(300, TimeUnit.MILLISECONDS))
-				{
-					Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tRetrieved read lock!");
-					return true;
-				}
-				
-				//System.out.println("Didn't retrieve read lock, trying again");
+				adjustBalance(source, -amount);
+				adjustBalance(target, amount);
 			}
-		} catch (InterruptedException e) {
-			return readLockTable();
 		}
-		
-		Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tDidn't retrieve read lock");
-		return false;
 	}
 	
 	/**
-	 * Unlocks the read lock for this AccountTable.
+	 * Adds an amount to a single account, for the half of a transfer whose other account is held by another shard,
+	 * keeping the balance summary of its partition up to date. The caller must hold the lock of the account.
+	 * @param account the account to change
+	 * @param amount the amount to add, negative to take it away
 	 */
-	public void unreadLockTable()
+	public void deposit(Account account, double amount)
 	{
-		readLock.unlock();
-		Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tUnlocked table read lock");
+		adjustBalance(account, amount);
 	}
 	
 	/**
-	 * Attempts to lock the writeLock for this AccountTable.
-	 * @return true if successful, false if lock not acquired
+	 * Sets the balance of an account, such as to repair it from a replica, keeping the balance summary of its partition up to date.
+	 * The caller must hold the lock of the account.
+	 * @param account the account to set
+	 * @param balance the new balance
+	 */
+	public void setBalance(Account account, double balance)
+	{
+		AccountTableEntry entry = entryArray[account.getAccountNumber() % partitionCount];
+		synchronized(entry)
+		{
+			entry.removeBalance(toCents(account.getBalance()));
+			account.setBalance(balance);
+			entry.addBalance(toCents(balance));
+		}
+	}
+	
+	//Changes the balance of the account in the same critical section as the summary of its partition
+	private void adjustBalance(Account account, double amount)
+	{
+		AccountTableEntry entry = entryArray[account.getAccountNumber() % partitionCount];
+		synchronized(entry)
+		{
+			double balance = account.getBalance();
+			account.setBalance(balance + amount);
+			entry.removeBalance(toCents(balance));
+			entry.addBalance(toCents(balance + amount));
+		}
+	}
+	
+	//Balances are summarized in whole cents, so the totals don't drift
+	private static long toCents(double balance)
+	{
+		return Math.round(balance * 100.0d);
+	}
+	
+	/**
+	 * Summarizes the balances of every account, from the running summaries of each partition.
+	 * 
+	 * The partitions are collected one at a time with their versions, and collected again if any version changed by the end,
+	 * as then a transfer may have been seen in one partition and not the other. Only after a few tries are the partitions
+	 * all locked together, so transfers are only held off while the table is too busy to summarize otherwise.
+	 * @return the number of accounts, and their total, min and max balance, with every transfer either fully applied or not at all.
 	 */
-	public boolean writeLockTable()
+	public BalanceSummary getBalanceSummary()
 	{
-		try {
-			//Attempt LOCK_DEPTH number of times to hold the write lock
-			int depth = LOCK_DEPTH;
-			while(depth > 0)
+		long[] versions = new long[partitionCount];
+		for(int tries = 0; tries < OPTIMISTIC_SUMMARIES; ++tries)
+		{
+			BalanceSummary ret = new BalanceSummary(0, 0, 0, 0);
+			for(int i = 0; i < partitionCount; ++i)
 			{
-				if(writeLock.tryLock() || writeLock.tryLock(500, TimeUnit.MILLISECONDS))
+				AccountTableEntry entry = entryArray[i];
+				synchronized(entry)
 				{
-					Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tRetrieved table write lock!");
-					return true;
+					versions[i] = entry.version;
+					ret = ret.merge(entry.summarize());
 				}
-				
-				//System.out.println("Didn't retrieve write lock, trying again");
-				--depth;
 			}
-		} catch (InterruptedException e) {
-			return writeLockTable();
+			
+			if(unchangedSince(versions))
+				return ret;
 		}
 		
-		Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tDidn't retrieve table write lock");
-		return false;
+		return summarizeFrom(0);
+	}
+	
+	//True if no partition changed since collected at the given versions, so they were all as collected at this moment, together
+	private boolean unchangedSince(long[] versions)
+	{
+		for(int i = 0; i < partitionCount; ++i)
+		{
+			if(entryArray[i].getVersion() != versions[i])
+				return false;
+		}
+		
+		return true;
+	}
+	
+	//Summarizes the partitions from the given one on, holding each, in order, until the rest are summarized
+	private BalanceSummary summarizeFrom(int partition)
+	{
+		if(partition == partitionCount)
+			return new BalanceSummary(0, 0, 0, 0);
+		
+		synchronized(entryArray[partition])
+		{
+			return entryArray[partition].summarize().merge(summarizeFrom(partition + 1));
+		}
 	}
 	
 	/**
-	 * Unlocks the write lock for this AccountTable.
+	 * @return the running balance summary of each partition, which may include transfers being applied.
 	 */
-	public void unwriteLockTable()
+	public BalanceSummary[] getPartitionSummaries()
 	{
-		writeLock.unlock();
-		Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tUnlocked table write lock");
+		BalanceSummary[] ret = new BalanceSummary[partitionCount];
+		for(int i = 0; i < partitionCount; ++i)
+			ret[i] = entryArray[i].summarize();
+		return ret;
 	}
-
+	
+	/**
+	 * Locks the whole AccountTable, ex. S for a consistent read of every account, or X for exclusive access.
+	 * @param owner the transaction to lock for
+	 * @param mode the mode to lock the table in
+	 * @return true if successful, false if lock not acquired
+	 */
+	public boolean lockTable(LockOwner owner, LockMode mode)
+	{
+		return lockManager.lockTable(owner, mode);
+	}
+	
+	/**
+	 * Exclusively locks the given account, along with an intention lock on the table.
+	 * @param owner the transaction to lock for
+	 * @param accountNumber the number of the account to lock
+	 * @return true if successful, false if lock not acquired
+	 */
+	public boolean lockAccount(LockOwner owner, int accountNumber)
+	{
+		return lockManager.lockRow(owner, accountNumber);
+	}
+	
+	/**
+	 * Exclusively locks every given account up front, in the order of their locks,
+	 * so transactions locking this way can't deadlock with each other.
+	 * If more than {@value #ESCALATION_THRESHOLD} accounts are needed, the whole table is locked exclusively instead.
+	 * @param owner the transaction to lock for
+	 * @param accountNumbers the numbers of the accounts to lock
+	 * @return true if successful, false if a lock was not acquired (locks already acquired stay held)
+	 */
+	public boolean lockAccounts(LockOwner owner, int[] accountNumbers)
+	{
+		if(accountNumbers.length > ESCALATION_THRESHOLD)
+			return lockManager.lockTable(owner, LockMode.X);
+		
+		return lockInOrder(owner, accountNumbers);
+	}
+	
+	//Locks every given account, in the order of their locks
+	private boolean lockInOrder(LockOwner owner, int[] accountNumbers)
+	{
+		//Sort by stripe, with the account number in the low bits
+		long[] order = new long[accountNumbers.length];
+		for(int i = 0; i < accountNumbers.length; ++i)
+			order[i] = ((long) lockManager.stripeOf(accountNumbers[i]) << 32) | (accountNumbers[i] & 0xFFFFFFFFL);
+		Arrays.sort(order);
+		
+		for(long entry : order)
+		{
+			if(!lockManager.lockRow(owner, (int) entry))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Releases every table and account lock held by the given transaction.
+	 * @param owner the transaction to unlock for
+	 */
+	public void unlockAll(LockOwner owner)
+	{
+		lockManager.unlockAll(owner);
+	}
+	
+	/**
+	 * Copies the balance of every account, with every transfer either fully applied or not at all, so the copy conserves money.
+	 * 
+	 * The partitions are copied in parallel, each under only its own monitor, with their versions, and copied again if any version
+	 * changed by the end, as then a transfer may have been copied in one partition and not the other. Only after a few tries
+	 * is the table locked shared, holding off commits while the partitions are copied once more.
+	 * Queries on the snapshot never hold up commits.
+	 * @return the snapshot of every account balance.
+	 */
+	public AccountSnapshot snapshot()
+	{
+		int[][] accountNumbers = new int[partitionCount][];
+		double[][] balances = new double[partitionCount][];
+		long[] versions = new long[partitionCount];
+		
+		for(int tries = 0; tries < OPTIMISTIC_SUMMARIES; ++tries)
+		{
+			IntStream.range(0, partitionCount).parallel().forEach(partition -> 
+				versions[partition] = entryArray[partition].copy(partition, accountNumbers, balances));
+			if(unchangedSince(versions))
+				return AccountSnapshot.of(accountNumbers, balances);
+		}
+		
+		LockOwner owner = new LockOwner(SNAPSHOT_OWNER);
+		try
+		{
+			//Only aborted to break a deadlock, which a snapshot is never part of
+			while(!lockManager.lockTable(owner, LockMode.S));
+			
+			IntStream.range(0, partitionCount).parallel().forEach(partition -> 
+				entryArray[partition].copy(partition, accountNumbers, balances));
+			return AccountSnapshot.of(accountNumbers, balances);
+		}
+		finally
+		{
+			lockManager.unlockAll(owner);
+		}
+	}
+	
 	/**
 	 * Searches for and removes the account associated with the indicated account number.
 	 * @param accountNumber the account number to search for
@@ -192,14 +441,22 @@ public class AccountTable implements Iterable<Account>
 	{
 		int hashIndex = accountNumber % partitionCount;
 		
-		for(int i = 0; i < entryArray[hashIndex].accounts.size(); ++i)
+		AccountTableEntry entry = entryArray[hashIndex];
+		for(int i = 0; i < entry.accounts.size(); ++i)
 		{
-			Account account = entryArray[hashIndex].accounts.get(i);
+			Account account = entry.accounts.get(i);
 			if(account.getAccountNumber() == accountNumber)
 			{
 				--size;
-				keySet.remove(account.getAccountNumber());
-				return entryArray[hashIndex].accounts.remove(i);
+				numberIndex.remove(accountNumber);
+				accountKeys.remove(accountNumber);
+				if(nameIndex != null)
+					nameIndex.remove(account);
+				synchronized(entry)
+				{
+					entry.removeBalance(toCents(account.getBalance()));
+					return entry.accounts.remove(i);
+				}
 			}
 		}
 		
@@ -213,12 +470,22 @@ public class AccountTable implements Iterable<Account>
 	{
 		for(int i = 0; i < partitionCount; ++i)
 		{
-			entryArray[i].accounts.clear();
+			synchronized(entryArray[i])
+			{
+				entryArray[i].accounts.clear();
+				entryArray[i].clearBalances();
+			}
 		}
 		
+		numberIndex.clear();
+		accountKeys.clear();
+		
+		if(nameIndex != null)
+			nameIndex.clear();
+		
 		size = 0;
 	}
-
+	
 	/**
 	 * @return the number of accounts within this account table.
 	 */
@@ -227,11 +494,62 @@ public class AccountTable implements Iterable<Account>
 	}
 	
 	/**
-	 * @return a list of account numbers, associated with {@link Account}s within this AccountTable.
+	 * @return the contention statistics of the table lock, and of the row locks by partition.
 	 */
-	public LinkedList<Integer> getKeySet()
+	public LockProfiler getLockProfiler()
 	{
-		return keySet;
+		return lockProfiler;
+	}
+	
+	/**
+	 * @return the account numbers of every {@link Account} within this AccountTable, in ascending order.
+	 */
+	public NavigableSet<Integer> getKeySet()
+	{
+		return Collections.unmodifiableNavigableSet(numberIndex.keySet());
+	}
+	
+	/**
+	 * @return the account numbers of every {@link Account} within this AccountTable, for random sampling and cheap copies.
+	 */
+	public AccountKeys getAccountKeys()
+	{
+		return accountKeys;
+	}
+	
+	/**
+	 * Finds every account numbered within a range, such as the accounts of a branch.
+	 * The range is read without locking, and reflects accounts added or removed while iterating it.
+	 * @param first the lowest account number of the range.
+	 * @param last the highest account number of the range.
+	 * @return the accounts numbered from first to last inclusive, in ascending order.
+	 */
+	public Collection<Account> getRange(int first, int last)
+	{
+		if(first > last)
+			return Collections.emptyList();
+		
+		return Collections.unmodifiableCollection(numberIndex.subMap(first, true, last, true).values());
+	}
+	
+	/**
+	 * @param accountNumber the account number to search from.
+	 * @return the account with the highest number at or below the given number, or null if there is none.
+	 */
+	public Account floor(int accountNumber)
+	{
+		Map.Entry<Integer, Account> ret = numberIndex.floorEntry(accountNumber);
+		return ret == null ? null : ret.getValue();
+	}
+	
+	/**
+	 * @param accountNumber the account number to search from.
+	 * @return the account with the lowest number at or above the given number, or null if there is none.
+	 */
+	public Account ceiling(int accountNumber)
+	{
+		Map.Entry<Integer, Account> ret = numberIndex.ceilingEntry(accountNumber);
+		return ret == null ? null : ret.getValue();
 	}
 	
 	@Override
@@ -241,32 +559,24 @@ public class AccountTable implements Iterable<Account>
 		return new Iterator<Account>() {
 			//The current partition
 			private int curEntry = 0;
-			//The current entry in the current partition
-			private int curItem = 0;
+			//The iterator over the current partition
+			private Iterator<Account> curItems = entryArray[0].accounts.iterator();
 			
 			@Override
 			public boolean hasNext() {
-				//If the current partition is less than the max and the current entry is less than the size of the current partition, can continue.
-				return curEntry < partitionCount && curItem < entryArray[curEntry].accounts.size();
+				//Skip past empty partitions, so one doesn't end the iteration early
+				while(!curItems.hasNext() && curEntry < partitionCount - 1)
+					curItems = entryArray[++curEntry].accounts.iterator();
+				
+				return curItems.hasNext();
 			}
-	
+			
 			@Override
 			public Account next() {
-				//Get the item,
-				Account next = entryArray[curEntry].accounts.get(curItem);
-				
-				//Increment the current entry position,
-				curItem++;
+				if(!hasNext())
+					throw new NoSuchElementException();
 				
-				//And if the current entry is larger than the number of entries in this partition (and the current partition is less than the last partition)
-				if(curItem >= entryArray[curEntry].accounts.size() && curEntry < partitionCount - 1)
-				{
-					//Move to the next partition and reset the curItem to the first item.
-					++curEntry;
-					curItem = 0;
-				}
-							
-				return next;
+				return curItems.next();
 			}};
 	}
 	
@@ -275,51 +585,68 @@ public class AccountTable implements Iterable<Account>
 	{
 		//Accounts contained in this partition
 		public LinkedList<Account> accounts = new LinkedList<Account>();
-		private final WriteLock writeLock;
-		//A referential number for this partition, used to indicate which lock was attained/released.
-		private final int partitionNumber;
 		
-		private AccountTableEntry(int num)
+		//The running summary of the balances in this partition, in cents, guarded by this
+		private int count = 0;
+		private long totalCents = 0;
+		//The number of accounts with each balance, for the min and max
+		private final TreeMap<Long, Integer> balanceCounts = new TreeMap<Long, Integer>();
+		//Counts every change to the summary, guarded by this
+		private long version = 0;
+		
+		private synchronized long getVersion()
 		{
-			ReentrantReadWriteLock l = new ReentrantReadWriteLock();
-			writeLock = l.writeLock();
-			partitionNumber = num;
+			return version;
 		}
 		
-		/**
-		 * Attempts to lock the write Lock for this partition.
-		 * @return true if successful, false if lock not acquired
-		 */
-		public boolean lockPartition()
+		private synchronized void addBalance(long cents)
 		{
-			try {
-				int depth = LOCK_DEPTH;
-				while(depth > 0)
-				{
-					if(writeLock.tryLock() || writeLock.tryLock(500, TimeUnit.MILLISECONDS))
-					{
-						Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tLocked partition lock for partition #" + partitionNumber);			
-						return true;
-					}
-					
-					--depth;
-					//System.out.println("Did not retrieve lock, trying again");
-				}
-			} catch (InterruptedException e) {
-				return lockPartition();
+			++version;
+			++count;
+			totalCents += cents;
+			balanceCounts.merge(cents, 1, Integer::sum);
+		}
+		
+		private synchronized void removeBalance(long cents)
+		{
+			++version;
+			--count;
+			totalCents -= cents;
+			//Removes the balance once no account has it
+			balanceCounts.computeIfPresent(cents, (balance, accounts) -> accounts == 1 ? null : accounts - 1);
+		}
+		
+		private synchronized void clearBalances()
+		{
+			++version;
+			count = 0;
+			totalCents = 0;
+			balanceCounts.clear();
+		}
+		
+		//Copies the number and balance of every account into the given partition's arrays, returning the version copied
+		private synchronized long copy(int partition, int[][] accountNumbers, double[][] balances)
+		{
+			int[] numbers = new int[accounts.size()];
+			double[] copied = new double[numbers.length];
+			int i = 0;
+			for(Account account : accounts)
+			{
+				numbers[i] = account.getAccountNumber();
+				copied[i++] = account.getBalance();
 			}
 			
-			Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tFailed to lock partition lock for partition #" + partitionNumber + ", hold count on lock: " + writeLock.getHoldCount());			
-			return false;
+			accountNumbers[partition] = numbers;
+			balances[partition] = copied;
+			return version;
 		}
 		
-		/**
-		 * Unlocks the write lock for this partition.
-		 */
-		public void unlockPartition()
+		private synchronized BalanceSummary summarize()
 		{
-			writeLock.unlock();
-			Main.log.print(DebugLevel.LOCKS_REQUESTS, "[" + Thread.currentThread().getName() + "]\tUnlocked partition lock for partition #" + partitionNumber);			
+			if(count == 0)
+				return new BalanceSummary(0, 0, 0, 0);
+			
+			return new BalanceSummary(count, totalCents, balanceCounts.firstKey(), balanceCounts.lastKey());
 		}
 	}
 }
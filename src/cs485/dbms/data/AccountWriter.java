@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.function.IntPredicate;
 
 import cs485.dbms.DatabaseMS;
 
@@ -14,6 +15,9 @@ import cs485.dbms.DatabaseMS;
  * A class utilizing memory mapped file io that dynamically updates accounts as they are modified
  * to the output file. All it takes is to call "writeAccount(account)" and it will reflect in the output file.
  * 
+ * Every written row also updates a {@link MerkleTree} over the file, so two account files can be compared
+ * and repaired row by row with {@link #repairFrom(AccountWriter)}.
+ * 
  * @author Ashton Schultz
  * @instructor Prof. Mark Funk
  * @class CS485
@@ -23,7 +27,7 @@ public class AccountWriter
 {
 	//The max length of each written field in accounts. Order: FirstName, LastName, AccountNum, AccountBal
 	private static final int[] maxLengths = {10,10,10,10};
-
+	
 	//The name of the output file
 	private final String fileName;
 	
@@ -37,16 +41,35 @@ public class AccountWriter
 	private RandomAccessFile file;
 	private MappedByteBuffer buffer;
 	
+	//The account on each row of the output file, and the hash tree over the rows
+	private Account[] rows;
+	private MerkleTree tree;
+	
 	public AccountWriter(DatabaseMS db, String fn)
+	{
+		this(db.getAccountTable(), fn);
+	}
+	
+	public AccountWriter(AccountTable table, String fn)
 	{
 		fileName = fn;
-		accountTable = db.getAccountTable();
+		accountTable = table;
 	}
 	
 	/**
 	 * Reads the accounts from the input file "Accounts.txt", and stores them into the {@link AccountTable} stored in {@link DatabaseMS}.
 	 */
 	public void readAccountsFromFile()
+	{
+		readAccountsFromFile(accountNumber -> true);
+	}
+	
+	/**
+	 * Reads the accounts from the input file "Accounts.txt" that the database holds, such as those hashed to its shard,
+	 * and stores them into the {@link AccountTable} stored in {@link DatabaseMS}.
+	 * @param holds true for the number of each account to store.
+	 */
+	public void readAccountsFromFile(IntPredicate holds)
 	{
 		accountTable.clear();
 		try {
@@ -55,23 +78,62 @@ public class AccountWriter
 			while(line != null)
 			{
 				String[] tokens = line.split("\t");
-				accountTable.add(new Account(tokens[0], tokens[1], Integer.parseInt(tokens[2]), Double.parseDouble(tokens[3])));
+				if(holds.test(Integer.parseInt(tokens[2])))
+					accountTable.add(new Account(tokens[0], tokens[1], Integer.parseInt(tokens[2]), Double.parseDouble(tokens[3])));
 				line = reader.readLine();
 			}
 			
 			reader.close();
 			
-			File f = new File(fileName);
-			if(f.exists())
-				f.delete();
-			file = new RandomAccessFile(fileName, "rw");
-			buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, byteLength * accountTable.size());
-
+			openAccountFile();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
+	/**
+	 * Reads the number of every account in the input file "Accounts.txt", whichever database holds it.
+	 * @return the account numbers, in the order of the file.
+	 * @throws IOException if the input file could not be read.
+	 */
+	public static int[] readAccountNumbers() throws IOException
+	{
+		try(BufferedReader reader = new BufferedReader(new FileReader(new File("Accounts.txt"))))
+		{
+			return reader.lines().mapToInt(line -> Integer.parseInt(line.split("\t")[2])).toArray();
+		}
+	}
+	
+	/**
+	 * (Re)creates the output file and maps it into memory, sized for the accounts currently in the {@link AccountTable},
+	 * and writes every account into it.
+	 * @throws IOException if the output file could not be created or mapped.
+	 */
+	public void openAccountFile() throws IOException
+	{
+		File f = new File(fileName);
+		if(f.exists())
+			f.delete();
+		file = new RandomAccessFile(fileName, "rw");
+		buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, byteLength * accountTable.size());
+		
+		rows = new Account[accountTable.size()];
+		for(Account account : accountTable)
+			rows[account.getTableIndex()] = account;
+		
+		//Write every row up front, so an account never touched by a transfer still has its row
+		byte[][] formatted = new byte[rows.length][];
+		for(int i = 0; i < rows.length; ++i)
+		{
+			formatted[i] = formatAccount(rows[i]).getBytes();
+			buffer.put(i * byteLength, formatted[i]);
+		}
+		buffer.force();
+		
+		tree = new MerkleTree(rows.length);
+		tree.build(formatted);
+	}
+	
 	/**
 	 * Closes the stream to the memory mapped file to update accounts from.
 	 */
@@ -92,8 +154,39 @@ public class AccountWriter
 	public void writeAccount(Account acc)
 	{		
 		//Update the formatted account in the file at the designated position for this account
-		buffer.put(acc.getTableIndex()*byteLength, formatAccount(acc).getBytes());
+		byte[] row = formatAccount(acc).getBytes();
+		buffer.put(acc.getTableIndex()*byteLength, row);
 		buffer.force();
+		tree.update(acc.getTableIndex(), row);
+	}
+	
+	/**
+	 * @return the hash tree over the rows of the output file.
+	 */
+	public MerkleTree getTree()
+	{
+		return tree;
+	}
+	
+	/**
+	 * Finds the rows of this file that differ from the source file, and copies the source account's balance into each.
+	 * Both files must hold the same accounts in the same order, and neither database should be committing while repairing.
+	 * @param source the account file to repair from.
+	 * @return the accounts that differed, and were repaired.
+	 */
+	public Account[] repairFrom(AccountWriter source)
+	{
+		int[] differing = MerkleTree.diff(source.tree, tree);
+		Account[] ret = new Account[differing.length];
+		
+		for(int i = 0; i < differing.length; ++i)
+		{
+			ret[i] = rows[differing[i]];
+			accountTable.setBalance(ret[i], source.rows[differing[i]].getBalance());
+			writeAccount(ret[i]);
+		}
+		
+		return ret;
 	}
 	
 	//A helper function to simplify formatAccount.
@@ -105,7 +198,7 @@ public class AccountWriter
 	}
 	
 	//Formats the account information into a uniform length string for the file
-	private String formatAccount(Account acc)
+	String formatAccount(Account acc)
 	{
 		int fnDif = maxLengths[0] - acc.getFirstName().length();
 		int lnDif = maxLengths[1] - acc.getLastName().length();
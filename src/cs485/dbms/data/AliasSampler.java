@@ -0,0 +1,99 @@
+package cs485.dbms.data;
+
+import java.util.Random;
+
+/**
+ * Picks values by weight in constant time, using Vose's alias method.
+ * 
+ * Each of the n slots holds a value and an alias. A pick chooses a slot uniformly, then either its value or its alias
+ * by the slot's probability, so a pick costs two random numbers no matter how many values there are.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AliasSampler
+{
+	private final int[] values;
+	//The chance of slot i picking values[i] rather than values[alias[i]]
+	private final double[] probability;
+	private final int[] alias;
+	
+	/**
+	 * @param values the values to pick from.
+	 * @param weights the weight of each value, at least 0 and not all 0.
+	 * @throws IllegalArgumentException if the arrays aren't the same length, are empty, or the weights are invalid.
+	 */
+	public AliasSampler(int[] values, double[] weights)
+	{
+		int n = values.length;
+		if(n == 0 || weights.length != n)
+			throw new IllegalArgumentException("Every value needs a weight, and there must be at least one value.");
+		
+		double total = 0;
+		for(double weight : weights)
+		{
+			if(!(weight >= 0) || Double.isInfinite(weight))
+				throw new IllegalArgumentException("Weights must be finite and at least 0, got " + weight);
+			total += weight;
+		}
+		if(total <= 0)
+			throw new IllegalArgumentException("At least one weight must be above 0.");
+		
+		this.values = values.clone();
+		probability = new double[n];
+		alias = new int[n];
+		
+		//Scale so the average weight is 1, then pair each slot under 1 with one over 1 to fill it
+		double[] scaled = new double[n];
+		int[] small = new int[n], large = new int[n];
+		int smallCount = 0, largeCount = 0;
+		for(int i = 0; i < n; ++i)
+		{
+			scaled[i] = weights[i] * n / total;
+			if(scaled[i] < 1)
+				small[smallCount++] = i;
+			else
+				large[largeCount++] = i;
+		}
+		
+		while(smallCount > 0 && largeCount > 0)
+		{
+			int under = small[--smallCount], over = large[--largeCount];
+			probability[under] = scaled[under];
+			alias[under] = over;
+			
+			//The over slot gives what the under slot lacked
+			scaled[over] -= 1 - scaled[under];
+			if(scaled[over] < 1)
+				small[smallCount++] = over;
+			else
+				large[largeCount++] = over;
+		}
+		
+		//Whatever is left is 1, other than rounding error
+		while(largeCount > 0)
+			probability[large[--largeCount]] = 1;
+		while(smallCount > 0)
+			probability[small[--smallCount]] = 1;
+	}
+	
+	/**
+	 * @param rand the random number generator to pick with.
+	 * @return a value picked with a probability proportional to its weight.
+	 */
+	public int next(Random rand)
+	{
+		int slot = rand.nextInt(values.length);
+		return rand.nextDouble() < probability[slot] ? values[slot] : values[alias[slot]];
+	}
+	
+	/**
+	 * @return the number of values picked from.
+	 */
+	public int size()
+	{
+		return values.length;
+	}
+}
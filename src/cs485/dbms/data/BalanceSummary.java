@@ -0,0 +1,87 @@
+package cs485.dbms.data;
+
+/**
+ * The number of accounts and their total, min and max balance, of one partition of an {@link AccountTable} or of all of them.
+ * Balances are summed in whole cents, so the total is exact no matter how many transfers were made.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class BalanceSummary
+{
+	private final int count;
+	private final long totalCents;
+	//The min and max balance in cents, 0 if there are no accounts
+	private final long minCents, maxCents;
+	
+	BalanceSummary(int count, long totalCents, long minCents, long maxCents)
+	{
+		this.count = count;
+		this.totalCents = totalCents;
+		this.minCents = minCents;
+		this.maxCents = maxCents;
+	}
+	
+	/**
+	 * @param other the summary of other accounts.
+	 * @return the summary of the accounts of both summaries.
+	 */
+	BalanceSummary merge(BalanceSummary other)
+	{
+		if(count == 0)
+			return other;
+		if(other.count == 0)
+			return this;
+		
+		return new BalanceSummary(count + other.count, totalCents + other.totalCents,
+				Math.min(minCents, other.minCents), Math.max(maxCents, other.maxCents));
+	}
+	
+	/**
+	 * @return the number of accounts.
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @return the total balance of the accounts, in cents.
+	 */
+	public long getTotalCents()
+	{
+		return totalCents;
+	}
+	
+	/**
+	 * @return the total balance of the accounts.
+	 */
+	public double getTotal()
+	{
+		return totalCents / 100.0d;
+	}
+	
+	/**
+	 * @return the lowest balance of the accounts, or 0 if there are none.
+	 */
+	public double getMin()
+	{
+		return minCents / 100.0d;
+	}
+	
+	/**
+	 * @return the highest balance of the accounts, or 0 if there are none.
+	 */
+	public double getMax()
+	{
+		return maxCents / 100.0d;
+	}
+	
+	public String toString()
+	{
+		return count + " accounts, total " + String.format("%.2f", getTotal()) + ", min " + String.format("%.2f", getMin())
+			+ ", max " + String.format("%.2f", getMax());
+	}
+}
@@ -0,0 +1,158 @@
+package cs485.dbms.data;
+
+import java.util.ArrayList;
+
+/**
+ * A hash tree over the rows of an account file, updated as each row is written,
+ * so two files can be compared by their roots and their differing rows found in logarithmic time.
+ * 
+ * The tree is a complete binary tree in an array: node 1 is the root, node n has children 2n and 2n+1,
+ * and the leaves start at the first power of two at or above the row count. The padding past the last row hashes to 0.
+ * Hashes are 64 bit mixes meant to detect divergence, not tampering.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class MerkleTree
+{
+	private final int rowCount;
+	//The index of the first leaf, and the number of leaves
+	private final int leafStart;
+	//Every node's hash, guarded by this
+	private final long[] nodes;
+	
+	/**
+	 * @param rowCount the number of rows in the file.
+	 */
+	public MerkleTree(int rowCount)
+	{
+		this.rowCount = rowCount;
+		leafStart = rowCount <= 1 ? 1 : Integer.highestOneBit(rowCount - 1) << 1;
+		nodes = new long[leafStart * 2];
+	}
+	
+	/**
+	 * Sets the hash of every row at once, building the nodes above them bottom up.
+	 * @param rows the contents of each row.
+	 */
+	public synchronized void build(byte[][] rows)
+	{
+		for(int i = 0; i < rows.length; ++i)
+			nodes[leafStart + i] = hashRow(rows[i]);
+		
+		for(int node = leafStart - 1; node > 0; --node)
+			nodes[node] = hashChildren(nodes[node * 2], nodes[node * 2 + 1]);
+	}
+	
+	/**
+	 * Updates the hash of a row, and of every node above it.
+	 * @param row the index of the row.
+	 * @param bytes the contents of the row.
+	 */
+	public synchronized void update(int row, byte[] bytes)
+	{
+		int node = leafStart + row;
+		nodes[node] = hashRow(bytes);
+		
+		for(node >>>= 1; node > 0; node >>>= 1)
+			nodes[node] = hashChildren(nodes[node * 2], nodes[node * 2 + 1]);
+	}
+	
+	/**
+	 * @return the hash of every row, equal for two trees whose rows are all equal.
+	 */
+	public synchronized long getRoot()
+	{
+		return nodes[1];
+	}
+	
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+	
+	/**
+	 * Finds the rows that differ between two trees, descending only into subtrees whose hashes differ.
+	 * @param a a tree.
+	 * @param b a tree over the same number of rows.
+	 * @return the indexes of the differing rows, ascending.
+	 * @throws IllegalArgumentException if the trees aren't over the same number of rows.
+	 */
+	public static int[] diff(MerkleTree a, MerkleTree b)
+	{
+		if(a.rowCount != b.rowCount)
+			throw new IllegalArgumentException("Can't compare trees over " + a.rowCount + " and " + b.rowCount + " rows.");
+		
+		//Always locked in the same order, so two diffs of the same trees can't deadlock
+		MerkleTree first = System.identityHashCode(a) <= System.identityHashCode(b) ? a : b;
+		MerkleTree second = first == a ? b : a;
+		
+		synchronized(first)
+		{
+			synchronized(second)
+			{
+				ArrayList<Integer> rows = new ArrayList<Integer>();
+				if(a != b)
+					collectDiffering(a, b, 1, rows);
+				
+				int[] ret = new int[rows.size()];
+				for(int i = 0; i < ret.length; ++i)
+					ret[i] = rows.get(i);
+				return ret;
+			}
+		}
+	}
+	
+	//Left before right, so the rows come out ascending
+	private static void collectDiffering(MerkleTree a, MerkleTree b, int node, ArrayList<Integer> rows)
+	{
+		if(a.nodes[node] == b.nodes[node])
+			return;
+		
+		if(node >= a.leafStart)
+		{
+			rows.add(node - a.leafStart);
+			return;
+		}
+		
+		collectDiffering(a, b, node * 2, rows);
+		collectDiffering(a, b, node * 2 + 1, rows);
+	}
+	
+	//FNV-1a, then mixed so nearby rows don't give nearby hashes
+	private static long hashRow(byte[] bytes)
+	{
+		long hash = 0xCBF29CE484222325L;
+		for(byte b : bytes)
+		{
+			hash ^= b & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+		
+		//Never 0, which marks the padding
+		long ret = mix(hash);
+		return ret == 0 ? 1 : ret;
+	}
+	
+	//Order matters, so swapping two rows changes the hash
+	private static long hashChildren(long left, long right)
+	{
+		if(left == 0 && right == 0)
+			return 0;
+		
+		return mix(left ^ mix(right + 0x9E3779B97F4A7C15L));
+	}
+	
+	//The finalizer of MurmurHash3
+	private static long mix(long hash)
+	{
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,78 @@
+package cs485.dbms.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A secondary index of the accounts in an {@link AccountTable} by holder name, ignoring case.
+ * 
+ * Accounts are kept in a skip list ordered by last name, then first name, then account number,
+ * so one index answers both last name prefix lookups and last name with first name prefix lookups.
+ * The skip list is safe to read while accounts are added and removed, and commits never change a name.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+class NameIndex
+{
+	//Separates the parts of a key, sorting before any character of a name so "smith" comes before "smithe"
+	private static final char SEPARATOR = '\u0000';
+	//Sorts after any character of a name, ending a prefix range
+	private static final char END = Character.MAX_VALUE;
+	
+	private final ConcurrentSkipListMap<String, Account> accounts = new ConcurrentSkipListMap<String, Account>();
+	
+	private static String fold(String name)
+	{
+		return name.toLowerCase(Locale.ROOT);
+	}
+	
+	//The full key of the account, unique through the account number
+	private static String keyOf(Account account)
+	{
+		return fold(account.getLastName()) + SEPARATOR + fold(account.getFirstName()) + SEPARATOR + account.getAccountNumber();
+	}
+	
+	void add(Account account)
+	{
+		accounts.put(keyOf(account), account);
+	}
+	
+	void remove(Account account)
+	{
+		accounts.remove(keyOf(account));
+	}
+	
+	void clear()
+	{
+		accounts.clear();
+	}
+	
+	/**
+	 * @param lastNamePrefix the start of the last name, ignoring case.
+	 * @return every account with a last name starting with the prefix, ordered by last name then first name.
+	 */
+	List<Account> findByLastName(String lastNamePrefix)
+	{
+		return find(fold(lastNamePrefix));
+	}
+	
+	/**
+	 * @param lastName the whole last name, ignoring case.
+	 * @param firstNamePrefix the start of the first name, ignoring case.
+	 * @return every account with the last name and a first name starting with the prefix, ordered by first name.
+	 */
+	List<Account> findByName(String lastName, String firstNamePrefix)
+	{
+		return find(fold(lastName) + SEPARATOR + fold(firstNamePrefix));
+	}
+	
+	private List<Account> find(String keyPrefix)
+	{
+		return new ArrayList<Account>(accounts.subMap(keyPrefix, keyPrefix + END).values());
+	}
+}
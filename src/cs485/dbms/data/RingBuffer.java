@@ -0,0 +1,302 @@
+package cs485.dbms.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded multi-producer, multi-consumer queue over a preallocated ring of slots, handing items from any number of producer threads
+ * to any number of consumer threads without locking. It borrows the slot sequences of the LMAX Disruptor, but is a single queue
+ * rather than a pipeline of stages: every consumer takes items off the same cursor, and none follows behind another's.
+ * 
+ * Producers and consumers each advance their own sequence cursor, claiming positions by compare and set,
+ * and position p lives in slot p modulo the size of the ring. Each slot carries a sequence saying whose turn it is:
+ * p while free for the producer of p, p + 1 once that producer has published its item for the consumer of p,
+ * and p + size once consumed, freeing the slot for the producer a lap later. Slots are reused lap after lap,
+ * so handing over an item allocates nothing, and a consumer claims every published slot ahead of it,
+ * up to the size of its batch, with a single compare and set.
+ * 
+ * A consumer finding the ring empty, or a producer finding it full, spins and yields a while before blocking until signalled,
+ * so a busy ring hands items over within microseconds while an idle one costs no CPU.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RingBuffer<E>
+{
+	//The tries spent spinning, then yielding, before blocking while waiting on the other side
+	private static final int SPINS = 100, YIELDS = 10;
+	
+	private final int mask;
+	private final Object[] items;
+	//The turn of each slot, as described above
+	private final AtomicLongArray sequences;
+	//The next position for a producer to claim, and for a consumer to
+	private final AtomicLong producerCursor = new AtomicLong();
+	private final AtomicLong consumerCursor = new AtomicLong();
+	
+	//Only taken to block or to wake the blocked, which a busy ring never needs
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+	//The threads blocked on each condition, changed under the lock
+	private volatile int consumersWaiting = 0, producersWaiting = 0;
+	
+	/**
+	 * @param size the number of slots, a power of two.
+	 * @throws IllegalArgumentException if the size isn't a power of two of at least 2.
+	 */
+	public RingBuffer(int size)
+	{
+		if(size < 2 || Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("A ring's size must be a power of two of at least 2, got " + size);
+		
+		mask = size - 1;
+		items = new Object[size];
+		sequences = new AtomicLongArray(size);
+		for(int i = 0; i < size; ++i)
+			sequences.set(i, i);
+	}
+	
+	/**
+	 * Adds an item if a slot is free.
+	 * @param item the item to add.
+	 * @return true if added, false if the ring is full.
+	 */
+	public boolean offer(E item)
+	{
+		while(true)
+		{
+			long position = producerCursor.get();
+			int slot = (int) position & mask;
+			long sequence = sequences.get(slot);
+			
+			if(sequence == position)
+			{
+				if(producerCursor.compareAndSet(position, position + 1))
+				{
+					items[slot] = item;
+					//The volatile write publishes the item to the consumer of the position
+					sequences.set(slot, position + 1);
+					if(consumersWaiting > 0)
+						signal(notEmpty, false);
+					return true;
+				}
+			}
+			else if(sequence < position)
+			{
+				//Still holding the item of a lap ago
+				return false;
+			}
+			//Otherwise another producer claimed the position first, so try the next
+		}
+	}
+	
+	/**
+	 * Adds an item, waiting for a slot to be freed while the ring is full.
+	 * @param item the item to add.
+	 */
+	public void put(E item)
+	{
+		for(int tries = 0; !offer(item); ++tries)
+		{
+			if(tries < SPINS)
+			{
+				Thread.onSpinWait();
+				continue;
+			}
+			if(tries < SPINS + YIELDS)
+			{
+				Thread.yield();
+				continue;
+			}
+			
+			lock.lock();
+			try {
+				++producersWaiting;
+				//Checked again once counted as waiting, as a slot freed before then signalled no one
+				if(isFull())
+					notFull.awaitUninterruptibly();
+			} finally {
+				--producersWaiting;
+				lock.unlock();
+			}
+		}
+	}
+	
+	/**
+	 * Takes the item at the front of the ring.
+	 * @return the item, or null if the ring is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll()
+	{
+		while(true)
+		{
+			long position = consumerCursor.get();
+			int slot = (int) position & mask;
+			long sequence = sequences.get(slot);
+			
+			if(sequence == position + 1)
+			{
+				if(consumerCursor.compareAndSet(position, position + 1))
+				{
+					E ret = (E) items[slot];
+					release(slot, position);
+					if(producersWaiting > 0)
+						signal(notFull, true);
+					return ret;
+				}
+			}
+			else if(sequence < position + 1)
+			{
+				//Not published yet
+				return null;
+			}
+			//Otherwise another consumer took the position first, so try the next
+		}
+	}
+	
+	/**
+	 * Takes every published item at the front of the ring, up to as many as fit.
+	 * @param into the array to fill from index 0.
+	 * @return the number of items taken, 0 if the ring is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public int drain(E[] into)
+	{
+		while(true)
+		{
+			long position = consumerCursor.get();
+			int count = 0;
+			while(count < into.length && sequences.get((int) (position + count) & mask) == position + count + 1)
+				++count;
+			
+			if(count == 0)
+			{
+				if(sequences.get((int) position & mask) < position + 1)
+					return 0;
+				continue;
+			}
+			
+			//The slots counted stay published until consumed, so they are all this consumer's if the cursor hasn't moved
+			if(!consumerCursor.compareAndSet(position, position + count))
+				continue;
+			
+			for(int i = 0; i < count; ++i)
+			{
+				int slot = (int) (position + i) & mask;
+				into[i] = (E) items[slot];
+				release(slot, position + i);
+			}
+			
+			if(producersWaiting > 0)
+				signal(notFull, true);
+			return count;
+		}
+	}
+	
+	/**
+	 * Takes every published item at the front of the ring, up to as many as fit, waiting for one to be published while empty.
+	 * @param into the array to fill from index 0.
+	 * @param timeoutNanos the longest to wait.
+	 * @return the number of items taken, 0 if none was published in time, or if the thread was interrupted while waiting,
+	 * which leaves it interrupted.
+	 */
+	public int drain(E[] into, long timeoutNanos)
+	{
+		long deadline = System.nanoTime() + timeoutNanos;
+		for(int tries = 0; ; ++tries)
+		{
+			int ret = drain(into);
+			if(ret > 0)
+				return ret;
+			
+			long remaining = deadline - System.nanoTime();
+			if(remaining <= 0)
+				return 0;
+			
+			if(tries < SPINS)
+			{
+				Thread.onSpinWait();
+				continue;
+			}
+			if(tries < SPINS + YIELDS)
+			{
+				Thread.yield();
+				continue;
+			}
+			
+			lock.lock();
+			try {
+				++consumersWaiting;
+				//Checked again once counted as waiting, as an item published before then signalled no one
+				if(isEmpty())
+					notEmpty.awaitNanos(remaining);
+			} catch (InterruptedException e) {
+				//Left for the owner of the thread to act on, as waiting again would only be interrupted again
+				Thread.currentThread().interrupt();
+				return drain(into);
+			} finally {
+				--consumersWaiting;
+				lock.unlock();
+			}
+		}
+	}
+	
+	//Empties a consumed slot and frees it for the producer a lap later
+	private void release(int slot, long position)
+	{
+		items[slot] = null;
+		sequences.set(slot, position + mask + 1);
+	}
+	
+	private void signal(Condition condition, boolean all)
+	{
+		lock.lock();
+		try {
+			if(all)
+				condition.signalAll();
+			else
+				condition.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * @return true if no item is published at the front of the ring.
+	 */
+	public boolean isEmpty()
+	{
+		long position = consumerCursor.get();
+		return sequences.get((int) position & mask) < position + 1;
+	}
+	
+	//True if the slot of the next position to produce still holds an item
+	private boolean isFull()
+	{
+		long position = producerCursor.get();
+		return sequences.get((int) position & mask) < position;
+	}
+	
+	/**
+	 * @return the number of items claimed by producers and not yet taken by consumers.
+	 */
+	public int size()
+	{
+		long ret = producerCursor.get() - consumerCursor.get();
+		return (int) Math.max(0, Math.min(ret, mask + 1));
+	}
+	
+	/**
+	 * @return the number of slots.
+	 */
+	public int capacity()
+	{
+		return mask + 1;
+	}
+}
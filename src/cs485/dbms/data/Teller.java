@@ -1,14 +1,27 @@
 package cs485.dbms.data;
 
-import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
 
-import cs485.dbms.DBProcessThread;
 import cs485.dbms.DatabaseMS;
+import cs485.dbms.ReadRouter;
+import cs485.dbms.TellerClient;
+import cs485.dbms.Transaction;
+import cs485.dbms.load.AccountSelector;
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.load.LoadGenerator;
+import cs485.dbms.load.LoadGenerator.PendingTransaction;
 import cs485.dbms.main.DebugLog.DebugLevel;
 import cs485.dbms.main.Main;
 
 /**
- * The class that sends randomly generated requests to the databaseMS.
+ * The class that sends randomly generated requests to the databaseMS, as configured by its {@link LoadGenerator}.
+ * 
+ * In a closed loop a teller keeps a window of transactions in flight, waiting for any of them to complete before sending the next one.
+ * In an open loop it sends on a schedule of exponentially distributed gaps matching its share of the arrival rate,
+ * regardless of how many of its transactions are still in progress.
+ * A configured share of its requests are balance inquiries instead, answered before the teller moves on.
  * 
  * @author Ashton Schultz
  * @instructor Prof. Mark Funk
@@ -16,25 +29,35 @@ import cs485.dbms.main.Main;
  * @date 3.30.2021
  */
 public class Teller extends Thread
-{	
-	public static final int MAX_REQUESTS = 100;
-	//a reference to the account numbers 
-	private LinkedList<Integer> accountIDs;
-	
+{
 	//The database this teller is tied to.
 	private DatabaseMS database;
-
-	public DBProcessThread processor;
+	//The load generator this teller is sending for
+	private final LoadGenerator generator;
+	private final LoadConfig config;
 	
-	public Teller(DatabaseMS databaseMS, int id)
+	//The number of transactions to send, if the run isn't timed
+	private final int requestCount;
+	//This teller's own seeded random number generator, so each teller's workload is reproducible
+	private final Random rand;
+	//The highest request # of this teller's committed transactions, the token its balance inquiries read their own writes with
+	private final ReadRouter.Session session = new ReadRouter.Session();
+	
+	public Teller(DatabaseMS databaseMS, LoadGenerator generator, int id, int requestCount)
 	{
 		super("Bank Teller " + id);
 		database = databaseMS;
+		this.generator = generator;
+		this.config = generator.getConfig();
+		this.requestCount = requestCount;
+		
+		//Spread the seed, as java.util.Random streams from adjacent seeds are correlated
+		rand = new Random(config.getSeed() ^ (0x9E3779B97F4A7C15L * (id + 1)));
 	}
 	
 	public void run()
 	{
-		//Wait until the database has been initialized and the processor is connected.
+		//Wait until the database has been initialized.
 		while(!database.isDatabaseInitialized())
 		{
 			try {
@@ -44,90 +67,89 @@ public class Teller extends Thread
 			}
 		}
 		
-		//Attempt to initialize local list of account ids
-		accountIDs = database.getAccountTable().getKeySet();
-		
-		//As long as the accounts have not been initialized,
-		while(accountIDs.size() == 0)
-		{
-			//keep checking for the ids to get filled.
-			accountIDs = database.getAccountTable().getKeySet();
-			try {
-				sleep(5);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
-		
-		//Notify that transactions are going to begin 
+		//Notify that transactions are going to begin
 		Main.log.print(DebugLevel.NONE, "[" + this.getName() + "] is beginning to send requests.");
 		
-		//For 100 requests,
-		for(int i = 0; i < MAX_REQUESTS; ++i)
+		AccountSelector selector = generator.getSelector();
+		//Null unless sending over the network
+		TellerClient.Connection connection = generator.openConnection();
+		long deadline = generator.getStartTime() + config.getDurationSeconds() * 1000000000L;
+		//The mean gap between this teller's transactions in an open loop
+		double meanGap = config.isOpenLoop() ? 1000000000.0d * config.getTellers() / config.getArrivalRate() : 0;
+		long nextStart = generator.getStartTime();
+		//A permit per transaction that may still be sent in a closed loop
+		Semaphore window = new Semaphore(config.getWindow());
+		
+		for(int i = 0; config.isTimed() || i < requestCount; ++i)
 		{
+			if(config.isOpenLoop())
+			{
+				//Exponential gaps give a poisson arrival process
+				nextStart += (long) (-Math.log(1.0d - rand.nextDouble()) * meanGap);
+				
+				if(config.isTimed() && nextStart >= deadline)
+					break;
+				
+				//Sleep until the scheduled time, if not already behind schedule
+				for(long wait = nextStart - System.nanoTime(); wait > 0; wait = nextStart - System.nanoTime())
+					LockSupport.parkNanos(wait);
+			}
+			else
+			{
+				//Wait for room in the window, before the transaction's latency starts counting
+				window.acquireUninterruptibly();
+				nextStart = System.nanoTime();
+				
+				if(config.isTimed() && nextStart >= deadline)
+					break;
+			}
+			
+			//Only drawn for if inquiries are configured, so a run without them sends the same transactions as before
+			if(config.getReads() > 0 && rand.nextDouble() < config.getReads())
+			{
+				int account = selector.next(rand);
+				double balance = generator.read(account, session.getToken(), nextStart, connection);
+				Main.log.print(DebugLevel.NONE, "[{}] Read account #{}, balance {}", getName(), account, balance);
+				
+				if(!config.isOpenLoop())
+					window.release();
+				continue;
+			}
+			
 			//Increase the request number
 			int curReq = database.incrementRequestNumber();
-			database.addRequest("<BEGIN " + curReq + ">");
 			
-			//Create the updates for this request
-			for(int l = 0; l < Main.rand.nextInt(5) + 1; ++l)
+			//Create the transfers for this request
+			int transfers = config.getMinTransfers() + rand.nextInt(config.getMaxTransfers() - config.getMinTransfers() + 1);
+			int[] sources = new int[transfers], targets = new int[transfers];
+			double[] amounts = new double[transfers];
+			for(int l = 0; l < transfers; ++l)
 			{
-				int source = accountIDs.get(Main.rand.nextInt(accountIDs.size()));
-				int target = accountIDs.get(Main.rand.nextInt(accountIDs.size()));
-				
+				sources[l] = selector.next(rand);
 				//Keep reselecting the target if it is the same as the source
-				while(target == source)
-				{
-					target = accountIDs.get(Main.rand.nextInt(accountIDs.size()));
-				}
+				targets[l] = selector.next(rand, sources[l]);
 				
-				//Determine an amount and send it to the processor.
-				double transferAmount = Main.rand.nextDouble() * 1000.0d;
-				database.addRequest("<UPDATE " + curReq + ">" + source + "," + target + "," + String.format("%.2f", transferAmount));
+				//Determine an amount, in whole cents
+				amounts[l] = Math.round(rand.nextDouble() * 100000.0d) / 100.0d;
 			}
 			
-			//Send the commit,
-			database.addRequest("<COMMIT " + curReq + ">");
+			//Send the whole transaction to the processors,
+			PendingTransaction transaction = generator.submit(new Transaction(curReq, sources, targets, amounts), nextStart, connection);
 			//Notify the console of a request being sent,
-			Main.log.print(DebugLevel.NONE, "[" + this.getName() + "] Sent request #" + curReq);
-			processor.interrupt();
-			
-			//The flag for the found, correct commit tag.
-			boolean found = false;
+			Main.log.print(DebugLevel.NONE, "[{}] Sent request #{}", getName(), curReq);
 			
-			//Wait until the right commit tag is found before continuing
-			while(!found)
+			//Free the transaction's place in the window once it completes, in whatever order it does
+			transaction.whenComplete(() ->
 			{
-				String response = database.getResponses().poll();
-				
-				if(response == null)
-				{
-					try {
-						sleep(100);
-					} catch (InterruptedException e) {}
-
-					continue;
-				}
-				
-				//If the number in the message matches the current request this teller sent, move forward.
-				if(response.startsWith("<COMPLETE ") && Integer.parseInt(response.substring(10, response.indexOf(">"))) == curReq)
-				{
-					//Exit the loop
-					found = true;
-				}
-				else //Otherwise this is the incorrect complete message, rotate responses.
-				{
-					database.getResponses().add(response);
-				}
-			}
+				if(transaction.isCommitted())
+					session.committed(transaction.getRequestNumber());
+				if(!config.isOpenLoop())
+					window.release();
+			});
 		}
 		
-		//This signifies to the database that requests are finished! This is only called by the last teller to finish
-		if(database.getRequestNumber() == 399)
-		{
-			//Incrementing it one more changes the flag in database.isRequestsFinished() for the processors to close and the main thread to close.
-			database.incrementRequestNumber();
-		}
+		//This signifies to the load generator that this teller is done sending
+		generator.tellerFinished();
 		
 		//Wait for the database to finish (this is for tellers that finish before the last teller)
 		while(!DatabaseMS.getInstance().isRequestsFinished())
@@ -0,0 +1,85 @@
+package cs485.dbms.load;
+
+import java.util.Random;
+
+import cs485.dbms.data.AliasSampler;
+
+/**
+ * Picks account numbers for transfers, either uniformly or with a zipfian skew towards a set of hot accounts.
+ * 
+ * Which accounts are hot is decided by shuffling the accounts with the run's seed, so the hot set is the same
+ * for every teller and every run with the same seed, but isn't just the lowest account numbers.
+ * Skewed picks use an {@link AliasSampler}, so a pick takes constant time however many accounts there are.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AccountSelector 
+{
+	//The accounts, ordered from hottest to coldest
+	private final int[] accounts;
+	//Picks by rank, null when picking uniformly
+	private final AliasSampler sampler;
+	
+	/**
+	 * @param accountNumbers the accounts to pick from
+	 * @param skew the zipfian exponent, 0 picks uniformly
+	 * @param seed the seed deciding which accounts are hot
+	 */
+	public AccountSelector(int[] accountNumbers, double skew, long seed)
+	{
+		accounts = accountNumbers.clone();
+		
+		//Fisher-Yates shuffle, so the hot accounts don't depend on the file order
+		Random rand = new Random(seed);
+		for(int i = accounts.length - 1; i > 0; --i)
+		{
+			int j = rand.nextInt(i + 1);
+			int temp = accounts[i];
+			accounts[i] = accounts[j];
+			accounts[j] = temp;
+		}
+		
+		if(skew > 0)
+		{
+			//Rank r (from 1) is picked with a probability proportional to 1/r^skew
+			double[] weights = new double[accounts.length];
+			for(int i = 0; i < accounts.length; ++i)
+				weights[i] = 1.0d / Math.pow(i + 1, skew);
+			
+			sampler = new AliasSampler(accounts, weights);
+		}
+		else
+			sampler = null;
+	}
+	
+	/**
+	 * @param rand the random number generator of the calling teller
+	 * @return a randomly picked account number
+	 */
+	public int next(Random rand)
+	{
+		if(sampler == null)
+			return accounts[rand.nextInt(accounts.length)];
+		
+		return sampler.next(rand);
+	}
+	
+	/**
+	 * Picks an account other than the given one.
+	 * @param rand the random number generator of the calling teller
+	 * @param exclude the account number to not return
+	 * @return a randomly picked account number that isn't exclude
+	 */
+	public int next(Random rand, int exclude)
+	{
+		int account = next(rand);
+		
+		while(account == exclude && accounts.length > 1)
+			account = next(rand);
+		
+		return account;
+	}
+}
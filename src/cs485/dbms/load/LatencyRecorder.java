@@ -0,0 +1,77 @@
+package cs485.dbms.load;
+
+import java.util.Arrays;
+
+/**
+ * Records the latency of each completed transaction, and summarizes them into percentiles at the end of a run.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LatencyRecorder 
+{
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	
+	private long[] latencies = new long[1024];
+	private int count = 0;
+	
+	/**
+	 * Records the latency of a single transaction.
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public synchronized void record(long nanos)
+	{
+		if(count == latencies.length)
+			latencies = Arrays.copyOf(latencies, count * 2);
+		
+		latencies[count++] = nanos;
+	}
+	
+	public synchronized int getCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @param percentile the percentile to retrieve, from 0 to 100
+	 * @return the latency in nanoseconds at the given percentile, or 0 if nothing was recorded.
+	 */
+	public synchronized long getPercentile(double percentile)
+	{
+		if(count == 0)
+			return 0;
+		
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return percentile(sorted, percentile);
+	}
+	
+	/**
+	 * @return the recorded latencies summarized as percentiles in milliseconds.
+	 */
+	public synchronized String summarize()
+	{
+		if(count == 0)
+			return "no transactions completed";
+		
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		
+		String ret = "latency ms";
+		for(double percentile : PERCENTILES)
+		{
+			ret += " p" + (percentile == (int) percentile ? "" + (int) percentile : "" + percentile) + "=" + String.format("%.2f", percentile(sorted, percentile) / 1000000.0d);
+		}
+		
+		return ret + " max=" + String.format("%.2f", sorted[count - 1] / 1000000.0d);
+	}
+	
+	//Nearest-rank percentile of an already sorted, non-empty array
+	private static long percentile(long[] sorted, double percentile)
+	{
+		int index = (int) Math.ceil(percentile / 100.0d * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+}
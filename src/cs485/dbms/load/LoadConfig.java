@@ -0,0 +1,380 @@
+package cs485.dbms.load;
+
+import java.net.InetSocketAddress;
+
+import cs485.dbms.ReadRouter.Consistency;
+
+/**
+ * The settings of a load generator run, parsed from the command line arguments given to Main.
+ * 
+ * Arguments are given as "--name=value":
+ *  --tellers=4          number of teller threads sending transactions
+ *  --processors=4       number of processing threads within the primary database
+ *  --transactions=400   total number of transactions to send, split across the tellers
+ *  --duration=0         if above 0, tellers send for this many seconds instead of a fixed count
+ *  --rate=0             target arrival rate in transactions per second across all tellers (open loop),
+ *                       0 has each teller wait on its previous transaction before sending the next (closed loop)
+ *  --window=1           number of transactions each teller keeps in flight in a closed loop, sending the next as any completes
+ *  --skew=0             zipfian exponent for picking accounts, 0 is uniform and ~1 concentrates on few hot accounts
+ *  --transfers=1-5      the range of transfers per transaction
+ *  --reads=0            the fraction of requests the tellers send as balance inquiries of one account instead of transactions
+ *  --readConsistency=primary
+ *                       which databases serve balance inquiries: the primary only, bounded to a backup in this process within
+ *                       --staleness commits of the primary, or session to a backup that has committed the teller's last transaction
+ *  --staleness=100      the most commits a backup may be behind the primary to serve a bounded inquiry
+ *  --seed=n             the seed for every random choice, picked and reported if not given
+ *  --lockReport=0       if above 0, log the most contended locks of the primary database every this many seconds
+ *  --nameIndex=false    if true, index the accounts of each database by holder name
+ *  --replicas=1         number of backup databases the primary replicates to within this process
+ *  --remoteReplicas=    comma separated host:port of backup databases in other processes, each a running ReplicaServer
+ *  --quorum=0           number of backups (of either kind) that must commit a transaction before the primary does, 0 for a majority
+ *  --serverPort=0       if above 0, the primary serves tellers over the network on this port, and the tellers connect to it over localhost
+ *  --serverThreads=2    number of selector threads serving teller connections
+ *  --maxFrame=1048576   the longest frame in bytes the teller server and a replica accept, closing a connection sending a longer one
+ *  --ring=0             if above 0, each database hands requests to its processing threads through a preallocated ring
+ *                       of this many slots, a power of two, instead of a locked queue. A full ring holds up whoever submits
+ *                       in this process, and stops the connection of a teller or primary submitting over the network being read.
+ *                       The processing threads also hand their commits to journaling and response threads through another ring this size
+ *  --shards=            comma separated host:port of the other shards, each a running ShardServer, with accounts hashed across
+ *                       the shards by number. This process's primary is shard 0, and the tellers send through a ShardRouter
+ *  --shard=0            the shard this process holds, given to each ShardServer and its replicas
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LoadConfig 
+{
+	private int tellers = 4;
+	private int processors = 4;
+	private int transactions = 400;
+	private int durationSeconds = 0;
+	private double arrivalRate = 0;
+	private int window = 1;
+	private double skew = 0;
+	private int minTransfers = 1, maxTransfers = 5;
+	private double reads = 0;
+	private Consistency readConsistency = Consistency.PRIMARY;
+	private int staleness = 100;
+	private long seed = System.nanoTime();
+	private int lockReportSeconds = 0;
+	private boolean nameIndex = false;
+	private int replicas = 1;
+	private InetSocketAddress[] remoteReplicas = new InetSocketAddress[0];
+	private int quorum = 0;
+	private int serverPort = 0;
+	private int serverThreads = 2;
+	private int maxFrame = 1 << 20;
+	private int ring = 0;
+	private InetSocketAddress[] shards = new InetSocketAddress[0];
+	private int shard = 0;
+	
+	/**
+	 * Parses the given arguments into a config, leaving the defaults for any setting not given.
+	 * @param args arguments of the form "--name=value"
+	 * @return the parsed config
+	 * @throws IllegalArgumentException if an argument is unknown or its value is invalid
+	 */
+	public static LoadConfig parse(String[] args)
+	{
+		LoadConfig config = new LoadConfig();
+		
+		for(String arg : args)
+		{
+			if(!arg.startsWith("--") || arg.indexOf("=") < 0)
+				throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+			
+			String name = arg.substring(2, arg.indexOf("="));
+			String value = arg.substring(arg.indexOf("=") + 1);
+			
+			switch(name)
+			{
+				case "tellers": config.tellers = Integer.parseInt(value); break;
+				case "processors": config.processors = Integer.parseInt(value); break;
+				case "transactions": config.transactions = Integer.parseInt(value); break;
+				case "duration": config.durationSeconds = Integer.parseInt(value); break;
+				case "rate": config.arrivalRate = Double.parseDouble(value); break;
+				case "window": config.window = Integer.parseInt(value); break;
+				case "skew": config.skew = Double.parseDouble(value); break;
+				case "reads": config.reads = Double.parseDouble(value); break;
+				case "readConsistency": config.readConsistency = Consistency.valueOf(value.toUpperCase()); break;
+				case "staleness": config.staleness = Integer.parseInt(value); break;
+				case "seed": config.seed = Long.parseLong(value); break;
+				case "lockReport": config.lockReportSeconds = Integer.parseInt(value); break;
+				case "nameIndex": config.nameIndex = Boolean.parseBoolean(value); break;
+				case "replicas": config.replicas = Integer.parseInt(value); break;
+				case "quorum": config.quorum = Integer.parseInt(value); break;
+				case "serverPort": config.serverPort = Integer.parseInt(value); break;
+				case "serverThreads": config.serverThreads = Integer.parseInt(value); break;
+				case "maxFrame": config.maxFrame = Integer.parseInt(value); break;
+				case "ring": config.ring = Integer.parseInt(value); break;
+				case "remoteReplicas": config.remoteReplicas = parseAddresses(value); break;
+				case "shards": config.shards = parseAddresses(value); break;
+				case "shard": config.shard = Integer.parseInt(value); break;
+				case "transfers":
+				{
+					//Either a single count, or a "min-max" range
+					String[] range = value.split("-");
+					config.minTransfers = Integer.parseInt(range[0]);
+					config.maxTransfers = Integer.parseInt(range[range.length - 1]);
+					break;
+				}
+				default: throw new IllegalArgumentException("Unknown argument '" + arg + "'");
+			}
+		}
+		
+		if(config.tellers < 1 || config.processors < 1 || config.minTransfers < 1 || config.maxTransfers < config.minTransfers
+				|| config.transactions < 0 || config.lockReportSeconds < 0 || config.durationSeconds < 0 || config.arrivalRate < 0 || config.window < 1 || config.skew < 0
+				|| config.reads < 0 || config.reads > 1 || config.staleness < 0
+				|| config.replicas < 0 || config.replicas + config.remoteReplicas.length < 1 || config.quorum < 0 
+				|| config.quorum > config.replicas + config.remoteReplicas.length || config.serverPort < 0 || config.serverThreads < 1
+				//At least the frames of 64 KiB that transactions and responses are batched into
+				|| config.maxFrame < 1 << 16
+				|| config.ring < 0 || config.ring == 1 || Integer.bitCount(config.ring) > 1
+				|| config.shard < 0 || config.shard > config.shards.length || (config.isSharded() && config.isNetworked()))
+			throw new IllegalArgumentException("Invalid load generator settings: " + config);
+		
+		return config;
+	}
+	
+	//Parses a comma separated list of host:port
+	private static InetSocketAddress[] parseAddresses(String value)
+	{
+		String[] addresses = value.isEmpty() ? new String[0] : value.split(",");
+		InetSocketAddress[] ret = new InetSocketAddress[addresses.length];
+		for(int i = 0; i < addresses.length; ++i)
+		{
+			int colon = addresses[i].lastIndexOf(':');
+			if(colon < 0)
+				throw new IllegalArgumentException("Expected host:port, got '" + addresses[i] + "'");
+			ret[i] = new InetSocketAddress(addresses[i].substring(0, colon), Integer.parseInt(addresses[i].substring(colon + 1)));
+		}
+		
+		return ret;
+	}
+	
+	public int getTellers()
+	{
+		return tellers;
+	}
+	
+	public int getProcessors()
+	{
+		return processors;
+	}
+	
+	/**
+	 * @return the total number of transactions to send, only used if {@link #isTimed()} is false.
+	 */
+	public int getTransactions()
+	{
+		return transactions;
+	}
+	
+	public int getDurationSeconds()
+	{
+		return durationSeconds;
+	}
+	
+	/**
+	 * @return true if tellers send for a set duration, false if they send a set number of transactions.
+	 */
+	public boolean isTimed()
+	{
+		return durationSeconds > 0;
+	}
+	
+	/**
+	 * @return the target arrival rate across all tellers in transactions per second, or 0 for a closed loop.
+	 */
+	public double getArrivalRate()
+	{
+		return arrivalRate;
+	}
+	
+	public boolean isOpenLoop()
+	{
+		return arrivalRate > 0;
+	}
+	
+	/**
+	 * @return the number of transactions each teller keeps in flight in a closed loop.
+	 */
+	public int getWindow()
+	{
+		return window;
+	}
+	
+	public double getSkew()
+	{
+		return skew;
+	}
+	
+	public int getMinTransfers()
+	{
+		return minTransfers;
+	}
+	
+	public int getMaxTransfers()
+	{
+		return maxTransfers;
+	}
+	
+	/**
+	 * @return the fraction of requests sent as balance inquiries, from 0 to 1.
+	 */
+	public double getReads()
+	{
+		return reads;
+	}
+	
+	/**
+	 * @return which databases serve balance inquiries.
+	 */
+	public Consistency getReadConsistency()
+	{
+		return readConsistency;
+	}
+	
+	/**
+	 * @return the most commits a backup may be behind the primary to serve a balance inquiry, for {@link Consistency#BOUNDED}.
+	 */
+	public int getStaleness()
+	{
+		return staleness;
+	}
+	
+	public long getSeed()
+	{
+		return seed;
+	}
+	
+	/**
+	 * @return the seconds between lock contention reports, or 0 if not reporting.
+	 */
+	public int getLockReportSeconds()
+	{
+		return lockReportSeconds;
+	}
+	
+	/**
+	 * @return true if the accounts are indexed by holder name.
+	 */
+	public boolean isNameIndexed()
+	{
+		return nameIndex;
+	}
+	
+	/**
+	 * @return the number of backup databases the primary replicates to.
+	 */
+	public int getReplicas()
+	{
+		return replicas;
+	}
+	
+	/**
+	 * @return the addresses of the backup databases in other processes.
+	 */
+	public InetSocketAddress[] getRemoteReplicas()
+	{
+		return remoteReplicas.clone();
+	}
+	
+	/**
+	 * @return the number of backups, in this process or another, that must commit a transaction before the primary does.
+	 */
+	public int getQuorum()
+	{
+		return quorum > 0 ? quorum : (replicas + remoteReplicas.length) / 2 + 1;
+	}
+	
+	/**
+	 * @return the port the primary serves tellers on, or 0 if the tellers call it directly.
+	 */
+	public int getServerPort()
+	{
+		return serverPort;
+	}
+	
+	/**
+	 * @return true if the tellers connect to the primary over the network.
+	 */
+	public boolean isNetworked()
+	{
+		return serverPort > 0;
+	}
+	
+	public int getServerThreads()
+	{
+		return serverThreads;
+	}
+	
+	/**
+	 * @return the longest frame in bytes the teller server and a replica accept from a connection.
+	 */
+	public int getMaxFrame()
+	{
+		return maxFrame;
+	}
+	
+	/**
+	 * @return the number of slots in the rings of each database's requests and commits, or 0 to queue requests in a locked list
+	 * and have the processing threads log and answer their own commits.
+	 */
+	public int getRing()
+	{
+		return ring;
+	}
+	
+	/**
+	 * @return the addresses of the shards in other processes, shard 1 first.
+	 */
+	public InetSocketAddress[] getShards()
+	{
+		return shards.clone();
+	}
+	
+	/**
+	 * @return the shard the databases of this process hold, 0 for the primary of the tellers' process.
+	 */
+	public int getShard()
+	{
+		return shard;
+	}
+	
+	/**
+	 * @return the number of shards the accounts are hashed across, 1 if not sharded.
+	 */
+	public int getShardCount()
+	{
+		return shards.length + 1;
+	}
+	
+	/**
+	 * @return true if the accounts are hashed across more than one shard.
+	 */
+	public boolean isSharded()
+	{
+		return shards.length > 0;
+	}
+	
+	/**
+	 * @param accountNumber the number of an account.
+	 * @return the shard holding the account.
+	 */
+	public int shardOf(int accountNumber)
+	{
+		return Math.floorMod(accountNumber, shards.length + 1);
+	}
+	
+	public String toString()
+	{
+		return "tellers=" + tellers + ", processors=" + processors + ", " + (isTimed() ? "duration=" + durationSeconds + "s" : "transactions=" + transactions) 
+			+ ", rate=" + (isOpenLoop() ? arrivalRate + "/s" : "closed loop" + (window > 1 ? " (window " + window + ")" : "")) + ", skew=" + skew + ", transfers=" + minTransfers + "-" + maxTransfers + ", seed=" + seed
+			+ (reads > 0 ? ", reads=" + reads + " (" + readConsistency.toString().toLowerCase() + (readConsistency == Consistency.BOUNDED ? " " + staleness : "") + ")" : "")
+			+ ", replicas=" + replicas + (remoteReplicas.length > 0 ? " + " + remoteReplicas.length + " remote" : "") + " (quorum " + getQuorum() + ")"
+			+ (isNetworked() ? ", serverPort=" + serverPort : "") + (ring > 0 ? ", ring=" + ring : "") + (isSharded() ? ", shard " + shard + " of " + getShardCount() : "");
+	}
+}
@@ -0,0 +1,363 @@
+package cs485.dbms.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import cs485.dbms.DatabaseMS;
+import cs485.dbms.ReadRouter;
+import cs485.dbms.ShardRouter;
+import cs485.dbms.TellerClient;
+import cs485.dbms.Transaction;
+import cs485.dbms.data.AccountWriter;
+import cs485.dbms.data.Teller;
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Drives a configurable workload against the primary database using {@link Teller} threads,
+ * and reports the throughput and latency percentiles of the run once every transaction completed.
+ * 
+ * Latency is measured from when a transaction was scheduled to be sent, rather than when it was actually sent,
+ * so an open loop run that falls behind its arrival rate reports the queueing delay it caused.
+ * 
+ * If the primary serves tellers over the network, each teller sends over its own connection of a shared {@link TellerClient}.
+ * If the accounts are sharded, the tellers pick from the accounts of every shard and send through a {@link ShardRouter}.
+ * Balance inquiries are read through the {@link ReadRouter}, or from the primary holding the account if over the network or sharded.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LoadGenerator extends Thread
+{
+	private final DatabaseMS database;
+	private final LoadConfig config;
+	
+	private final Teller[] tellers;
+	private AccountSelector selector;
+	//The connections of the tellers, null if they call the database directly
+	private TellerClient client;
+	//The router to the shards, null if not sharded
+	private ShardRouter router;
+	
+	private final LatencyRecorder latencies = new LatencyRecorder();
+	private final LatencyRecorder readLatencies = new LatencyRecorder();
+	
+	private int tellersFinished = 0;
+	private int submitted = 0;
+	private long startTime, endTime;
+	private boolean finished = false;
+	
+	public LoadGenerator(DatabaseMS databaseMS, LoadConfig config)
+	{
+		super("Load Generator");
+		this.database = databaseMS;
+		this.config = config;
+		
+		tellers = new Teller[config.getTellers()];
+		
+		//A fixed count is known up front, a timed run only knows its total once the tellers stop.
+		//As does a sharded run, as only the transactions routed to this shard are sent to it, and one with balance inquiries
+		if(!config.isTimed() && !config.isSharded() && config.getReads() == 0)
+			database.setRequestTotal(config.getTransactions());
+	}
+	
+	/**
+	 * Starts the tellers, and waits until every sent transaction has completed.
+	 */
+	public void run()
+	{
+		//Wait until the database has been initialized
+		while(!database.isDatabaseInitialized()) try{ sleep(100); } catch(InterruptedException e) {}
+		
+		//Sorted, so the shuffle deciding the hot accounts doesn't depend on the order they were loaded
+		int[] accountIDs;
+		try {
+			accountIDs = config.isSharded() ? AccountWriter.readAccountNumbers() : database.getAccountTable().getAccountKeys().snapshot();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read the accounts of every shard", e);
+		}
+		Arrays.sort(accountIDs);
+		selector = new AccountSelector(accountIDs, config.getSkew(), config.getSeed());
+		
+		if(config.isSharded())
+		{
+			try {
+				router = new ShardRouter(database, config);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to reach the shards", e);
+			}
+		}
+		
+		if(config.isNetworked())
+		{
+			try {
+				client = new TellerClient();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to start the teller client", e);
+			}
+		}
+		
+		Main.log.print(DebugLevel.NONE, "[" + getName() + "] Starting run with " + config);
+		startTime = System.nanoTime();
+		
+		for(int i = 0; i < tellers.length; ++i)
+		{
+			int count = config.getTransactions() / tellers.length + (i < config.getTransactions() % tellers.length ? 1 : 0);
+			tellers[i] = new Teller(database, this, i, count);
+			tellers[i].start();
+		}
+		
+		synchronized(this)
+		{
+			while(!isRunFinished())
+			{
+				try { wait(); } catch(InterruptedException e) {}
+			}
+		}
+		
+		endTime = System.nanoTime();
+		if(client != null)
+			client.close();
+		if(router != null)
+			router.close();
+		Main.log.print(DebugLevel.PERCENT, "[" + getName() + "] " + getReport());
+		
+		synchronized(this)
+		{
+			finished = true;
+			notifyAll();
+		}
+	}
+	
+	//True once every teller stopped sending and every sent transaction completed
+	private synchronized boolean isRunFinished()
+	{
+		return tellersFinished == tellers.length && latencies.getCount() >= submitted;
+	}
+	
+	/**
+	 * @return the configuration of this run.
+	 */
+	public LoadConfig getConfig()
+	{
+		return config;
+	}
+	
+	/**
+	 * @return the selector tellers pick their accounts with.
+	 */
+	public AccountSelector getSelector()
+	{
+		return selector;
+	}
+	
+	/**
+	 * @return the System.nanoTime() at which the tellers started sending.
+	 */
+	public long getStartTime()
+	{
+		return startTime;
+	}
+	
+	/**
+	 * Opens a teller's connection to the primary, if tellers send over the network.
+	 * @return the connection, or null if tellers call the database directly.
+	 * @throws UncheckedIOException if the primary could not be connected to.
+	 */
+	public TellerClient.Connection openConnection()
+	{
+		if(client == null)
+			return null;
+		
+		try {
+			return client.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getServerPort()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to connect to the primary on port " + config.getServerPort(), e);
+		}
+	}
+	
+	/**
+	 * Submits a transaction to the database, timing it until it completes.
+	 * @param transaction the transaction to send
+	 * @param intendedStart the System.nanoTime() the transaction was scheduled to be sent at
+	 * @param connection the teller's connection to send over, from {@link #openConnection()}, or null to call the database directly
+	 * @return the pending transaction, which can be waited on with {@link PendingTransaction#await()}
+	 */
+	public PendingTransaction submit(Transaction transaction, long intendedStart, TellerClient.Connection connection)
+	{
+		PendingTransaction pending = new PendingTransaction(transaction.getRequestNumber(), intendedStart);
+		
+		synchronized(this)
+		{
+			++submitted;
+		}
+		
+		CompletableFuture<Transaction> future = connection != null ? connection.submit(transaction) 
+				: router != null ? router.submit(transaction) : database.submit(transaction);
+		future.whenComplete((committed, error) -> completed(pending, error == null));
+		return pending;
+	}
+	
+	//Called once the database commits (or rejects) a transaction
+	private void completed(PendingTransaction transaction, boolean committed)
+	{
+		latencies.record(System.nanoTime() - transaction.intendedStart);
+		transaction.complete(committed);
+		
+		synchronized(this)
+		{
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Reads the balance of an account as a teller's balance inquiry, with the configured consistency, timing it until answered.
+	 * @param accountNumber the number of the account
+	 * @param token the highest request # of the teller's committed transactions, or -1 if none
+	 * @param intendedStart the System.nanoTime() the inquiry was scheduled to be sent at
+	 * @param connection the teller's connection to read over, from {@link #openConnection()}, or null to read from the databases directly
+	 * @return the balance of the account, or NaN if there is no such account
+	 */
+	public double read(int accountNumber, int token, long intendedStart, TellerClient.Connection connection)
+	{
+		double ret;
+		//Only shard 0's backups are in this process to read from
+		if(connection != null)
+			ret = connection.getBalance(accountNumber).join();
+		else if(router != null && config.shardOf(accountNumber) != 0)
+			ret = router.getBalance(accountNumber).join();
+		else
+			ret = DatabaseMS.getReadRouter().readBalance(accountNumber, config.getReadConsistency(), config.getStaleness(), token);
+		
+		readLatencies.record(System.nanoTime() - intendedStart);
+		return ret;
+	}
+	
+	/**
+	 * Called by each teller once it has sent all of its transactions.
+	 */
+	public void tellerFinished()
+	{
+		synchronized(this)
+		{
+			++tellersFinished;
+			
+			//The last teller to finish decides the total for a timed or sharded run
+			if(tellersFinished == tellers.length)
+				database.setRequestTotal(router != null ? router.getRoutedCount(0) : submitted);
+			
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Blocks until every transaction of this run has completed and the report has been printed.
+	 */
+	public synchronized void awaitCompletion()
+	{
+		while(!finished)
+		{
+			try { wait(); } catch(InterruptedException e) {}
+		}
+	}
+	
+	/**
+	 * @return the throughput and latency percentiles of this run so far.
+	 */
+	public String getReport()
+	{
+		double seconds = ((finished ? endTime : System.nanoTime()) - startTime) / 1000000000.0d;
+		int completed = latencies.getCount();
+		ReadRouter reads = DatabaseMS.getReadRouter();
+		
+		return completed + " transactions in " + String.format("%.2f", seconds) + "s (" + String.format("%.2f", completed / seconds) + " txn/s), " 
+				+ latencies.summarize() + ", seed=" + config.getSeed()
+				+ (router != null ? ", " + router.getCrossShardCount() + " across shards with " + router.getAbortCount() + " aborted attempts" : "")
+				+ (readLatencies.getCount() > 0 ? "; " + readLatencies.getCount() + " balance inquiries, " + reads.getBackupReadCount() + " served by backups, read "
+						+ readLatencies.summarize() : "");
+	}
+	
+	/**
+	 * A transaction that has been sent to the database, but has not completed yet.
+	 */
+	public static class PendingTransaction
+	{
+		private final int requestNumber;
+		private final long intendedStart;
+		private boolean completed = false;
+		private boolean committed = false;
+		private Runnable onComplete;
+		
+		private PendingTransaction(int requestNumber, long intendedStart)
+		{
+			this.requestNumber = requestNumber;
+			this.intendedStart = intendedStart;
+		}
+		
+		private void complete(boolean committed)
+		{
+			Runnable action;
+			synchronized(this)
+			{
+				completed = true;
+				this.committed = committed;
+				notifyAll();
+				action = onComplete;
+			}
+			
+			if(action != null)
+				action.run();
+		}
+		
+		/**
+		 * Runs the action once the database has completed this transaction, right away if it already has.
+		 * @param action the action to run, replacing any given before.
+		 */
+		public void whenComplete(Runnable action)
+		{
+			synchronized(this)
+			{
+				if(!completed)
+				{
+					onComplete = action;
+					return;
+				}
+			}
+			
+			action.run();
+		}
+		
+		/**
+		 * @return the request # of this transaction.
+		 */
+		public int getRequestNumber()
+		{
+			return requestNumber;
+		}
+		
+		/**
+		 * @return true once the database has committed this transaction, false if not completed yet or rejected.
+		 */
+		public synchronized boolean isCommitted()
+		{
+			return committed;
+		}
+		
+		/**
+		 * Blocks until the database has completed this transaction.
+		 */
+		public synchronized void await()
+		{
+			while(!completed)
+			{
+				try { wait(); } catch(InterruptedException e) {}
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package cs485.dbms.lock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Finds deadlocks in the wait-for graph of {@link LockOwner}s, as soon as an owner begins (or continues) waiting.
+ * 
+ * A new cycle can only be closed by an owner starting to wait, so each waiter searches for a cycle back to itself before it waits.
+ * The youngest owner in the cycle (the highest id, ex. the latest request number) is chosen as the victim and its wait is aborted,
+ * so older transactions keep making progress. Waits that aren't part of a cycle are never aborted, however long they are.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+final class DeadlockDetector
+{
+	private DeadlockDetector() {}
+	
+	/**
+	 * Searches for a cycle through the waiter, aborting the victim's wait if one is found.
+	 * The waiter must have already published what it waits on, so two owners closing a cycle together can't both miss it.
+	 * @param waiter the owner about to wait.
+	 * @return true if the waiter is the victim and has to give up, false if it can wait.
+	 */
+	static boolean isVictim(LockOwner waiter)
+	{
+		//Breadth first search from the waiter, remembering how each owner was reached
+		HashMap<LockOwner, LockOwner> reachedFrom = new HashMap<LockOwner, LockOwner>();
+		HashMap<LockOwner, WaitsFor> seenWaiting = new HashMap<LockOwner, WaitsFor>();
+		ArrayDeque<LockOwner> frontier = new ArrayDeque<LockOwner>();
+		ArrayList<LockOwner> blockers = new ArrayList<LockOwner>();
+		
+		frontier.add(waiter);
+		reachedFrom.put(waiter, null);
+		
+		while(!frontier.isEmpty())
+		{
+			LockOwner cur = frontier.poll();
+			WaitsFor waits = cur.getWaitingFor();
+			if(waits == null)
+				continue;
+			
+			seenWaiting.put(cur, waits);
+			blockers.clear();
+			waits.addBlockers(cur, blockers);
+			
+			for(LockOwner blocker : blockers)
+			{
+				if(blocker == waiter)
+					return breakCycle(waiter, cur, reachedFrom, seenWaiting);
+				
+				if(!reachedFrom.containsKey(blocker))
+				{
+					reachedFrom.put(blocker, cur);
+					frontier.add(blocker);
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	//Picks the youngest owner on the cycle from the waiter to last (which waits on the waiter) as the victim
+	private static boolean breakCycle(LockOwner waiter, LockOwner last, HashMap<LockOwner, LockOwner> reachedFrom, HashMap<LockOwner, WaitsFor> seenWaiting)
+	{
+		LockOwner victim = waiter;
+		StringBuilder cycle = new StringBuilder(waiter.toString());
+		
+		for(LockOwner cur = last; cur != waiter; cur = reachedFrom.get(cur))
+		{
+			cycle.append(" <- ").append(cur);
+			if(cur.getId() > victim.getId())
+				victim = cur;
+		}
+		
+		Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[{}]\tDeadlock {}, aborting {}", Thread.currentThread().getName(), cycle, victim);
+		
+		if(victim == waiter)
+			return true;
+		
+		//If the victim already stopped waiting on what it was seen waiting on, the cycle is already broken
+		victim.abort(seenWaiting.get(victim));
+		return false;
+	}
+}
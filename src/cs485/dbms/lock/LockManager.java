@@ -0,0 +1,123 @@
+package cs485.dbms.lock;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+import cs485.dbms.metrics.LockProfiler;
+
+/**
+ * A multi-granularity lock manager over a table of accounts.
+ * 
+ * A row lock on an account first takes an IX intention lock on the table,
+ * so a transaction updating a few accounts only excludes whole-table readers and writers, and transactions sharing its accounts.
+ * Whole-table operations lock the table itself in S or X. Row locks are striped, see {@link RowLocks}.
+ * 
+ * Locks wait as long as needed, unless the owner would deadlock. Then the youngest owner in the cycle fails to lock,
+ * see {@link DeadlockDetector}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockManager 
+{
+	private final LockNode table;
+	private final RowLocks rows;
+	
+	/**
+	 * @param partitionCount the number of partitions in the table, each row lock is profiled under its account's partition.
+	 * @param stripes the number of row locks.
+	 * @param profiler the profiler to record contention on each lock into.
+	 */
+	public LockManager(int partitionCount, int stripes, LockProfiler profiler)
+	{
+		table = new LockNode("table", profiler.getTableRead(), profiler.getTableWrite());
+		rows = new RowLocks(stripes, accountNumber -> profiler.getPartition(accountNumber % partitionCount));
+	}
+	
+	/**
+	 * Locks the whole table.
+	 * @param owner the owner to lock for.
+	 * @param mode the mode to lock the table in.
+	 * @return true if successful, false if lock not acquired
+	 */
+	public boolean lockTable(LockOwner owner, LockMode mode)
+	{
+		return lock(owner, table, mode, -1);
+	}
+	
+	/**
+	 * Exclusively locks a single account, after taking the intention lock on the table.
+	 * @param owner the owner to lock for.
+	 * @param accountNumber the account to lock.
+	 * @return true if successful, false if lock not acquired
+	 */
+	public boolean lockRow(LockOwner owner, int accountNumber)
+	{
+		//A table X lock already covers every row
+		LockMode tableMode = table.getMode(owner);
+		if(tableMode != null && tableMode.covers(LockMode.X))
+			return true;
+		
+		if(!lock(owner, table, LockMode.IX, -1))
+			return false;
+		
+		if(rows.lock(owner, accountNumber))
+			return true;
+		
+		Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[{}]\tFailed to lock account #{}", Thread.currentThread().getName(), accountNumber);
+		return false;
+	}
+	
+	/**
+	 * @param accountNumber the account to find the row lock of.
+	 * @return the stripe of the account's row lock, accounts sharing a stripe share a lock.
+	 */
+	public int stripeOf(int accountNumber)
+	{
+		return rows.stripeOf(accountNumber);
+	}
+	
+	//Holds the node in the given mode, unless aborted to break a deadlock
+	private boolean lock(LockOwner owner, LockNode node, LockMode mode, int accountNumber)
+	{
+		if(node.lock(owner, mode, accountNumber))
+		{
+			Main.log.print(DebugLevel.LOCKS_REQUESTS, "[{}]\tLocked {} in {}", Thread.currentThread().getName(), node, mode);
+			return true;
+		}
+		
+		Main.log.warn(DebugLevel.LOCKS_REQUESTS, "[{}]\tFailed to lock {} in {}", Thread.currentThread().getName(), node, mode);
+		return false;
+	}
+	
+	/**
+	 * @param owner the owner to check.
+	 * @return the mode the owner holds on the table, or null if not held.
+	 */
+	public LockMode getTableMode(LockOwner owner)
+	{
+		return table.getMode(owner);
+	}
+	
+	/**
+	 * Releases every lock held by the owner, children before their parents.
+	 * @param owner the owner to unlock for.
+	 */
+	public void unlockAll(LockOwner owner)
+	{
+		for(int i = owner.rowCount - 1; i >= 0; --i)
+			rows.unlock(owner, owner.rows[i]);
+		
+		owner.rowCount = 0;
+		
+		for(int i = owner.held.size() - 1; i >= 0; --i)
+		{
+			LockNode node = owner.held.get(i);
+			node.unlock(owner);
+			Main.log.print(DebugLevel.LOCKS_REQUESTS, "[{}]\tUnlocked {}", Thread.currentThread().getName(), node);
+		}
+		
+		owner.held.clear();
+	}
+}
@@ -0,0 +1,101 @@
+package cs485.dbms.lock;
+
+/**
+ * The modes of a multi-granularity lock. Intention modes (IS, IX) are taken on a parent, such as the account table,
+ * to announce shared or exclusive locks on its children, such as partitions, so whole-table locks conflict only with the
+ * transactions that actually touch the table in a conflicting way.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public enum LockMode 
+{
+	/**
+	 * Intention shared, children will be locked in S
+	 */
+	IS,
+	/**
+	 * Intention exclusive, children will be locked in X
+	 */
+	IX,
+	/**
+	 * Shared, the node and all of its children are read
+	 */
+	S,
+	/**
+	 * Shared and intention exclusive, the node is read and some children will be locked in X
+	 */
+	SIX,
+	/**
+	 * Exclusive, the node and all of its children are written
+	 */
+	X;
+	
+	//COMPATIBLE[a][b] is true if a and b can be held on the same node by different owners
+	private static final boolean[][] COMPATIBLE = {
+		//            IS     IX     S      SIX    X
+		/* IS  */ {true,  true,  true,  true,  false},
+		/* IX  */ {true,  true,  false, false, false},
+		/* S   */ {true,  false, true,  false, false},
+		/* SIX */ {true,  false, false, false, false},
+		/* X   */ {false, false, false, false, false}
+	};
+	
+	/**
+	 * @param other the mode held by another owner
+	 * @return true if this mode can be granted while the other mode is held.
+	 */
+	public boolean isCompatibleWith(LockMode other)
+	{
+		return COMPATIBLE[ordinal()][other.ordinal()];
+	}
+	
+	/**
+	 * @param other the mode to combine with
+	 * @return the weakest mode granting everything this mode and the other mode grant, ex. IX with S is SIX.
+	 */
+	public LockMode combine(LockMode other)
+	{
+		if(this == other || other.covers(this))
+			return other;
+		if(covers(other))
+			return this;
+		
+		//IX and S (or SIX) are the only incomparable pair below X
+		return SIX;
+	}
+	
+	/**
+	 * @param other the mode to compare with
+	 * @return true if holding this mode grants everything the other mode does.
+	 */
+	public boolean covers(LockMode other)
+	{
+		switch(this)
+		{
+			case X: return true;
+			case SIX: return other != X;
+			case S: return other == S || other == IS;
+			case IX: return other == IX || other == IS;
+			default: return other == IS;
+		}
+	}
+	
+	/**
+	 * @return true if this mode reads or writes children exclusively, rather than announcing intentions only or sharing.
+	 */
+	public boolean isExclusive()
+	{
+		return this == X || this == SIX;
+	}
+	
+	/**
+	 * @return the intention mode a parent has to be locked in before a child is locked in this mode.
+	 */
+	public LockMode getIntention()
+	{
+		return this == S || this == IS ? IS : IX;
+	}
+}
@@ -0,0 +1,262 @@
+package cs485.dbms.lock;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+
+import cs485.dbms.metrics.LockStats;
+
+/**
+ * A single lockable resource in the hierarchy of a {@link LockManager}, such as the account table or one of its partitions.
+ * 
+ * Each owner holds at most one mode on a node, strengthened in place when it asks for more (ex. S then IX becomes SIX).
+ * Requests for a mode that isn't compatible with every other owner's mode wait. Exclusive requests from owners new to the node
+ * queue up in order, and other new owners wait behind them, so whole-table operations aren't starved by a stream of intention locks.
+ * Waits only end when granted, or when aborted by the {@link DeadlockDetector}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockNode 
+{
+	private final String name;
+	//Statistics for shared (IS, IX, S) and exclusive (SIX, X) acquisitions, which may be the same
+	private final LockStats sharedStats, exclusiveStats;
+	
+	//The mode held by each owner, guarded by this
+	private final HashMap<LockOwner, Grant> grants = new HashMap<LockOwner, Grant>();
+	//The number of owners holding each mode, by ordinal
+	private final int[] grantedCounts = new int[LockMode.values().length];
+	//Owners new to this node waiting for X, in the order they asked
+	private final ArrayDeque<LockOwner> exclusiveQueue = new ArrayDeque<LockOwner>();
+	
+	//Copies of the grants and the queue, published for the deadlock detector to read without locking this
+	private volatile GrantSnapshot grantSnapshot = new GrantSnapshot(new LockOwner[0], new LockMode[0]);
+	private volatile LockOwner[] queueSnapshot = new LockOwner[0];
+	
+	LockNode(String name, LockStats sharedStats, LockStats exclusiveStats)
+	{
+		this.name = name;
+		this.sharedStats = sharedStats;
+		this.exclusiveStats = exclusiveStats;
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Locks this node in the given mode for the owner, waiting for conflicting owners to release it.
+	 * @param owner the owner to lock for.
+	 * @param mode the mode needed, combined with any mode the owner already holds.
+	 * @param accountNumber the account the lock is needed for, recorded if contended, or -1.
+	 * @return true if the owner holds the mode, false if the owner was aborted as the victim of a deadlock.
+	 */
+	synchronized boolean lock(LockOwner owner, LockMode mode, int accountNumber)
+	{
+		Grant grant = grants.get(owner);
+		LockMode target = grant == null ? mode : grant.mode.combine(mode);
+		
+		//Already held strongly enough
+		if(grant != null && grant.mode == target)
+			return true;
+		
+		LockStats stats = target.isExclusive() ? exclusiveStats : sharedStats;
+		long start = System.nanoTime();
+		boolean contended = false;
+		
+		boolean queued = grant == null && target == LockMode.X;
+		if(queued)
+		{
+			exclusiveQueue.add(owner);
+			queueSnapshot = exclusiveQueue.toArray(new LockOwner[0]);
+		}
+		
+		try {
+			while(!canGrant(owner, grant, target))
+			{
+				if(!contended)
+				{
+					contended = true;
+					stats.recordFailedAttempt();
+					owner.startWaiting(new NodeWait(target, grant == null));
+				}
+				
+				//Checked on every wake up, as the owners blocking this one change
+				if(DeadlockDetector.isVictim(owner) || owner.isAborted())
+				{
+					stats.recordAbort(System.nanoTime() - start, accountNumber);
+					return false;
+				}
+				
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					//Aborts are noticed above, any other interrupt just wakes this up
+				}
+			}
+		} finally {
+			if(contended)
+				owner.stopWaiting();
+			
+			//Let the next queued request (or those behind the queue) in, whether granted or aborted
+			if(queued)
+			{
+				exclusiveQueue.remove(owner);
+				queueSnapshot = exclusiveQueue.toArray(new LockOwner[0]);
+				notifyAll();
+			}
+		}
+		
+		long now = System.nanoTime();
+		stats.recordAcquire(now - start, contended, accountNumber);
+		
+		if(grant == null)
+		{
+			grants.put(owner, new Grant(target, now));
+			owner.held.add(this);
+		}
+		else
+		{
+			--grantedCounts[grant.mode.ordinal()];
+			grant.mode = target;
+		}
+		
+		++grantedCounts[target.ordinal()];
+		publishGrants();
+		return true;
+	}
+	
+	//Called after every change to the grants
+	private void publishGrants()
+	{
+		LockOwner[] holders = new LockOwner[grants.size()];
+		LockMode[] modes = new LockMode[grants.size()];
+		int i = 0;
+		for(HashMap.Entry<LockOwner, Grant> entry : grants.entrySet())
+		{
+			holders[i] = entry.getKey();
+			modes[i++] = entry.getValue().mode;
+		}
+		
+		grantSnapshot = new GrantSnapshot(holders, modes);
+	}
+	
+	//True if the target mode is compatible with every mode held by other owners
+	private boolean canGrant(LockOwner owner, Grant own, LockMode target)
+	{
+		//Owners new to the node wait behind the queued exclusive requests, which go in order
+		if(own == null && !exclusiveQueue.isEmpty() && exclusiveQueue.peek() != owner)
+			return false;
+		
+		for(LockMode held : LockMode.values())
+		{
+			//Don't count the owner's own grant as a conflict
+			int others = grantedCounts[held.ordinal()] - (own != null && own.mode == held ? 1 : 0);
+			
+			if(others > 0 && !target.isCompatibleWith(held))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Releases the owner's lock on this node, if held.
+	 * @param owner the owner to unlock for.
+	 */
+	synchronized void unlock(LockOwner owner)
+	{
+		Grant grant = grants.remove(owner);
+		if(grant == null)
+			return;
+		
+		--grantedCounts[grant.mode.ordinal()];
+		publishGrants();
+		(grant.mode.isExclusive() ? exclusiveStats : sharedStats).recordRelease(System.nanoTime() - grant.since);
+		notifyAll();
+	}
+	
+	/**
+	 * @param owner the owner to check.
+	 * @return the mode held by the owner, or null if not held.
+	 */
+	public synchronized LockMode getMode(LockOwner owner)
+	{
+		Grant grant = grants.get(owner);
+		return grant == null ? null : grant.mode;
+	}
+	
+	public String toString()
+	{
+		return name;
+	}
+	
+	//Waiting on this node for a mode, blocked by the owners holding a conflicting mode, and by the exclusive queue if new to the node
+	private class NodeWait extends WaitsFor
+	{
+		private final LockMode target;
+		private final boolean newOwner;
+		
+		private NodeWait(LockMode target, boolean newOwner)
+		{
+			this.target = target;
+			this.newOwner = newOwner;
+		}
+		
+		void addBlockers(LockOwner waiter, List<LockOwner> out)
+		{
+			GrantSnapshot grants = grantSnapshot;
+			for(int i = 0; i < grants.holders.length; ++i)
+			{
+				if(grants.holders[i] != waiter && !target.isCompatibleWith(grants.modes[i]))
+					out.add(grants.holders[i]);
+			}
+			
+			//Owners new to the node wait for everyone queued ahead of them
+			if(newOwner)
+			{
+				for(LockOwner queued : queueSnapshot)
+				{
+					if(queued == waiter)
+						break;
+					out.add(queued);
+				}
+			}
+		}
+		
+		public String toString()
+		{
+			return target + " on " + name;
+		}
+	}
+	
+	//Every owner holding this node, and the mode each holds
+	private static class GrantSnapshot
+	{
+		private final LockOwner[] holders;
+		private final LockMode[] modes;
+		
+		private GrantSnapshot(LockOwner[] holders, LockMode[] modes)
+		{
+			this.holders = holders;
+			this.modes = modes;
+		}
+	}
+	
+	//The mode an owner holds, and since when
+	private static class Grant
+	{
+		private LockMode mode;
+		private final long since;
+		
+		private Grant(LockMode mode, long since)
+		{
+			this.mode = mode;
+			this.since = since;
+		}
+	}
+}
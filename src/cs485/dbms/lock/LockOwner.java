@@ -0,0 +1,123 @@
+package cs485.dbms.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A transaction, or other operation, holding locks from a {@link LockManager}.
+ * Locks are held until {@link LockManager#unlockAll(LockOwner)}, and an owner is only ever used by one thread at a time.
+ * 
+ * While waiting on a lock, the owner records what it is waiting on for the {@link DeadlockDetector}, 
+ * which may abort the wait if the owner is chosen as the victim of a deadlock.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockOwner 
+{
+	private final long id;
+	
+	//Every node this owner holds a lock on, in the order they were first locked
+	final ArrayList<LockNode> held = new ArrayList<LockNode>();
+	//Every account this owner holds a row lock on, in the order they were locked
+	int[] rows = new int[8];
+	int rowCount = 0;
+	
+	//What this owner is waiting on, or null if not waiting. Written under this, read by any thread looking for deadlocks
+	private volatile WaitsFor waitingFor = null;
+	//The thread waiting, interrupted to abort the wait
+	private Thread waitingThread = null;
+	//True if the current wait was aborted to break a deadlock
+	private boolean aborted = false;
+	
+	/**
+	 * @param id identifies the owner, such as the request number of a transaction.
+	 */
+	public LockOwner(long id)
+	{
+		this.id = id;
+	}
+	
+	public long getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * @return the number of nodes and rows this owner holds a lock on.
+	 */
+	public int getHeldCount()
+	{
+		return held.size() + rowCount;
+	}
+	
+	/**
+	 * @return what this owner is waiting on, or null if not waiting.
+	 */
+	WaitsFor getWaitingFor()
+	{
+		return waitingFor;
+	}
+	
+	synchronized void startWaiting(WaitsFor waits)
+	{
+		waitingFor = waits;
+		waitingThread = Thread.currentThread();
+		aborted = false;
+	}
+	
+	/**
+	 * Stops waiting, clearing any interrupt left behind by an abort that came too late.
+	 * @return true if the wait was aborted.
+	 */
+	synchronized boolean stopWaiting()
+	{
+		boolean ret = aborted;
+		waitingFor = null;
+		waitingThread = null;
+		aborted = false;
+		
+		if(ret)
+			Thread.interrupted();
+		
+		return ret;
+	}
+	
+	/**
+	 * Aborts this owner's wait, if it is still waiting on the same thing.
+	 * @param waits what the owner was seen waiting on.
+	 * @return true if aborted, false if the owner has stopped waiting on it.
+	 */
+	synchronized boolean abort(WaitsFor waits)
+	{
+		if(waitingFor != waits || waitingThread == null)
+			return false;
+		
+		aborted = true;
+		waitingThread.interrupt();
+		return true;
+	}
+	
+	/**
+	 * @return true if the current wait was aborted to break a deadlock.
+	 */
+	synchronized boolean isAborted()
+	{
+		return aborted;
+	}
+	
+	void addRow(int accountNumber)
+	{
+		if(rowCount == rows.length)
+			rows = Arrays.copyOf(rows, rowCount * 2);
+		
+		rows[rowCount++] = accountNumber;
+	}
+	
+	public String toString()
+	{
+		return "Owner #" + id;
+	}
+}
@@ -0,0 +1,187 @@
+package cs485.dbms.lock;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+import cs485.dbms.metrics.LockStats;
+
+/**
+ * Exclusive row locks on single accounts, striped over a fixed number of locks hashed from the account number.
+ * 
+ * With far more stripes than accounts in a transaction, two transfers only conflict when they share an account,
+ * or (rarely) when two of their accounts hash to the same stripe.
+ * An uncontended lock is a single compare and set of the stripe's owner. Only contended locks wait on the stripe's monitor,
+ * until granted or aborted by the {@link DeadlockDetector}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RowLocks
+{
+	private final int mask;
+	
+	//The owner holding each stripe, or null if free
+	private final AtomicReferenceArray<LockOwner> owners;
+	//The number of owners waiting on each stripe, so a release only notifies when someone is waiting
+	private final AtomicIntegerArray waiters;
+	//Contended owners wait on the stripe's monitor
+	private final Object[] monitors;
+	//When each stripe was acquired, only written and read by its owner
+	private final long[] since;
+	
+	//Gives the statistics to record an account's lock into, ex. shared by every account of a partition
+	private final IntFunction<LockStats> statsOf;
+	
+	/**
+	 * @param stripes the number of locks, rounded up to a power of 2.
+	 * @param statsOf gives the statistics to record an account's lock into.
+	 */
+	RowLocks(int stripes, IntFunction<LockStats> statsOf)
+	{
+		int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+		mask = size - 1;
+		owners = new AtomicReferenceArray<LockOwner>(size);
+		waiters = new AtomicIntegerArray(size);
+		monitors = new Object[size];
+		since = new long[size];
+		this.statsOf = statsOf;
+		
+		for(int i = 0; i < size; ++i)
+			monitors[i] = new Object();
+	}
+	
+	/**
+	 * @param accountNumber the account to find the lock of.
+	 * @return the stripe locking the account.
+	 */
+	public int stripeOf(int accountNumber)
+	{
+		//Fibonacci hashing spreads sequential account numbers across the stripes
+		return ((accountNumber * 0x9E3779B9) >>> 16) & mask;
+	}
+	
+	/**
+	 * @return the number of stripes.
+	 */
+	public int getStripeCount()
+	{
+		return mask + 1;
+	}
+	
+	/**
+	 * Locks the account's stripe for the owner, waiting if another owner holds it.
+	 * @param owner the owner to lock for.
+	 * @param accountNumber the account to lock.
+	 * @return true if the owner holds the stripe, false if the owner was aborted as the victim of a deadlock.
+	 */
+	boolean lock(LockOwner owner, int accountNumber)
+	{
+		int stripe = stripeOf(accountNumber);
+		
+		//Already held, ex. an account in several transfers or two accounts on the same stripe
+		if(owners.get(stripe) == owner)
+			return true;
+		
+		LockStats stats = statsOf.apply(accountNumber);
+		
+		//Fast path, uncontended
+		if(owners.compareAndSet(stripe, null, owner))
+		{
+			granted(owner, stripe, accountNumber);
+			stats.recordAcquire(0, false, accountNumber);
+			return true;
+		}
+		
+		stats.recordFailedAttempt();
+		long start = System.nanoTime();
+		Object monitor = monitors[stripe];
+		
+		waiters.incrementAndGet(stripe);
+		owner.startWaiting(new RowWait(stripe));
+		try {
+			synchronized(monitor)
+			{
+				//Waiters are counted before trying again, so a release in between either frees the stripe or sees the waiter
+				while(!owners.compareAndSet(stripe, null, owner))
+				{
+					//Checked on every wake up, as the holder of the stripe changes
+					if(DeadlockDetector.isVictim(owner) || owner.isAborted())
+					{
+						stats.recordAbort(System.nanoTime() - start, accountNumber);
+						return false;
+					}
+					
+					try {
+						monitor.wait();
+					} catch (InterruptedException e) {
+						//Aborts are noticed above, any other interrupt just wakes this up
+					}
+				}
+			}
+		} finally {
+			owner.stopWaiting();
+			waiters.decrementAndGet(stripe);
+		}
+		
+		granted(owner, stripe, accountNumber);
+		stats.recordAcquire(System.nanoTime() - start, true, accountNumber);
+		return true;
+	}
+	
+	private void granted(LockOwner owner, int stripe, int accountNumber)
+	{
+		since[stripe] = System.nanoTime();
+		owner.addRow(accountNumber);
+	}
+	
+	/**
+	 * Releases the account's stripe, if held by the owner.
+	 * @param owner the owner to unlock for.
+	 * @param accountNumber the account locked.
+	 */
+	void unlock(LockOwner owner, int accountNumber)
+	{
+		int stripe = stripeOf(accountNumber);
+		if(owners.get(stripe) != owner)
+			return;
+		
+		statsOf.apply(accountNumber).recordRelease(System.nanoTime() - since[stripe]);
+		owners.set(stripe, null);
+		
+		if(waiters.get(stripe) > 0)
+		{
+			Object monitor = monitors[stripe];
+			synchronized(monitor)
+			{
+				monitor.notifyAll();
+			}
+		}
+	}
+	
+	//Waiting on a stripe, blocked by its holder
+	private class RowWait extends WaitsFor
+	{
+		private final int stripe;
+		
+		private RowWait(int stripe)
+		{
+			this.stripe = stripe;
+		}
+		
+		void addBlockers(LockOwner waiter, List<LockOwner> out)
+		{
+			LockOwner holder = owners.get(stripe);
+			if(holder != null && holder != waiter)
+				out.add(holder);
+		}
+		
+		public String toString()
+		{
+			return "row stripe #" + stripe;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package cs485.dbms.lock;
+
+import java.util.List;
+
+/**
+ * What a {@link LockOwner} is waiting on, an edge (or several) of the wait-for graph searched by the {@link DeadlockDetector}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+abstract class WaitsFor
+{
+	/**
+	 * Adds every owner the waiter is currently waiting on.
+	 * Called from any thread without holding the lock waited on, so this reads a recent, not exact, view of its holders.
+	 * @param waiter the owner waiting.
+	 * @param out the list to add the blocking owners to.
+	 */
+	abstract void addBlockers(LockOwner waiter, List<LockOwner> out);
+}
@@ -4,6 +4,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 import javax.swing.JOptionPane;
 
@@ -12,18 +16,60 @@ import javax.swing.JOptionPane;
  * 
  * I implemented this because while debugging it was not possible to see the full log. This circumvents that issue.
  * 
+ * Logging never blocks on the console or the file: messages are put into a bounded ring buffer,
+ * which a background writer thread drains. The level is checked before anything is formatted, and messages can be given
+ * as a pattern with "{}" placeholders (formatted by the writer thread) or a {@link Supplier} (only called if the level is enabled).
+ * 
  * @author Ashton Schultz
  * @instructor Prof. Mark Funk
  * @class CS485
  * @date 4.5.2021
  */
-public class DebugLog 
+public class DebugLog
 {
+	//The default number of messages the ring buffer holds before the overflow policy applies
+	private static final int DEFAULT_CAPACITY = 8192;
+	//The most arguments a single message pattern can be given
+	private static final int MAX_ARGS = 3;
+	
 	private File debugFile;
-	private DebugLevel level = DebugLevel.REQUESTS; //A constant essentially, just to refine the java console log.
+	private volatile DebugLevel level = DebugLevel.REQUESTS; //A constant essentially, just to refine the java console log.
 	private PrintWriter debugWriter;
 	
+	//What to do when a message is logged while the ring buffer is full
+	private final OverflowPolicy overflowPolicy;
+	
+	//The ring buffer. Each slot is preallocated and reused, a slot's sequence tells whether it is free or holds a message.
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final String[] patterns;
+	private final Object[][] arguments;
+	//The number of arguments for each slot, 0 meaning the pattern is written as is
+	private final int[] argumentCounts;
+	private final boolean[] warnings;
+	//The next sequence to claim by a logging thread, and the next sequence to write by the writer thread
+	private final AtomicLong tail = new AtomicLong();
+	private long head = 0;
+	//Held while writing messages from the ring buffer, which once closed the logging threads do themselves
+	private final Object drainLock = new Object();
+	
+	//The number of messages dropped by OverflowPolicy.DROP
+	private final AtomicLong dropped = new AtomicLong();
+	
+	private final Thread writerThread;
+	private volatile boolean closed = false;
+	
 	public DebugLog(String filename)
+	{
+		this(filename, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+	}
+	
+	/**
+	 * @param filename the file to write the log to.
+	 * @param capacity the number of messages that can wait to be written, rounded up to a power of two.
+	 * @param policy what to do when a message is logged while capacity messages are waiting.
+	 */
+	public DebugLog(String filename, int capacity, OverflowPolicy policy)
 	{
 		try {
 			//Create the file reference,
@@ -31,6 +77,24 @@ public class DebugLog
 			
 			debugWriter = new PrintWriter(new FileOutputStream(debugFile));
 		} catch (IOException e) {}
+		
+		overflowPolicy = policy;
+		
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		sequences = new AtomicLongArray(size);
+		patterns = new String[size];
+		arguments = new Object[size][MAX_ARGS];
+		argumentCounts = new int[size];
+		warnings = new boolean[size];
+		
+		//A slot is free for the message with sequence n while its sequence is n
+		for(int i = 0; i < size; ++i)
+			sequences.set(i, i);
+		
+		writerThread = new Thread(this::drain, "DebugLog Writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
 	}
 	
 	/**
@@ -51,19 +115,69 @@ public class DebugLog
 			this.level = level;
 	}
 	
+	/**
+	 * @param levl the debug level to check.
+	 * @return true if messages at the given level are output, false if they are discarded.
+	 */
+	public boolean isEnabled(DebugLevel levl)
+	{
+		return this.level.ordinal() >= levl.ordinal();
+	}
+	
 	/**
 	 * Prints the message at the specified debug level within the out stream, creating a message in the console.
 	 * 
 	 * @param levl the debug level to output this message at.
 	 * @param message the message to output.
 	 */
-	public synchronized void print(DebugLevel levl, String message)
+	public void print(DebugLevel levl, String message)
 	{
-		if(this.level.ordinal() >= levl.ordinal())
-		{
-			System.out.println(message);
-			debugWriter.print(message + "\n");
-		}
+		if(isEnabled(levl))
+			enqueue(false, message, 0, null, null, null);
+	}
+	
+	/**
+	 * Prints the message at the specified debug level within the out stream, replacing the "{}" in the pattern with the argument.
+	 * The message is only formatted if the level is enabled.
+	 * 
+	 * @param levl the debug level to output this message at.
+	 * @param pattern the message to output, containing a "{}" placeholder.
+	 * @param arg the value to replace the placeholder with.
+	 */
+	public void print(DebugLevel levl, String pattern, Object arg)
+	{
+		if(isEnabled(levl))
+			enqueue(false, pattern, 1, arg, null, null);
+	}
+	
+	/**
+	 * See {@link #print(DebugLevel, String, Object)}, for two placeholders.
+	 */
+	public void print(DebugLevel levl, String pattern, Object arg1, Object arg2)
+	{
+		if(isEnabled(levl))
+			enqueue(false, pattern, 2, arg1, arg2, null);
+	}
+	
+	/**
+	 * See {@link #print(DebugLevel, String, Object)}, for three placeholders.
+	 */
+	public void print(DebugLevel levl, String pattern, Object arg1, Object arg2, Object arg3)
+	{
+		if(isEnabled(levl))
+			enqueue(false, pattern, 3, arg1, arg2, arg3);
+	}
+	
+	/**
+	 * Prints the supplied message at the specified debug level within the out stream. The supplier is only called if the level is enabled.
+	 * 
+	 * @param levl the debug level to output this message at.
+	 * @param message supplies the message to output.
+	 */
+	public void print(DebugLevel levl, Supplier<String> message)
+	{
+		if(isEnabled(levl))
+			enqueue(false, message.get(), 0, null, null, null);
 	}
 	
 	/**
@@ -72,22 +186,233 @@ public class DebugLog
 	 * @param levl the debug level to output this message at.
 	 * @param message the message to output.
 	 */
-	public synchronized void warn(DebugLevel levl, String message)
+	public void warn(DebugLevel levl, String message)
+	{
+		if(isEnabled(levl))
+			enqueue(true, message, 0, null, null, null);
+	}
+	
+	/**
+	 * See {@link #warn(DebugLevel, String)} and {@link #print(DebugLevel, String, Object)}.
+	 */
+	public void warn(DebugLevel levl, String pattern, Object arg)
+	{
+		if(isEnabled(levl))
+			enqueue(true, pattern, 1, arg, null, null);
+	}
+	
+	/**
+	 * See {@link #warn(DebugLevel, String)} and {@link #print(DebugLevel, String, Object)}, for two placeholders.
+	 */
+	public void warn(DebugLevel levl, String pattern, Object arg1, Object arg2)
+	{
+		if(isEnabled(levl))
+			enqueue(true, pattern, 2, arg1, arg2, null);
+	}
+	
+	/**
+	 * See {@link #warn(DebugLevel, String)} and {@link #print(DebugLevel, String, Object)}, for three placeholders.
+	 */
+	public void warn(DebugLevel levl, String pattern, Object arg1, Object arg2, Object arg3)
 	{
-		if(this.level.ordinal() >= levl.ordinal())
+		if(isEnabled(levl))
+			enqueue(true, pattern, 3, arg1, arg2, arg3);
+	}
+	
+	/**
+	 * See {@link #warn(DebugLevel, String)} and {@link #print(DebugLevel, Supplier)}.
+	 */
+	public void warn(DebugLevel levl, Supplier<String> message)
+	{
+		if(isEnabled(levl))
+			enqueue(true, message.get(), 0, null, null, null);
+	}
+	
+	/**
+	 * @return the number of messages dropped because the ring buffer was full.
+	 */
+	public long getDroppedCount()
+	{
+		return dropped.get();
+	}
+	
+	//Claims a slot in the ring buffer and fills it with the message
+	private void enqueue(boolean warning, String pattern, int argCount, Object arg1, Object arg2, Object arg3)
+	{
+		//Once closed there is no writer thread, so write directly, after anything still in the ring buffer
+		if(closed)
+		{
+			synchronized(drainLock)
+			{
+				writeAvailable();
+				write(warning, argCount == 0 ? pattern : format(pattern, argCount, new Object[] {arg1, arg2, arg3}));
+			}
+			return;
+		}
+		
+		long sequence = tail.get();
+		while(true)
+		{
+			int slot = (int) sequence & mask;
+			long difference = sequences.get(slot) - sequence;
+			
+			//The slot is free for this sequence, attempt to claim it
+			if(difference == 0)
+			{
+				if(tail.compareAndSet(sequence, sequence + 1))
+					break;
+				sequence = tail.get();
+			}
+			//The slot still holds the message from one lap ago, so the ring buffer is full
+			else if(difference < 0)
+			{
+				if(overflowPolicy == OverflowPolicy.DROP)
+				{
+					dropped.incrementAndGet();
+					return;
+				}
+				
+				//The writer thread may have stopped since, leaving no one else to free a slot
+				if(closed)
+					writeAvailable();
+				else
+					LockSupport.parkNanos(10000);
+				sequence = tail.get();
+			}
+			//Another thread claimed this sequence first
+			else
+				sequence = tail.get();
+		}
+		
+		int slot = (int) sequence & mask;
+		warnings[slot] = warning;
+		patterns[slot] = pattern;
+		argumentCounts[slot] = argCount;
+		arguments[slot][0] = arg1;
+		arguments[slot][1] = arg2;
+		arguments[slot][2] = arg3;
+		
+		//Publish the message to the writer thread
+		sequences.set(slot, sequence + 1);
+		
+		//The writer thread may have taken its last look before this was published, leaving it to this thread
+		if(closed)
+			writeAvailable();
+	}
+	
+	//The writer thread, writing messages in the order they were claimed until closed
+	private void drain()
+	{
+		while(true)
+		{
+			//Read before looking, so the last look comes after closing, and anything published after it is written by its logging thread
+			boolean stopping = closed;
+			if(writeAvailable())
+				continue;
+			
+			if(stopping)
+				return;
+			
+			LockSupport.parkNanos(1000000);
+		}
+	}
+	
+	//Writes every message published at the front of the ring buffer, returning true if any was
+	private boolean writeAvailable()
+	{
+		synchronized(drainLock)
+		{
+			boolean wrote = false;
+			
+			for(int slot = (int) head & mask; sequences.get(slot) == head + 1; slot = (int) head & mask)
+			{
+				String message = argumentCounts[slot] == 0 ? patterns[slot] : format(patterns[slot], argumentCounts[slot], arguments[slot]);
+				write(warnings[slot], message);
+				
+				//Release the references and free the slot for the next lap
+				patterns[slot] = null;
+				arguments[slot][0] = arguments[slot][1] = arguments[slot][2] = null;
+				sequences.set(slot, head + mask + 1);
+				++head;
+				wrote = true;
+			}
+			
+			if(wrote)
+				System.out.flush();
+			return wrote;
+		}
+	}
+	
+	//Writes the message to the console and the log file
+	private void write(boolean warning, String message)
+	{
+		if(warning)
 		{
 			System.err.println(message);
 			debugWriter.print("***" + message + "\n");
 		}
+		else
+		{
+			System.out.println(message);
+			debugWriter.print(message + "\n");
+		}
+	}
+	
+	//Replaces each "{}" in the pattern with the next argument
+	private static String format(String pattern, int argCount, Object[] args)
+	{
+		StringBuilder builder = new StringBuilder(pattern.length() + 16 * argCount);
+		int start = 0;
+		
+		for(int i = 0; i < argCount; ++i)
+		{
+			int index = pattern.indexOf("{}", start);
+			if(index < 0)
+				break;
+			
+			builder.append(pattern, start, index).append(args[i]);
+			start = index + 2;
+		}
+		
+		return builder.append(pattern, start, pattern.length()).toString();
 	}
 	
 	/**
-	 * Flushes and closes the log file.
+	 * Writes every message logged so far, then flushes and closes the log file.
+	 * Messages logged from then on are written to the console by the thread logging them.
 	 */
 	public void close()
 	{
-		debugWriter.flush();
-		debugWriter.close();
+		closed = true;
+		
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {}
+		
+		synchronized(drainLock)
+		{
+			writeAvailable();
+			
+			if(dropped.get() > 0)
+				write(true, "[DebugLog] Dropped " + dropped.get() + " messages while the log was full.");
+			
+			debugWriter.flush();
+			debugWriter.close();
+		}
+	}
+	
+	/**
+	 * What a {@link DebugLog} does when a message is logged while its ring buffer is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait for the writer thread to free a slot, keeping every message
+		 */
+		BLOCK,
+		/**
+		 * Discard the message, counting it in {@link DebugLog#getDroppedCount()}
+		 */
+		DROP;
 	}
 	
 	/**
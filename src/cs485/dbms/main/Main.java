@@ -1,8 +1,9 @@
 package cs485.dbms.main;
 
-import java.util.Random;
+import java.util.ArrayList;
 
 import cs485.dbms.DatabaseMS;
+import cs485.dbms.load.LoadConfig;
 import cs485.dbms.main.DebugLog.DebugLevel;
 
 /**
@@ -10,6 +11,9 @@ import cs485.dbms.main.DebugLog.DebugLevel;
  * 
  *  Emulates a Database Management System, complete with processing threads,
  *  requesters (Tellers), and a backup database.
+ *  
+ *  The workload is configured by the arguments described in {@link LoadConfig}. 
+ *  Additionally "--log=LEVEL" picks the {@link DebugLevel} without prompting the user.
  * 
  * @author Ashton Schultz
  * @instructor Prof. Mark Funk
@@ -17,24 +21,30 @@ import cs485.dbms.main.DebugLog.DebugLevel;
  * @date 3.30.2021
  */
 public class Main {
-	/**
-	 * A common random number generator utilized within this database program.
-	 */
-	public static final Random rand = new Random();
-	
 	/**
 	 * The log file to refine the console output
 	 */
 	public static final DebugLog log = new DebugLog("JavaLog.txt");
 	
 	public static void main(String[] args) {
-		//Let the user pick how detailed the console output is
-		log.setDebugLevel(DebugLevel.promptUser());
+		DebugLevel level = null;
+		ArrayList<String> loadArgs = new ArrayList<String>();
+		
+		for(String arg : args)
+		{
+			if(arg.startsWith("--log="))
+				level = DebugLevel.valueOf(arg.substring(6));
+			else
+				loadArgs.add(arg);
+		}
+		
+		//Let the user pick how detailed the console output is, if not given
+		log.setDebugLevel(level != null ? level : DebugLevel.promptUser());
 		
 		//Start the primary and backup databases
-		DatabaseMS.startDatabases();
+		DatabaseMS.startDatabases(LoadConfig.parse(loadArgs.toArray(new String[0])));
 		
-		//And stay alive as long either database is active
+		//And stay alive as long as any database is active
 		boolean exit = false;
 		
 		while(!exit)
@@ -42,19 +52,29 @@ public class Main {
 			//Debug level for front-end level console
 			if(log.getDebugLevel() == DebugLevel.PERCENT)
 			{
-				int amt = DatabaseMS.getInstance().getRequestNumber();
+				int amt = DatabaseMS.getInstance().getCommittedCount();
+				int total = DatabaseMS.getInstance().getRequestTotal();
 				
-				if(amt > -1)
-					System.out.println("(Completion: " + String.format("%.2f",amt / 4.0) + "%)");
+				if(total == Integer.MAX_VALUE)
+					System.out.println("(Completed: " + amt + ")");
+				else if(total > 0)
+					System.out.println("(Completion: " + String.format("%.2f", amt * 100.0 / total) + "%)");
 			}
 			
-			exit = (DatabaseMS.getInstance().isRequestsFinished() && DatabaseMS.getInstance(true).isRequestsFinished());
+			exit = (DatabaseMS.getInstance().isRequestsFinished() && DatabaseMS.getReplicationGroup().isRequestsFinished());
 
 			try {
 				Thread.sleep(1000);
 			} catch (InterruptedException e) {}
 		}
 		
+		//Let the load generator print its report before closing the log
+		DatabaseMS.getInstance().getLoadGenerator().awaitCompletion();
+		
+		//Every database is done, so make sure the backups ended up matching the primary
+		int repaired = DatabaseMS.repairBackup();
+		log.print(DebugLevel.PERCENT, "[{}] Backups {} the primary", Thread.currentThread().getName(), repaired == 0 ? "match" : "repaired " + repaired + " accounts to match");
+		
 		log.warn(DebugLevel.NONE, "[" + Thread.currentThread().getName() + "] has terminated successfully.");
 		log.close();
 	}
@@ -0,0 +1,240 @@
+package cs485.dbms.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cs485.dbms.DatabaseMS;
+import cs485.dbms.data.BalanceSummary;
+
+/**
+ * The runtime metrics of a single {@link DatabaseMS}, exported over JMX under the "cs485.dbms" domain.
+ * 
+ * Counters are striped ({@link LongAdder}) and latencies are recorded into {@link Histogram}s,
+ * so processing threads never block on each other to record a metric.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class DatabaseMetrics implements DatabaseMetricsMXBean
+{
+	private final DatabaseMS database;
+	
+	private final Histogram[] commitLatency = new Histogram[CommitPhase.values().length];
+	private final LongAdder commits = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder rollbacks = new LongAdder();
+	private final LongAdder retriedTransactions = new LongAdder();
+	private final AtomicInteger maxTransactionRetries = new AtomicInteger();
+	
+	public DatabaseMetrics(DatabaseMS database)
+	{
+		this.database = database;
+		
+		for(int i = 0; i < commitLatency.length; ++i)
+			commitLatency[i] = new Histogram();
+	}
+	
+	/**
+	 * Registers these metrics, and a histogram for each commit phase, with the platform MBean server.
+	 * Each database of the process is named by its replica and shard, as "Primary" or "Backup" and the replica's number.
+	 */
+	public void register()
+	{
+		String name = (database.isBackup ? "Backup" + database.getReplica() : "Primary") + ",shard=" + database.getShard();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		try {
+			server.registerMBean(this, new ObjectName("cs485.dbms:type=Database,name=" + name));
+			
+			for(CommitPhase phase : CommitPhase.values())
+				server.registerMBean(commitLatency[phase.ordinal()], new ObjectName("cs485.dbms:type=CommitLatency,database=" + name + ",phase=" + phase.name));
+		} catch (JMException e) { System.err.println("Unable to register the metrics of " + database.getName() + ".\n" + e.toString()); }
+	}
+	
+	/**
+	 * Records the time a committed request spent in the given phase.
+	 * @param phase the phase of the commit
+	 * @param nanos the time spent, in nanoseconds
+	 */
+	public void recordPhase(CommitPhase phase, long nanos)
+	{
+		commitLatency[phase.ordinal()].record(nanos);
+	}
+	
+	/**
+	 * @param phase the phase of the commit
+	 * @return the latency histogram of the given phase.
+	 */
+	public Histogram getCommitLatency(CommitPhase phase)
+	{
+		return commitLatency[phase.ordinal()];
+	}
+	
+	public void countCommit()
+	{
+		commits.increment();
+	}
+	
+	public void countRetry()
+	{
+		retries.increment();
+	}
+	
+	public void countRollback()
+	{
+		rollbacks.increment();
+	}
+	
+	/**
+	 * Records the number of times a committed transaction was retried.
+	 * @param retries the number of retries, 0 if it committed the first time
+	 */
+	public void recordTransactionRetries(int retries)
+	{
+		if(retries == 0)
+			return;
+		
+		retriedTransactions.increment();
+		maxTransactionRetries.accumulateAndGet(retries, Math::max);
+	}
+	
+	public long getCommits()
+	{
+		return commits.sum();
+	}
+	
+	public long getRetries()
+	{
+		return retries.sum();
+	}
+	
+	public long getRollbacks()
+	{
+		return rollbacks.sum();
+	}
+	
+	public long getRetriedTransactions()
+	{
+		return retriedTransactions.sum();
+	}
+	
+	public int getMaxTransactionRetries()
+	{
+		return maxTransactionRetries.get();
+	}
+	
+	public int getWaitingRetries()
+	{
+		return database.getRetryScheduler().getWaitingCount();
+	}
+	
+	public Map<Integer, Integer> getRetryCounts()
+	{
+		return database.getRetryScheduler().getRetryCounts();
+	}
+	
+	public int getActiveTransactions()
+	{
+		return database.getActiveTransactionCount();
+	}
+	
+	public int getRequestQueueDepth()
+	{
+		return database.getRequestQueueDepth();
+	}
+	
+	public int getTellerConnections()
+	{
+		return database.getTellerServer() != null ? database.getTellerServer().getConnectionCount() : 0;
+	}
+	
+	public int getReplicaLag()
+	{
+		return database.isBackup ? 0 : DatabaseMS.getReplicationGroup().getLag();
+	}
+	
+	public int getCommitWatermark()
+	{
+		return database.getCommitTracker().getWatermark();
+	}
+	
+	public double getTotalBalance()
+	{
+		return database.getAccountTable().getBalanceSummary().getTotal();
+	}
+	
+	public BalanceSummary getBalanceSummary()
+	{
+		return database.getAccountTable().getBalanceSummary();
+	}
+	
+	public long getAccountsRootHash()
+	{
+		return database.getAccountsRootHash();
+	}
+	
+	public long[] getPartitionLockWaitNanos()
+	{
+		LockSnapshot[] partitions = database.getAccountTable().getLockProfiler().snapshotPartitions();
+		long[] ret = new long[partitions.length];
+		for(int i = 0; i < partitions.length; ++i)
+			ret[i] = partitions[i].getTotalWaitNanos();
+		return ret;
+	}
+	
+	public LockSnapshot[] getLockContention()
+	{
+		return database.getAccountTable().getLockProfiler().snapshot();
+	}
+	
+	/**
+	 * The phases a commit goes through, each with its own latency histogram.
+	 */
+	public enum CommitPhase
+	{
+		/**
+		 * From the request's BEGIN entering the request queue, until a processing thread starts committing it
+		 */
+		QUEUE_WAIT("queueWait"),
+		/**
+		 * Acquiring the table and account locks
+		 */
+		LOCK_WAIT("lockWait"),
+		/**
+		 * Updating the balances and the account file
+		 */
+		APPLY("apply"),
+		/**
+		 * Writing and flushing the database log
+		 */
+		LOG_FLUSH("logFlush"),
+		/**
+		 * Waiting on the backup database to commit the request
+		 */
+		REPLICATION_WAIT("replicationWait"),
+		/**
+		 * Holding the locks of a prepared branch of a transaction across shards, until its coordinator decides to commit it
+		 */
+		DECISION_WAIT("decisionWait"),
+		/**
+		 * The whole commit, from the start of the queue wait until the commit is logged
+		 */
+		TOTAL("total");
+		
+		//The name of the phase within its ObjectName
+		private final String name;
+		
+		private CommitPhase(String name)
+		{
+			this.name = name;
+		}
+	}
+}
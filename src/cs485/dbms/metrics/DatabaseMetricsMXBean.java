@@ -0,0 +1,102 @@
+package cs485.dbms.metrics;
+
+import java.util.Map;
+
+import cs485.dbms.data.BalanceSummary;
+
+/**
+ * The JMX view of the counters and gauges of a single database. 
+ * The commit latency of each {@link DatabaseMetrics.CommitPhase} is registered as its own {@link HistogramMXBean}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public interface DatabaseMetricsMXBean 
+{
+	/**
+	 * @return the number of requests committed.
+	 */
+	public long getCommits();
+	
+	/**
+	 * @return the number of requests a processing thread failed to handle and scheduled to retry.
+	 */
+	public long getRetries();
+	
+	/**
+	 * @return the number of committed transactions that were retried at least once.
+	 */
+	public long getRetriedTransactions();
+	
+	/**
+	 * @return the most times a committed transaction was retried.
+	 */
+	public int getMaxTransactionRetries();
+	
+	/**
+	 * @return the number of transactions waiting for their retry to be due.
+	 */
+	public int getWaitingRetries();
+	
+	/**
+	 * @return the number of retries so far of each uncommitted transaction that has failed, by request number.
+	 */
+	public Map<Integer, Integer> getRetryCounts();
+	
+	/**
+	 * @return the number of transactions that rolled back already applied updates.
+	 */
+	public long getRollbacks();
+	
+	/**
+	 * @return the number of submitted transactions that haven't been committed yet.
+	 */
+	public int getActiveTransactions();
+	
+	/**
+	 * @return the number of transactions waiting in the request queue.
+	 */
+	public int getRequestQueueDepth();
+	
+	/**
+	 * @return the number of tellers connected over the network, 0 if not serving tellers over the network.
+	 */
+	public int getTellerConnections();
+	
+	/**
+	 * @return the number of requests committed by the primary database that the backup database furthest behind has not committed yet, 0 for a backup.
+	 */
+	public int getReplicaLag();
+	
+	/**
+	 * @return the lowest request # not committed yet, every request below it has been committed.
+	 */
+	public int getCommitWatermark();
+	
+	/**
+	 * @return the total balance of every account, from the running summaries of the account table.
+	 */
+	public double getTotalBalance();
+	
+	/**
+	 * @return the number of accounts, and their total, min and max balance.
+	 */
+	public BalanceSummary getBalanceSummary();
+	
+	/**
+	 * @return the root of the hash tree over the account file, equal between databases whose account files match.
+	 */
+	public long getAccountsRootHash();
+	
+	/**
+	 * @return the total time spent waiting on the row locks of each partition of the account table, in nanoseconds.
+	 */
+	public long[] getPartitionLockWaitNanos();
+	
+	/**
+	 * @return the contention statistics of the row locks of each partition, followed by the table read and write locks.
+	 */
+	public LockSnapshot[] getLockContention();
+}
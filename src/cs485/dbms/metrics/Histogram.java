@@ -0,0 +1,148 @@
+package cs485.dbms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of nanosecond durations, in the style of an HDR histogram.
+ * 
+ * Values are counted in log-linear buckets: every power of two is split into 32 equal buckets,
+ * so any recorded value is reported within ~3% of its true value, with a fixed amount of memory no matter the range.
+ * Recording a value is a couple of shifts and an atomic increment, cheap enough to stay on in production.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class Histogram implements HistogramMXBean
+{
+	//Buckets per power of two are 2^SUB_BITS
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	//Enough buckets for any positive long
+	private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Records a single duration.
+	 * @param nanos the duration to record, negative values are recorded as 0.
+	 */
+	public void record(long nanos)
+	{
+		if(nanos < 0)
+			nanos = 0;
+		
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.increment();
+		sum.add(nanos);
+		
+		//Only attempt to update the max when it is actually exceeded
+		long curMax = max.get();
+		while(nanos > curMax && !max.compareAndSet(curMax, nanos))
+			curMax = max.get();
+	}
+	
+	//The bucket index holding the given value
+	private static int bucketOf(long value)
+	{
+		if(value < SUB_COUNT)
+			return (int) value;
+		
+		//The highest set bit decides the power of two, the next SUB_BITS bits decide the bucket within it
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BITS;
+		return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) & (SUB_COUNT - 1));
+	}
+	
+	//The largest value counted by the given bucket index
+	private static long highestValueOf(int bucket)
+	{
+		if(bucket < SUB_COUNT)
+			return bucket;
+		
+		int shift = bucket / SUB_COUNT - 1;
+		long lowest = (long) (SUB_COUNT + bucket % SUB_COUNT) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+	
+	/**
+	 * @param percentile the percentile to retrieve, from 0 to 100
+	 * @return the recorded value in nanoseconds at the given percentile, or 0 if nothing was recorded.
+	 */
+	public long getPercentile(double percentile)
+	{
+		long total = count.sum();
+		if(total == 0)
+			return 0;
+		
+		long target = Math.max(1, (long) Math.ceil(percentile / 100.0d * total));
+		long seen = 0;
+		
+		for(int i = 0; i < BUCKET_COUNT; ++i)
+		{
+			seen += buckets.get(i);
+			if(seen >= target)
+				return Math.min(highestValueOf(i), max.get());
+		}
+		
+		return max.get();
+	}
+	
+	public long getCount()
+	{
+		return count.sum();
+	}
+	
+	/**
+	 * @return the sum of every recorded value, in nanoseconds.
+	 */
+	public long getSum()
+	{
+		return sum.sum();
+	}
+	
+	/**
+	 * @return the largest recorded value, in nanoseconds.
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+	
+	public double getMeanMicros()
+	{
+		long total = count.sum();
+		return total == 0 ? 0 : sum.sum() / 1000.0d / total;
+	}
+	
+	public double getP50Micros()
+	{
+		return getPercentile(50) / 1000.0d;
+	}
+	
+	public double getP90Micros()
+	{
+		return getPercentile(90) / 1000.0d;
+	}
+	
+	public double getP99Micros()
+	{
+		return getPercentile(99) / 1000.0d;
+	}
+	
+	public double getP999Micros()
+	{
+		return getPercentile(99.9) / 1000.0d;
+	}
+	
+	public double getMaxMicros()
+	{
+		return max.get() / 1000.0d;
+	}
+}
@@ -0,0 +1,26 @@
+package cs485.dbms.metrics;
+
+/**
+ * The JMX view of a {@link Histogram}, with every value reported in microseconds.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public interface HistogramMXBean 
+{
+	public long getCount();
+	
+	public double getMeanMicros();
+	
+	public double getP50Micros();
+	
+	public double getP90Micros();
+	
+	public double getP99Micros();
+	
+	public double getP999Micros();
+	
+	public double getMaxMicros();
+}
@@ -0,0 +1,119 @@
+package cs485.dbms.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Holds the {@link LockStats} of every lock in an account table: one per partition covering the row locks of its accounts, plus the table read and write locks.
+ * Offers a live snapshot of all of them, and a periodic report of the most contended partitions to the log.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockProfiler 
+{
+	//The number of partitions listed by each periodic report
+	private static final int REPORTED_PARTITIONS = 5;
+	
+	private final LockStats[] partitions;
+	private final LockStats tableRead = new LockStats("table read");
+	private final LockStats tableWrite = new LockStats("table write");
+	
+	private ScheduledExecutorService reporter;
+	
+	public LockProfiler(int partitionCount)
+	{
+		partitions = new LockStats[partitionCount];
+		for(int i = 0; i < partitionCount; ++i)
+			partitions[i] = new LockStats("partition #" + i);
+	}
+	
+	public LockStats getPartition(int partition)
+	{
+		return partitions[partition];
+	}
+	
+	public LockStats getTableRead()
+	{
+		return tableRead;
+	}
+	
+	public LockStats getTableWrite()
+	{
+		return tableWrite;
+	}
+	
+	/**
+	 * @return a snapshot of the row locks of each partition's accounts, indexed by partition.
+	 */
+	public LockSnapshot[] snapshotPartitions()
+	{
+		LockSnapshot[] ret = new LockSnapshot[partitions.length];
+		for(int i = 0; i < partitions.length; ++i)
+			ret[i] = partitions[i].snapshot();
+		return ret;
+	}
+	
+	/**
+	 * @return a snapshot of every lock: the row locks by partition, followed by the table read and write locks.
+	 */
+	public LockSnapshot[] snapshot()
+	{
+		LockSnapshot[] ret = Arrays.copyOf(snapshotPartitions(), partitions.length + 2);
+		ret[partitions.length] = tableRead.snapshot();
+		ret[partitions.length + 1] = tableWrite.snapshot();
+		return ret;
+	}
+	
+	/**
+	 * @return a report of the table locks and the partitions with the most time spent waiting on them.
+	 */
+	public String report()
+	{
+		LockSnapshot[] sorted = snapshotPartitions();
+		Arrays.sort(sorted, (LockSnapshot a, LockSnapshot b) -> Long.compare(b.getTotalWaitNanos(), a.getTotalWaitNanos()));
+		
+		String ret = "Lock contention:\n\t" + tableRead.snapshot() + "\n\t" + tableWrite.snapshot();
+		for(int i = 0; i < Math.min(REPORTED_PARTITIONS, sorted.length); ++i)
+			ret += "\n\t" + sorted[i];
+		
+		return ret;
+	}
+	
+	/**
+	 * Starts logging {@link #report()} on a background thread, if not already started.
+	 * @param name the name to prefix each report with.
+	 * @param periodSeconds the time between reports.
+	 */
+	public synchronized void startReporting(String name, int periodSeconds)
+	{
+		if(reporter != null)
+			return;
+		
+		reporter = Executors.newSingleThreadScheduledExecutor((Runnable r) -> {
+			Thread thread = new Thread(r, name + " (Lock Profiler)");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(() -> Main.log.print(DebugLevel.NONE, () -> "[" + name + "] " + report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Stops the periodic report, if started.
+	 */
+	public synchronized void stopReporting()
+	{
+		if(reporter != null)
+		{
+			reporter.shutdownNow();
+			reporter = null;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package cs485.dbms.metrics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of the {@link LockStats} of a single lock at one point in time.
+ * The getters make it readable over JMX as composite data.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockSnapshot 
+{
+	private final String name;
+	private final long acquisitions, contendedAcquisitions, failedAttempts, aborts;
+	private final long totalWaitNanos, maxWaitNanos, totalHoldNanos, maxHoldNanos;
+	private final int[] topAccounts;
+	private final long[] topCounts;
+	
+	LockSnapshot(String name, long acquisitions, long contendedAcquisitions, long failedAttempts, long aborts, long totalWaitNanos, 
+			long maxWaitNanos, long totalHoldNanos, long maxHoldNanos, int[] accounts, long[] counts)
+	{
+		this.name = name;
+		this.acquisitions = acquisitions;
+		this.contendedAcquisitions = contendedAcquisitions;
+		this.failedAttempts = failedAttempts;
+		this.aborts = aborts;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.totalHoldNanos = totalHoldNanos;
+		this.maxHoldNanos = maxHoldNanos;
+		
+		//Order the contending accounts from most to least contended, dropping unused slots
+		Integer[] order = new Integer[accounts.length];
+		for(int i = 0; i < order.length; ++i)
+			order[i] = i;
+		Arrays.sort(order, (Integer a, Integer b) -> Long.compare(counts[b], counts[a]));
+		
+		int used = 0;
+		for(long count : counts)
+			if(count > 0)
+				++used;
+		
+		topAccounts = new int[used];
+		topCounts = new long[used];
+		for(int i = 0; i < used; ++i)
+		{
+			topAccounts[i] = accounts[order[i]];
+			topCounts[i] = counts[order[i]];
+		}
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public long getAcquisitions()
+	{
+		return acquisitions;
+	}
+	
+	/**
+	 * @return the number of acquisitions that had to wait on another holder.
+	 */
+	public long getContendedAcquisitions()
+	{
+		return contendedAcquisitions;
+	}
+	
+	/**
+	 * @return the number of tryLock calls that returned without the lock.
+	 */
+	public long getFailedAttempts()
+	{
+		return failedAttempts;
+	}
+	
+	/**
+	 * @return the number of acquisitions aborted as the victim of a deadlock.
+	 */
+	public long getAborts()
+	{
+		return aborts;
+	}
+	
+	public long getTotalWaitNanos()
+	{
+		return totalWaitNanos;
+	}
+	
+	public long getMaxWaitNanos()
+	{
+		return maxWaitNanos;
+	}
+	
+	public long getTotalHoldNanos()
+	{
+		return totalHoldNanos;
+	}
+	
+	public long getMaxHoldNanos()
+	{
+		return maxHoldNanos;
+	}
+	
+	/**
+	 * @return the account numbers that waited on this lock the most, most contended first.
+	 */
+	public int[] getTopAccounts()
+	{
+		return topAccounts.clone();
+	}
+	
+	/**
+	 * @return the (approximate, over-estimated) number of waits for each of {@link #getTopAccounts()}.
+	 */
+	public long[] getTopCounts()
+	{
+		return topCounts.clone();
+	}
+	
+	public String toString()
+	{
+		String accounts = "";
+		for(int i = 0; i < topAccounts.length; ++i)
+			accounts += (i > 0 ? ", " : "") + "#" + topAccounts[i] + "(" + topCounts[i] + ")";
+		
+		return name + ": " + acquisitions + " acquired (" + contendedAcquisitions + " contended), " + failedAttempts + " failed attempts, " + aborts + " deadlock aborts, wait " 
+				+ String.format("%.2f", totalWaitNanos / 1000000.0d) + "ms total/" + String.format("%.2f", maxWaitNanos / 1000000.0d) + "ms max, hold " 
+				+ String.format("%.2f", totalHoldNanos / 1000000.0d) + "ms total/" + String.format("%.2f", maxHoldNanos / 1000000.0d) + "ms max" 
+				+ (topAccounts.length > 0 ? ", top contenders " + accounts : "");
+	}
+}
@@ -0,0 +1,147 @@
+package cs485.dbms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on contention accounting for a single lock, recorded by the thread acquiring and releasing it.
+ * 
+ * Uncontended acquisitions only touch striped counters. Only an acquisition that had to wait records which account it was for,
+ * kept as the top {@link #TOP_ACCOUNTS} contending accounts by a space-saving count.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockStats 
+{
+	/**
+	 * The number of contending account numbers tracked per lock.
+	 */
+	public static final int TOP_ACCOUNTS = 8;
+	
+	private final String name;
+	
+	private final LongAdder acquisitions = new LongAdder();
+	private final LongAdder contendedAcquisitions = new LongAdder();
+	private final LongAdder failedAttempts = new LongAdder();
+	private final LongAdder aborts = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final LongAdder totalHoldNanos = new LongAdder();
+	private final AtomicLong maxHoldNanos = new AtomicLong();
+	
+	//The space-saving summary of contending accounts, guarded by this
+	private final int[] topAccounts = new int[TOP_ACCOUNTS];
+	private final long[] topCounts = new long[TOP_ACCOUNTS];
+	
+	public LockStats(String name)
+	{
+		this.name = name;
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Records a successful acquisition of this lock.
+	 * @param waitNanos the time spent acquiring the lock, including failed attempts.
+	 * @param contended true if the first attempt to acquire the lock failed.
+	 * @param accountNumber the account the lock was acquired for, or -1 if not for a single account.
+	 */
+	public void recordAcquire(long waitNanos, boolean contended, int accountNumber)
+	{
+		acquisitions.increment();
+		totalWaitNanos.add(waitNanos);
+		updateMax(maxWaitNanos, waitNanos);
+		
+		if(contended)
+		{
+			contendedAcquisitions.increment();
+			
+			if(accountNumber > -1)
+				recordContender(accountNumber);
+		}
+	}
+	
+	/**
+	 * Records an acquisition of this lock that gave up, aborted as the victim of a deadlock.
+	 * @param waitNanos the time spent waiting on the lock before giving up.
+	 * @param accountNumber the account the lock was requested for, or -1 if not for a single account.
+	 */
+	public void recordAbort(long waitNanos, int accountNumber)
+	{
+		aborts.increment();
+		totalWaitNanos.add(waitNanos);
+		updateMax(maxWaitNanos, waitNanos);
+		
+		if(accountNumber > -1)
+			recordContender(accountNumber);
+	}
+	
+	/**
+	 * Records that an acquisition found this lock held in a conflicting way, and had to wait.
+	 */
+	public void recordFailedAttempt()
+	{
+		failedAttempts.increment();
+	}
+	
+	/**
+	 * Records the release of this lock.
+	 * @param holdNanos the time the lock was held for.
+	 */
+	public void recordRelease(long holdNanos)
+	{
+		totalHoldNanos.add(holdNanos);
+		updateMax(maxHoldNanos, holdNanos);
+	}
+	
+	private static void updateMax(AtomicLong max, long value)
+	{
+		long cur = max.get();
+		while(value > cur && !max.compareAndSet(cur, value))
+			cur = max.get();
+	}
+	
+	//Space-saving: count the account if tracked, otherwise it replaces the least counted account
+	private synchronized void recordContender(int accountNumber)
+	{
+		int min = 0;
+		for(int i = 0; i < TOP_ACCOUNTS; ++i)
+		{
+			if(topCounts[i] > 0 && topAccounts[i] == accountNumber)
+			{
+				++topCounts[i];
+				return;
+			}
+			
+			if(topCounts[i] < topCounts[min])
+				min = i;
+		}
+		
+		topAccounts[min] = accountNumber;
+		++topCounts[min];
+	}
+	
+	/**
+	 * @return a point in time copy of these statistics.
+	 */
+	public LockSnapshot snapshot()
+	{
+		int[] accounts;
+		long[] counts;
+		
+		synchronized(this)
+		{
+			accounts = topAccounts.clone();
+			counts = topCounts.clone();
+		}
+		
+		return new LockSnapshot(name, acquisitions.sum(), contendedAcquisitions.sum(), failedAttempts.sum(), aborts.sum(), totalWaitNanos.sum(), 
+				maxWaitNanos.get(), totalHoldNanos.sum(), maxHoldNanos.get(), accounts, counts);
+	}
+}
@@ -0,0 +1,105 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.metrics.DatabaseMetrics;
+
+/**
+ * Tests that the {@link CommitPipeline} logs and answers the commits handed over by many processing threads, in the order handed over.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class CommitPipelineTest
+{
+	private static final int THREADS = 4, PER_THREAD = 2000;
+	
+	private final StringWriter written = new StringWriter();
+	private final CommitTracker tracker = new CommitTracker();
+	private final ActiveTransactions active = new ActiveTransactions();
+	//Small enough that the processing threads lap the response stage many times over
+	private final CommitPipeline pipeline = new CommitPipeline("Test DBMS", new PrintWriter(written), tracker, active, new DatabaseMetrics(null), 8);
+	
+	@Test
+	public void commitsAreAnsweredOnceLoggedInOrder()
+	{
+		//Added by the single response thread, so in the order answered
+		ConcurrentLinkedQueue<String> answered = new ConcurrentLinkedQueue<String>();
+		ConcurrentLinkedQueue<Integer> answeredEarly = new ConcurrentLinkedQueue<Integer>();
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		for(int t = 0; t < THREADS; ++t)
+		{
+			int first = t;
+			threads.add(new Thread(() ->
+			{
+				for(int request = first; request < THREADS * PER_THREAD; request += THREADS)
+				{
+					Submission submission = submit(request);
+					submission.future.thenAccept(transaction ->
+					{
+						if(!tracker.isCommitted(transaction.getRequestNumber()) || active.get(transaction.getRequestNumber()) != null)
+							answeredEarly.add(transaction.getRequestNumber());
+						answered.add(transaction.toLog());
+					});
+					pipeline.publish(submission, submission.transaction.toLog());
+				}
+			}));
+		}
+		
+		pipeline.start();
+		assertTimeoutPreemptively(Duration.ofSeconds(60), () ->
+		{
+			for(Thread thread : threads)
+				thread.start();
+			for(Thread thread : threads)
+				thread.join();
+			while(answered.size() < THREADS * PER_THREAD)
+				Thread.sleep(1);
+		});
+		pipeline.close();
+		
+		assertEquals(List.of(), List.copyOf(answeredEarly));
+		assertEquals(THREADS * PER_THREAD, tracker.getWatermark());
+		assertEquals(0, active.size());
+		assertEquals(String.join("\n", answered) + "\n", written.toString());
+	}
+	
+	@Test
+	public void closingLogsAndAnswersEveryPublishedCommit()
+	{
+		pipeline.start();
+		Submission[] submissions = new Submission[5];
+		for(int request = 0; request < submissions.length; ++request)
+		{
+			submissions[request] = submit(request);
+			pipeline.publish(submissions[request], submissions[request].transaction.toLog());
+		}
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(10), pipeline::close);
+		assertTrue(Arrays.stream(submissions).allMatch(submission -> submission.future.isDone()));
+		assertEquals(submissions.length, written.toString().split("\n<BEGIN ").length);
+	}
+	
+	//A transaction submitted and applied, as handed over by a processing thread
+	private Submission submit(int request)
+	{
+		Submission ret = new Submission(new Transaction(request, new int[] {42001}, new int[] {42002}, new double[] {request / 100.0d}));
+		active.add(ret);
+		return ret;
+	}
+}
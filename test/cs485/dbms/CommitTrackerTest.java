@@ -0,0 +1,74 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the watermark of {@link CommitTracker} around requests that are never committed.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class CommitTrackerTest
+{
+	@Test
+	public void watermarkFollowsCommits()
+	{
+		CommitTracker tracker = new CommitTracker();
+		tracker.markCommitted(1);
+		assertEquals(0, tracker.getWatermark());
+		
+		tracker.markCommitted(0);
+		assertEquals(2, tracker.getWatermark());
+		assertTrue(tracker.isCommitted(1));
+		assertFalse(tracker.isCommitted(2));
+		assertFalse(tracker.markCommitted(1));
+		assertEquals(2, tracker.getCommittedCount());
+	}
+	
+	@Test
+	public void permanentGapHoldsWatermarkUntilSkipped()
+	{
+		CommitTracker tracker = new CommitTracker();
+		//Request 5 never arrives, as one rejected or held by another shard
+		for(int request = 0; request < 10; ++request)
+		{
+			if(request != 5)
+				tracker.markCommitted(request);
+		}
+		assertEquals(5, tracker.getWatermark());
+		
+		assertTrue(tracker.markSkipped(5));
+		assertEquals(10, tracker.getWatermark());
+		assertEquals(9, tracker.getCommittedCount());
+		assertFalse(tracker.markSkipped(5));
+		assertFalse(tracker.markCommitted(5));
+	}
+	
+	@Test
+	public void skippingGapDrainsCommitsPastTheWindow()
+	{
+		CommitTracker tracker = new CommitTracker();
+		int total = CommitTracker.WINDOW * 2 + 100;
+		for(int request = 1; request < total; ++request)
+			tracker.markCommitted(request);
+		
+		//Everything past the window waits on request 0
+		assertEquals(0, tracker.getWatermark());
+		assertTrue(tracker.isCommitted(total - 1));
+		
+		tracker.markSkipped(0);
+		assertEquals(total, tracker.getWatermark());
+		assertEquals(total - 1, tracker.getCommittedCount());
+		
+		//The bitmap is free for the requests of the next window
+		assertFalse(tracker.isCommitted(total + CommitTracker.WINDOW - 1));
+		assertTrue(tracker.markCommitted(total));
+		assertEquals(total + 1, tracker.getWatermark());
+	}
+}
@@ -0,0 +1,56 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the session tokens of {@link ReadRouter} for a teller with several transactions in flight.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReadRouterTest
+{
+	@Test
+	public void sessionKeepsHighestCommitWithWindowedTransactions()
+	{
+		ReadRouter.Session session = new ReadRouter.Session();
+		assertEquals(-1, session.getToken());
+		
+		//A window of three, completing out of the order sent
+		session.committed(5);
+		session.committed(7);
+		session.committed(6);
+		assertEquals(7, session.getToken());
+	}
+	
+	@Test
+	public void backupServesSessionOnlyOnceEveryEarlierCommitHasReplicated()
+	{
+		ReadRouter.Session session = new ReadRouter.Session();
+		session.committed(6);
+		session.committed(7);
+		
+		//The backup committed the teller's latest request before its earlier one
+		CommitTracker backup = new CommitTracker();
+		for(int request = 0; request < 6; ++request)
+			backup.markCommitted(request);
+		backup.markCommitted(7);
+		assertTrue(backup.isCommitted(session.getToken()));
+		assertFalse(ReadRouter.Session.hasCommitted(backup, session.getToken()));
+		
+		backup.markCommitted(6);
+		assertTrue(ReadRouter.Session.hasCommitted(backup, session.getToken()));
+	}
+	
+	@Test
+	public void sessionWithoutCommitsReadsFromAnyBackup()
+	{
+		assertTrue(ReadRouter.Session.hasCommitted(new CommitTracker(), new ReadRouter.Session().getToken()));
+	}
+}
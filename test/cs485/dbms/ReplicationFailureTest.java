@@ -0,0 +1,126 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.data.AccountSnapshot;
+import cs485.dbms.lock.LockMode;
+import cs485.dbms.lock.LockOwner;
+
+/**
+ * Runs the primary against a replica in another process that fails to commit one transaction,
+ * which the primary must roll back and retry rather than leave holding its locks.
+ * The backup in this process commits that transaction the first time it is sent, and must still match the primary once it is retried.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReplicationFailureTest
+{
+	private static final int TRANSACTIONS = 50;
+	
+	//The request the replica rejected, -1 until it has
+	private final AtomicInteger rejected = new AtomicInteger(-1);
+	
+	@Test
+	public void retriesCommitRejectedByReplica() throws IOException
+	{
+		long expectedCents = Files.lines(TestDatabases.getAccounts().toPath())
+				.mapToLong(line -> Math.round(Double.parseDouble(line.substring(line.lastIndexOf('\t') + 1)) * 100)).sum();
+		
+		ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+		Thread replica = new Thread(() -> serve(server), "Failing replica");
+		replica.setDaemon(true);
+		replica.start();
+		
+		DatabaseMS primary = TestDatabases.start("--tellers=2", "--transactions=" + TRANSACTIONS, "--replicas=1",
+				"--remoteReplicas=localhost:" + server.socket().getLocalPort(), "--quorum=2", "--seed=485");
+		DatabaseMS backup = DatabaseMS.getInstance(true);
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(60), () ->
+		{
+			while(!primary.isRequestsFinished() || !backup.isRequestsFinished())
+				Thread.sleep(50);
+			
+			//Every lock of the failed commit was released
+			LockOwner owner = new LockOwner(Long.MAX_VALUE);
+			assertTrue(primary.getAccountTable().lockTable(owner, LockMode.X));
+			primary.getAccountTable().unlockAll(owner);
+		});
+		
+		assertTrue(rejected.get() >= 0);
+		assertTrue(primary.getCommitTracker().isCommitted(rejected.get()));
+		assertEquals(TRANSACTIONS, primary.getCommittedCount());
+		assertEquals(0, primary.getActiveTransactionCount());
+		assertTrue(primary.getMetrics().getRetries() >= 1);
+		assertEquals(expectedCents, primary.getAccountTable().getBalanceSummary().getTotalCents());
+		
+		//The backup kept the rejected transaction from its first attempt, and skipped it when sent again
+		assertEquals(TRANSACTIONS, backup.getCommittedCount());
+		AccountSnapshot snapshot = primary.getAccountTable().snapshot();
+		snapshot.indexes().forEach(i -> assertEquals(snapshot.getBalance(i),
+				backup.getAccountTable().get(snapshot.getAccountNumber(i)).getBalance(), "Account #" + snapshot.getAccountNumber(i)));
+	}
+	
+	//Acknowledges every transaction the primary sends, but the first
+	private void serve(ServerSocketChannel server)
+	{
+		try(SocketChannel channel = server.accept())
+		{
+			ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader();
+			while(reader.read(channel, (type, count, entries) -> respond(channel, type, count, entries)));
+		} catch (IOException e) {}
+	}
+	
+	private void respond(SocketChannel channel, byte type, int count, ByteBuffer entries)
+	{
+		if(type != ReplicationProtocol.TRANSACTIONS)
+			return;
+		
+		ByteBuffer acks = ByteBuffer.allocate(ReplicationProtocol.HEADER + count * 4);
+		ByteBuffer rejects = ByteBuffer.allocate(ReplicationProtocol.HEADER + 4);
+		ReplicationProtocol.beginFrame(acks);
+		ReplicationProtocol.beginFrame(rejects);
+		int acked = 0;
+		
+		for(int i = 0; i < count; ++i)
+		{
+			int request = ReplicationProtocol.getTransaction(entries).getRequestNumber();
+			if(rejected.compareAndSet(-1, request))
+			{
+				rejects.putInt(request);
+			}
+			else
+			{
+				acks.putInt(request);
+				++acked;
+			}
+		}
+		
+		ReplicationProtocol.endFrame(acks, ReplicationProtocol.ACKS, acked);
+		ReplicationProtocol.endFrame(rejects, ReplicationProtocol.REJECTS, count - acked);
+		try {
+			while(count > acked && rejects.hasRemaining())
+				channel.write(rejects);
+			while(acked > 0 && acks.hasRemaining())
+				channel.write(acks);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
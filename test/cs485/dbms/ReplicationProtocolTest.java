@@ -0,0 +1,135 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the framing of the {@link ReplicationProtocol}, as read by the teller server and replicas from any peer.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class ReplicationProtocolTest
+{
+	//The sending end of the connection, and the end read from
+	private SocketChannel peer, channel;
+	private final ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader();
+	private final List<Transaction> received = new ArrayList<Transaction>();
+	
+	@BeforeEach
+	public void connect() throws IOException
+	{
+		try(ServerSocketChannel server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0)))
+		{
+			peer = SocketChannel.open(server.getLocalAddress());
+			channel = server.accept();
+		}
+	}
+	
+	@AfterEach
+	public void close() throws IOException
+	{
+		peer.close();
+		channel.close();
+	}
+	
+	@Test
+	public void framesSplitAcrossReadsAreReassembled() throws IOException
+	{
+		Transaction first = new Transaction(7, new int[] {42001, 42002}, new int[] {42003, 42004}, new double[] {12.5, 0.125});
+		Transaction second = new Transaction(8, new int[] {42005}, new int[] {42006}, new double[] {99.99});
+		ByteBuffer frames = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME);
+		frames.put(frame(first)).put(frame(second)).flip();
+		
+		//Sent a few bytes at a time, so frames end mid read
+		while(frames.hasRemaining())
+		{
+			ByteBuffer part = frames.slice(frames.position(), Math.min(5, frames.remaining()));
+			frames.position(frames.position() + part.remaining());
+			peer.write(part);
+			reader.read(channel, this::handle);
+		}
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+		{
+			while(received.size() < 2)
+				reader.read(channel, this::handle);
+		});
+		assertEquals(List.of(first, second), received);
+	}
+	
+	@Test
+	public void oversizedFrameIsRejectedBeforeAllocating() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(ReplicationProtocol.HEADER).putInt(Integer.MAX_VALUE).put(ReplicationProtocol.TRANSACTIONS).putInt(1).flip();
+		peer.write(header);
+		assertRejected();
+	}
+	
+	@Test
+	public void forgedTransferCountIsRejectedBeforeAllocating() throws IOException
+	{
+		ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME);
+		ReplicationProtocol.beginFrame(out);
+		out.putInt(7).putInt(Integer.MAX_VALUE / 8);
+		ReplicationProtocol.endFrame(out, ReplicationProtocol.TRANSACTIONS, 1);
+		peer.write(out);
+		assertRejected();
+	}
+	
+	@Test
+	public void negativeEntryCountIsRejected() throws IOException
+	{
+		ByteBuffer out = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME);
+		ReplicationProtocol.beginFrame(out);
+		ReplicationProtocol.endFrame(out, ReplicationProtocol.ACKS, -1);
+		peer.write(out);
+		assertRejected();
+	}
+	
+	private ByteBuffer frame(Transaction transaction)
+	{
+		ByteBuffer ret = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME);
+		ReplicationProtocol.beginFrame(ret);
+		ReplicationProtocol.putTransaction(ret, transaction);
+		ReplicationProtocol.endFrame(ret, ReplicationProtocol.TRANSACTIONS, 1);
+		return ret;
+	}
+	
+	private void handle(byte type, int count, ByteBuffer entries)
+	{
+		for(int i = 0; i < count; ++i)
+			received.add(ReplicationProtocol.getTransaction(entries));
+	}
+	
+	//Reads until the frame sent fails, which it must before anything is handled
+	private void assertRejected()
+	{
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+		{
+			assertThrows(ProtocolException.class, () ->
+			{
+				while(true)
+					reader.read(channel, this::handle);
+			});
+		});
+		assertEquals(0, received.size());
+	}
+}
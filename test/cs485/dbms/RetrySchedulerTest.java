@@ -0,0 +1,89 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link RetryScheduler} hands back failed transactions in the order they fall due, and stops backing off old ones.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RetrySchedulerTest
+{
+	@Test
+	public void retriesAreTakenOnceDueInDueOrder() throws InterruptedException
+	{
+		ActiveTransactions active = new ActiveTransactions();
+		RetryScheduler retries = new RetryScheduler(active);
+		assertNull(retries.pollDue());
+		
+		//Held in doubt for the longest backoff, so the retry scheduled after it falls due first
+		Submission held = submission(active, 1), retried = submission(active, 2);
+		retries.hold(held);
+		retries.retry(retried);
+		assertNull(retries.pollDue());
+		assertEquals(2, retries.getWaitingCount());
+		
+		Thread.sleep(150);
+		assertSame(retried, retries.pollDue());
+		assertSame(held, retries.pollDue());
+		assertNull(retries.pollDue());
+		assertEquals(0, retries.getWaitingCount());
+		assertEquals(Map.of(1, 1, 2, 1), retries.getRetryCounts());
+	}
+	
+	@Test
+	public void backoffGrowsWithEachFailure() throws InterruptedException
+	{
+		ActiveTransactions active = new ActiveTransactions();
+		RetryScheduler retries = new RetryScheduler(active);
+		Submission submission = submission(active, 1);
+		
+		long last = 0;
+		for(int attempt = 1; attempt <= 4; ++attempt)
+		{
+			long failed = System.nanoTime();
+			retries.retry(submission);
+			long backoff = submission.getNextAttempt() - failed;
+			//At least half the doubled backoff, so never shorter than half the last one at its longest
+			assertTrue(backoff >= last / 2, "Attempt " + attempt);
+			last = backoff;
+			
+			while(retries.pollDue() == null)
+				Thread.sleep(1);
+		}
+		assertEquals(4, submission.getAttempts());
+	}
+	
+	@Test
+	public void transactionsSubmittedLongAgoStopBackingOff() throws InterruptedException
+	{
+		ActiveTransactions active = new ActiveTransactions();
+		RetryScheduler retries = new RetryScheduler(active);
+		Submission old = submission(active, 1);
+		Thread.sleep(550);
+		
+		//Aged by when it was submitted, so even its first failure is retried at once, ahead of a newer one due later
+		Submission young = submission(active, 2);
+		retries.retry(young);
+		retries.retry(old);
+		assertSame(old, retries.pollDue());
+		assertNull(retries.pollDue());
+	}
+	
+	private static Submission submission(ActiveTransactions active, int requestNumber)
+	{
+		Submission ret = new Submission(new Transaction(requestNumber, new int[] {42001}, new int[] {42002}, new double[] {1}));
+		active.add(ret);
+		return ret;
+	}
+}
@@ -0,0 +1,168 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests tellers sending to the primary over the network through its {@link TellerServer}: many transactions in flight
+ * on one connection, frames split across writes, and connections sending what the server must turn away.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class TellerServerTest
+{
+	private static DatabaseMS primary;
+	private static InetSocketAddress address;
+	private static TellerClient client;
+	
+	@BeforeAll
+	public static void start() throws IOException
+	{
+		int port = TestDatabases.freePort();
+		//The tellers of the run only read balances, so every transfer is one of these tests'
+		primary = TestDatabases.start("--tellers=1", "--reads=1", "--rate=1", "--duration=600", "--serverPort=" + port, "--seed=485");
+		address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+		client = new TellerClient();
+	}
+	
+	@AfterAll
+	public static void close()
+	{
+		client.close();
+	}
+	
+	@Test
+	public void pipelinedTransactionsAllCommit() throws IOException
+	{
+		TellerClient.Connection connection = client.connect(address, 64);
+		double[] before = balances(connection, 42001, 42040);
+		
+		List<CompletableFuture<Transaction>> committed = new ArrayList<CompletableFuture<Transaction>>();
+		for(int i = 0; i < 400; ++i)
+			committed.add(connection.submit(transfer(42001 + i % 20, 42021 + i % 20, 1.25d)));
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(60), () -> CompletableFuture.allOf(committed.toArray(new CompletableFuture[0])).join());
+		assertEquals(0, connection.getInFlight());
+		
+		//20 transfers out of each source and into each target
+		double[] after = balances(connection, 42001, 42040);
+		for(int i = 0; i < 20; ++i)
+		{
+			assertEquals(before[i] - 25, after[i], 1e-9, "Account #" + (42001 + i));
+			assertEquals(before[20 + i] + 25, after[20 + i], 1e-9, "Account #" + (42021 + i));
+		}
+		connection.close();
+	}
+	
+	@Test
+	public void reusedAndNegativeRequestNumbersAreRejected() throws IOException
+	{
+		TellerClient.Connection connection = client.connect(address);
+		Transaction first = transfer(42041, 42042, 1);
+		connection.submit(first).join();
+		
+		//Another teller reusing the number once it is committed
+		TellerClient.Connection other = client.connect(address);
+		Transaction reused = new Transaction(first.getRequestNumber(), new int[] {42043}, new int[] {42044}, new double[] {1});
+		assertThrows(CompletionException.class, () -> other.submit(reused).join());
+		assertThrows(CompletionException.class, () -> other.submit(new Transaction(-5, new int[] {42043}, new int[] {42044}, new double[] {1})).join());
+		
+		//Turned away without closing the connection, or committing any of it
+		assertEquals(1000000.0d, other.getBalance(42043).join());
+		assertEquals(Double.NaN, other.getBalance(1).join());
+		connection.close();
+		other.close();
+	}
+	
+	@Test
+	public void frameSplitAcrossWritesIsAnswered() throws Exception
+	{
+		Transaction transaction = transfer(42045, 42046, 2.5d);
+		ByteBuffer frame = ByteBuffer.allocate(ReplicationProtocol.MAX_FRAME);
+		ReplicationProtocol.beginFrame(frame);
+		ReplicationProtocol.putTransaction(frame, transaction);
+		ReplicationProtocol.endFrame(frame, TellerProtocol.SUBMIT, 1);
+		
+		try(SocketChannel channel = SocketChannel.open(address))
+		{
+			channel.socket().setTcpNoDelay(true);
+			//A few bytes at a time, so the server reads the frame in pieces
+			while(frame.hasRemaining())
+			{
+				channel.write(frame.slice(frame.position(), Math.min(3, frame.remaining())));
+				frame.position(frame.position() + Math.min(3, frame.remaining()));
+				Thread.sleep(1);
+			}
+			
+			List<Integer> answered = new ArrayList<Integer>();
+			ReplicationProtocol.FrameReader reader = new ReplicationProtocol.FrameReader();
+			assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+			{
+				while(answered.isEmpty())
+				{
+					reader.read(channel, (type, count, entries) ->
+					{
+						assertEquals(TellerProtocol.COMMITTED, type);
+						for(int i = 0; i < count; ++i)
+							answered.add(entries.getInt());
+					});
+				}
+			});
+			assertEquals(List.of(transaction.getRequestNumber()), answered);
+		}
+	}
+	
+	@Test
+	public void malformedFrameOnlyClosesItsConnection() throws Exception
+	{
+		TellerClient.Connection connection = client.connect(address);
+		
+		try(SocketChannel channel = SocketChannel.open(address))
+		{
+			//Claims more than the longest frame accepted
+			channel.write(ByteBuffer.allocate(ReplicationProtocol.HEADER).putInt(Integer.MAX_VALUE).put(TellerProtocol.SUBMIT).putInt(1).flip());
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals(-1, channel.read(ByteBuffer.allocate(16))));
+		}
+		
+		//Served by the same selector threads, and still answered
+		Transaction transaction = transfer(42047, 42048, 1);
+		assertEquals(transaction, assertTimeoutPreemptively(Duration.ofSeconds(30), () -> connection.submit(transaction).join()));
+		assertTrue(connection.isOpen());
+		connection.close();
+	}
+	
+	//A transfer under a request number no one else uses
+	private static Transaction transfer(int source, int target, double amount)
+	{
+		return new Transaction(primary.incrementRequestNumber(), new int[] {source}, new int[] {target}, new double[] {amount});
+	}
+	
+	//The balances of the accounts from first to last, read over the connection
+	private static double[] balances(TellerClient.Connection connection, int first, int last)
+	{
+		double[] ret = new double[last - first + 1];
+		for(int i = 0; i < ret.length; ++i)
+			ret[i] = connection.getBalance(first + i).join();
+		return ret;
+	}
+}
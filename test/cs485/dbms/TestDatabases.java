@@ -0,0 +1,65 @@
+package cs485.dbms;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import cs485.dbms.load.LoadConfig;
+import cs485.dbms.main.DebugLog.DebugLevel;
+import cs485.dbms.main.Main;
+
+/**
+ * Starts the databases for a test. As they can only be started once a process, each test class starting them runs in a process of its own.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+final class TestDatabases
+{
+	private TestDatabases() {}
+	
+	/**
+	 * Starts the primary and its backups from the accounts of the project, running from the test's own directory,
+	 * as the databases write their files to it.
+	 * @param args the arguments the databases are started with, as given to Main.
+	 * @return the primary database.
+	 */
+	static DatabaseMS start(String... args)
+	{
+		try {
+			Files.copy(getAccounts().toPath(), new File("Accounts.txt").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		Main.log.setDebugLevel(DebugLevel.PERCENT);
+		DatabaseMS.startDatabases(LoadConfig.parse(args));
+		return DatabaseMS.getInstance();
+	}
+	
+	/**
+	 * @return the accounts file of the project.
+	 */
+	static File getAccounts()
+	{
+		return new File(System.getProperty("basedir", "."), "Accounts.txt");
+	}
+	
+	/**
+	 * @return a port no one was listening on a moment ago.
+	 */
+	static int freePort()
+	{
+		try(ServerSocket socket = new ServerSocket(0))
+		{
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
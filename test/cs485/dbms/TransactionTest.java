@@ -0,0 +1,40 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@link Transaction} reads back from the database log exactly as it was written.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class TransactionTest
+{
+	private final Transaction transaction = new Transaction(485, new int[] {42001, 42002, 42003}, new int[] {42004, 42005, 42006},
+			new double[] {12.34, 0.125, 98765432.1 / 3});
+	
+	@Test
+	public void logRoundTripsAtFullPrecision()
+	{
+		assertEquals(transaction, Transaction.fromLog(transaction.toLog()));
+	}
+	
+	@Test
+	public void logRoundTripsInDecimalCommaLocale()
+	{
+		Locale locale = Locale.getDefault();
+		try {
+			//Writes 12,34 for 12.34 if formatted for the locale, which splits into an extra field
+			Locale.setDefault(Locale.GERMANY);
+			assertEquals(transaction, Transaction.fromLog(transaction.toLog()));
+		} finally {
+			Locale.setDefault(locale);
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package cs485.dbms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.load.LoadConfig;
+
+/**
+ * Tests the primary's part in a two phase commit across shards: a branch prepared here holds its locks until its coordinator
+ * decides, is applied or undone by the decision, and is finished by a {@link ShardRouter} restarted with it left undecided.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class TwoPhaseCommitTest
+{
+	//One processing thread, so a branch waiting on its decision would hold up every other request if it held the thread
+	private static final String[] ARGS = {"--tellers=1", "--reads=1", "--processors=1", "--rate=1", "--duration=600", "--seed=485"};
+	
+	private static DatabaseMS primary, backup;
+	
+	@BeforeAll
+	public static void start()
+	{
+		//The tellers of the run only read balances, so every transfer is one of these tests'
+		primary = TestDatabases.start(ARGS);
+		backup = DatabaseMS.getInstance(true);
+	}
+	
+	@Test
+	public void preparedBranchHoldsItsLocksUntilCommitted() throws Exception
+	{
+		Transaction transaction = transfer(42001, 42002, 5);
+		double source = balance(42001), target = balance(42002);
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.prepare(transaction).join());
+		
+		//Applied, but not read until committed, as its accounts are still locked
+		CompletableFuture<Double> read = CompletableFuture.supplyAsync(() -> primary.getAccountTable().readBalance(42001));
+		assertFalse(committedWithin(read, 200));
+		assertFalse(primary.getCommitTracker().isCommitted(transaction.getRequestNumber()));
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.decide(transaction.getRequestNumber(), true).join());
+		assertEquals(source - 5, read.get(30, TimeUnit.SECONDS));
+		assertEquals(target + 5, balance(42002));
+		assertTrue(primary.getCommitTracker().isCommitted(transaction.getRequestNumber()));
+		assertTrue(logged(transaction));
+		
+		//Replicated once decided
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+		{
+			while(!backup.getCommitTracker().isCommitted(transaction.getRequestNumber()))
+				Thread.sleep(10);
+		});
+		assertEquals(source - 5, backup.getAccountTable().get(42001).getBalance());
+	}
+	
+	@Test
+	public void abortedBranchIsUndone()
+	{
+		Transaction transaction = transfer(42003, 42004, 7);
+		double source = balance(42003), target = balance(42004);
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.prepare(transaction).join());
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.decide(transaction.getRequestNumber(), false).join());
+		
+		assertEquals(source, balance(42003));
+		assertEquals(target, balance(42004));
+		assertFalse(primary.getCommitTracker().isCommitted(transaction.getRequestNumber()));
+		assertEquals(0, primary.getActiveTransactionCount());
+		assertFalse(logged(transaction));
+		
+		//Deciding it again, or a request never prepared, does nothing
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> primary.decide(transaction.getRequestNumber(), true).join());
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> primary.decide(Integer.MAX_VALUE, true).join());
+		assertEquals(source, balance(42003));
+	}
+	
+	@Test
+	public void restartedCoordinatorFinishesWhatItLogged() throws IOException
+	{
+		Transaction committed = transfer(42005, 42006, 3), undecided = transfer(42007, 42008, 4);
+		double[] before = {balance(42005), balance(42006), balance(42007), balance(42008)};
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+		{
+			primary.prepare(committed).join();
+			primary.prepare(undecided).join();
+		});
+		
+		//As left by a coordinator that crashed after deciding one and before deciding the other
+		try(PrintWriter log = new PrintWriter(new File("DBLog_Coordinator.txt")))
+		{
+			log.println("<PREPARE " + committed.getRequestNumber() + ">0");
+			log.println("<PREPARE " + undecided.getRequestNumber() + ">0");
+			log.println("<COMMIT " + committed.getRequestNumber() + ">0");
+		}
+		
+		ShardRouter router = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> new ShardRouter(primary, LoadConfig.parse(ARGS)));
+		router.close();
+		
+		assertTrue(primary.getCommitTracker().isCommitted(committed.getRequestNumber()));
+		assertEquals(before[0] - 3, balance(42005));
+		assertEquals(before[1] + 3, balance(42006));
+		assertTrue(logged(committed));
+		
+		//Aborted, and skipped so the watermark moves past it
+		assertEquals(before[2], balance(42007));
+		assertEquals(before[3], balance(42008));
+		assertFalse(logged(undecided));
+		assertTrue(primary.getCommitTracker().isCommitted(undecided.getRequestNumber()));
+		assertEquals(0, primary.getActiveTransactionCount());
+	}
+	
+	@Test
+	public void undecidedBranchesDontHoldUpOtherRequests()
+	{
+		Transaction[] branches = {transfer(42011, 42012, 1), transfer(42013, 42014, 1), transfer(42015, 42016, 1)};
+		double before = balance(42017);
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+		{
+			for(Transaction branch : branches)
+				primary.prepare(branch).join();
+			
+			//Committed by the only processing thread while every branch still waits on its coordinator
+			primary.submit(transfer(42017, 42018, 2)).join();
+		});
+		assertEquals(before - 2, balance(42017));
+		
+		//Each finished by the same thread once decided, whichever way
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () ->
+		{
+			primary.decide(branches[0].getRequestNumber(), true).join();
+			primary.decide(branches[1].getRequestNumber(), false).join();
+			primary.decide(branches[2].getRequestNumber(), true).join();
+		});
+		assertTrue(primary.getCommitTracker().isCommitted(branches[0].getRequestNumber()));
+		assertFalse(primary.getCommitTracker().isCommitted(branches[1].getRequestNumber()));
+		assertTrue(primary.getCommitTracker().isCommitted(branches[2].getRequestNumber()));
+		assertEquals(0, primary.getActiveTransactionCount());
+	}
+	
+	@Test
+	public void logReplayLeavesOutUndecidedBranches() throws IOException
+	{
+		Transaction transaction = transfer(42009, 42010, 1);
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.prepare(transaction).join());
+		assertFalse(logged(transaction));
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> primary.decide(transaction.getRequestNumber(), true).join());
+		assertTrue(logged(transaction));
+	}
+	
+	//A transfer under a request number no one else uses
+	private static Transaction transfer(int source, int target, double amount)
+	{
+		return new Transaction(primary.incrementRequestNumber(), new int[] {source}, new int[] {target}, new double[] {amount});
+	}
+	
+	private static double balance(int accountNumber)
+	{
+		return primary.getAccountTable().readBalance(accountNumber);
+	}
+	
+	//True if the primary's log replays the transaction as committed
+	private static boolean logged(Transaction transaction)
+	{
+		try {
+			primary.awaitLogged();
+			List<Transaction> log = primary.readLog();
+			return log.contains(transaction);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+	private static boolean committedWithin(CompletableFuture<?> future, long millis) throws InterruptedException
+	{
+		Thread.sleep(millis);
+		return future.isDone();
+	}
+}
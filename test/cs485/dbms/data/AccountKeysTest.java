@@ -0,0 +1,83 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the {@link AccountKeys} of an {@link AccountTable} follow its accounts, and sample them evenly or by weight.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AccountKeysTest
+{
+	private static final int FIRST_ACCOUNT = 42001, ACCOUNTS = 20, PICKS = 200000;
+	
+	private final AccountTable table = new AccountTable();
+	private final AccountKeys keys = table.getAccountKeys();
+	
+	public AccountKeysTest()
+	{
+		for(int i = 0; i < ACCOUNTS; ++i)
+			table.add(new Account("First" + i, "Last" + i, FIRST_ACCOUNT + i, 100));
+	}
+	
+	@Test
+	public void keysFollowTheTable()
+	{
+		int[] before = keys.snapshot();
+		table.remove(FIRST_ACCOUNT + 3);
+		table.add(new Account("First", "Last", FIRST_ACCOUNT + ACCOUNTS, 100));
+		
+		//A snapshot taken earlier is never changed
+		assertEquals(ACCOUNTS, before.length);
+		assertEquals(FIRST_ACCOUNT + 3, before[3]);
+		
+		int[] after = keys.snapshot();
+		Arrays.sort(after);
+		assertArrayEquals(table.getKeySet().stream().mapToInt(Integer::intValue).toArray(), after);
+		assertEquals(ACCOUNTS, keys.size());
+		
+		table.clear();
+		assertEquals(0, keys.size());
+		assertThrows(NoSuchElementException.class, () -> keys.sample(new Random()));
+	}
+	
+	@Test
+	public void sampleIsUniform()
+	{
+		int[] counts = new int[ACCOUNTS];
+		Random rand = new Random(42);
+		for(int i = 0; i < PICKS; ++i)
+			++counts[keys.sample(rand) - FIRST_ACCOUNT];
+		
+		for(int i = 0; i < ACCOUNTS; ++i)
+			assertEquals(1.0d / ACCOUNTS, counts[i] / (double) PICKS, 0.005d, "Account " + (FIRST_ACCOUNT + i));
+	}
+	
+	@Test
+	public void weightedSampleFollowsTheWeights()
+	{
+		//Only even accounts, the first twice as likely as the rest
+		AliasSampler sampler = keys.weighted(account -> account % 2 == 1 ? 0 : account == FIRST_ACCOUNT + 1 ? 2 : 1);
+		int[] counts = new int[ACCOUNTS];
+		Random rand = new Random(42);
+		for(int i = 0; i < PICKS; ++i)
+			++counts[sampler.next(rand) - FIRST_ACCOUNT];
+		
+		for(int i = 0; i < ACCOUNTS; ++i)
+		{
+			double expected = i % 2 == 0 ? 0 : i == 1 ? 2.0d / 11 : 1.0d / 11;
+			assertEquals(expected, counts[i] / (double) PICKS, 0.005d, "Account " + (FIRST_ACCOUNT + i));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.lock.LockOwner;
+
+/**
+ * Tests the queries of {@link AccountTable} that read every account while transfers commit.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AccountTableTest
+{
+	private static final int FIRST_ACCOUNT = 42001, ACCOUNTS = 1000, TRANSFER_THREADS = 4;
+	private static final double BALANCE = 1000000.0d;
+	
+	@Test
+	public void snapshotConservesMoneyUnderTransfers() throws InterruptedException
+	{
+		AccountTable table = fillTable();
+		long expectedCents = Math.round(ACCOUNTS * BALANCE * 100);
+		
+		runTransfers(table, () ->
+		{
+			for(int i = 0; i < 200; ++i)
+			{
+				AccountSnapshot snapshot = table.snapshot();
+				assertEquals(ACCOUNTS, snapshot.size());
+				assertEquals(expectedCents, Math.round(snapshot.getTotal() * 100));
+				assertEquals(expectedCents, Math.round(snapshot.getStatistics().getSum() * 100));
+			}
+		});
+	}
+	
+	@Test
+	public void aggregatesCoverEveryAccountOnce()
+	{
+		//Account i holds i + 1 dollars
+		AccountTable table = new AccountTable();
+		for(int i = 0; i < ACCOUNTS; ++i)
+			table.add(new Account("First" + i, "Last" + i, FIRST_ACCOUNT + i, i + 1));
+		AccountSnapshot snapshot = table.snapshot();
+		
+		assertArrayEquals(IntStream.range(FIRST_ACCOUNT, FIRST_ACCOUNT + ACCOUNTS).toArray(),
+				snapshot.indexes().map(snapshot::getAccountNumber).sorted().toArray());
+		
+		DoubleSummaryStatistics statistics = snapshot.getStatistics();
+		assertEquals(ACCOUNTS, statistics.getCount());
+		assertEquals(ACCOUNTS * (ACCOUNTS + 1) / 2, statistics.getSum());
+		assertEquals(1, statistics.getMin());
+		assertEquals(ACCOUNTS, statistics.getMax());
+		
+		//A balance equal to a bound counts in the bucket above it
+		assertArrayEquals(new long[] {99, 400, 501}, snapshot.getDistribution(new double[] {100, 500}));
+		
+		Map<Integer, Double> top = snapshot.getTop(3);
+		assertEquals(List.of(FIRST_ACCOUNT + 999, FIRST_ACCOUNT + 998, FIRST_ACCOUNT + 997), List.copyOf(top.keySet()));
+		assertEquals(List.of(1000.0d, 999.0d, 998.0d), List.copyOf(top.values()));
+	}
+	
+	@Test
+	public void summaryConservesMoneyUnderTransfers() throws InterruptedException
+	{
+		AccountTable table = fillTable();
+		long expectedCents = Math.round(ACCOUNTS * BALANCE * 100);
+		
+		runTransfers(table, () ->
+		{
+			for(int i = 0; i < 5000; ++i)
+			{
+				BalanceSummary summary = table.getBalanceSummary();
+				assertEquals(ACCOUNTS, summary.getCount());
+				assertEquals(expectedCents, summary.getTotalCents());
+			}
+		});
+		
+		//Once transfers stop, each partition's running summary matches its accounts
+		BalanceSummary[] partitions = table.getPartitionSummaries();
+		long[] totals = new long[partitions.length];
+		double[] mins = new double[partitions.length], maxes = new double[partitions.length];
+		int[] counts = new int[partitions.length];
+		Arrays.fill(mins, Double.MAX_VALUE);
+		for(Account account : table)
+		{
+			int partition = account.getAccountNumber() % partitions.length;
+			++counts[partition];
+			totals[partition] += Math.round(account.getBalance() * 100);
+			mins[partition] = Math.min(mins[partition], account.getBalance());
+			maxes[partition] = Math.max(maxes[partition], account.getBalance());
+		}
+		for(int i = 0; i < partitions.length; ++i)
+		{
+			assertEquals(counts[i], partitions[i].getCount(), "Partition " + i);
+			assertEquals(totals[i], partitions[i].getTotalCents(), "Partition " + i);
+			assertEquals(mins[i], partitions[i].getMin(), 0.005d, "Partition " + i);
+			assertEquals(maxes[i], partitions[i].getMax(), 0.005d, "Partition " + i);
+		}
+	}
+	
+	@Test
+	public void summaryFollowsAddsRemovesAndRepairs()
+	{
+		AccountTable table = fillTable();
+		table.setBalance(table.get(FIRST_ACCOUNT), 5.25d);
+		table.remove(FIRST_ACCOUNT + 1);
+		table.add(new Account("First", "Last", FIRST_ACCOUNT + ACCOUNTS, 2000000.5d));
+		
+		BalanceSummary summary = table.getBalanceSummary();
+		assertEquals(ACCOUNTS, summary.getCount());
+		assertEquals(Math.round((ACCOUNTS - 2) * BALANCE * 100) + 525 + 200000050, summary.getTotalCents());
+		assertEquals(5.25d, summary.getMin());
+		assertEquals(2000000.5d, summary.getMax());
+	}
+	
+	static AccountTable fillTable()
+	{
+		AccountTable table = new AccountTable();
+		for(int i = 0; i < ACCOUNTS; ++i)
+			table.add(new Account("First" + i, "Last" + i, FIRST_ACCOUNT + i, BALANCE));
+		return table;
+	}
+	
+	//Runs the check while transfers between random accounts commit on other threads, locking as a processing thread does
+	static void runTransfers(AccountTable table, Runnable check) throws InterruptedException
+	{
+		AtomicBoolean running = new AtomicBoolean(true);
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < TRANSFER_THREADS; ++t)
+		{
+			long seed = t;
+			Thread thread = new Thread(() ->
+			{
+				Random random = new Random(seed);
+				for(long id = seed; running.get(); id += TRANSFER_THREADS)
+				{
+					int source = FIRST_ACCOUNT + random.nextInt(ACCOUNTS), target = FIRST_ACCOUNT + random.nextInt(ACCOUNTS);
+					if(source == target)
+						continue;
+					
+					LockOwner owner = new LockOwner(id);
+					if(table.lockAccounts(owner, new int[] {source, target}))
+						table.transfer(table.get(source), table.get(target), random.nextInt(100000) / 100.0d);
+					table.unlockAll(owner);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		
+		try {
+			check.run();
+		} finally {
+			running.set(false);
+			for(Thread thread : threads)
+				thread.join();
+		}
+	}
+}
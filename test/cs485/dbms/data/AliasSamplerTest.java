@@ -0,0 +1,87 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AliasSampler} picks each value in proportion to its weight.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class AliasSamplerTest
+{
+	private static final int PICKS = 1000000;
+	
+	@Test
+	public void picksInProportionToWeight()
+	{
+		double[] weights = {1, 2, 3, 4, 0, 10};
+		assertFrequencies(weights, 0.005d);
+	}
+	
+	@Test
+	public void skewedWeightsKeepTheirShare()
+	{
+		//One heavy value among many light ones, as with a hot account
+		double[] weights = new double[100];
+		Arrays.fill(weights, 1);
+		weights[37] = 99;
+		assertFrequencies(weights, 0.003d);
+	}
+	
+	@Test
+	public void singleValueIsAlwaysPicked()
+	{
+		AliasSampler sampler = new AliasSampler(new int[] {42001}, new double[] {0.5});
+		Random rand = new Random(1);
+		for(int i = 0; i < 1000; ++i)
+			assertEquals(42001, sampler.next(rand));
+	}
+	
+	@Test
+	public void invalidWeightsAreRefused()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[0], new double[0]));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[] {1, 2}, new double[] {1}));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[] {1, 2}, new double[] {0, 0}));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[] {1, 2}, new double[] {1, -1}));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[] {1, 2}, new double[] {1, Double.NaN}));
+		assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[] {1, 2}, new double[] {1, Double.POSITIVE_INFINITY}));
+	}
+	
+	//Picks the indexes of the weights many times, checking each is picked within the tolerance of its share of the total weight
+	private static void assertFrequencies(double[] weights, double tolerance)
+	{
+		int[] values = new int[weights.length];
+		double total = 0;
+		for(int i = 0; i < weights.length; ++i)
+		{
+			values[i] = i;
+			total += weights[i];
+		}
+		
+		AliasSampler sampler = new AliasSampler(values, weights);
+		assertEquals(weights.length, sampler.size());
+		
+		int[] counts = new int[weights.length];
+		Random rand = new Random(42);
+		for(int i = 0; i < PICKS; ++i)
+			++counts[sampler.next(rand)];
+		
+		for(int i = 0; i < weights.length; ++i)
+		{
+			if(weights[i] == 0)
+				assertEquals(0, counts[i], "Value " + i);
+			else
+				assertEquals(weights[i] / total, counts[i] / (double) PICKS, tolerance, "Value " + i);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link MerkleTree} finds exactly the rows two account files differ in, and that {@link AccountWriter} repairs them.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class MerkleTreeTest
+{
+	//Not a power of two, so the last leaves are padding
+	private static final int ROWS = 1000, FIRST_ACCOUNT = 42001;
+	
+	@TempDir
+	Path dir;
+	
+	@Test
+	public void diffFindsExactlyTheChangedRows()
+	{
+		MerkleTree a = tree(), b = tree();
+		assertEquals(a.getRoot(), b.getRoot());
+		assertArrayEquals(new int[0], MerkleTree.diff(a, b));
+		
+		b.update(0, "changed".getBytes());
+		b.update(517, "changed".getBytes());
+		b.update(ROWS - 1, "changed".getBytes());
+		assertNotEquals(a.getRoot(), b.getRoot());
+		assertArrayEquals(new int[] {0, 517, ROWS - 1}, MerkleTree.diff(a, b));
+		assertArrayEquals(new int[] {0, 517, ROWS - 1}, MerkleTree.diff(b, a));
+		
+		//Writing the row back as it was makes the trees equal again
+		b.update(517, ("row " + 517).getBytes());
+		assertArrayEquals(new int[] {0, ROWS - 1}, MerkleTree.diff(a, b));
+	}
+	
+	@Test
+	public void updatesMatchABuildOfTheSameRows()
+	{
+		MerkleTree built = tree(), updated = new MerkleTree(ROWS);
+		for(int i = ROWS - 1; i >= 0; --i)
+			updated.update(i, ("row " + i).getBytes());
+		assertEquals(built.getRoot(), updated.getRoot());
+		
+		//The same rows in a different order are a different file
+		updated.update(1, "row 2".getBytes());
+		updated.update(2, "row 1".getBytes());
+		assertArrayEquals(new int[] {1, 2}, MerkleTree.diff(built, updated));
+	}
+	
+	@Test
+	public void treesOverDifferentRowCountsAreNotCompared()
+	{
+		assertThrows(IllegalArgumentException.class, () -> MerkleTree.diff(tree(), new MerkleTree(ROWS + 1)));
+	}
+	
+	@Test
+	public void repairCopiesOnlyDivergedAccounts() throws IOException
+	{
+		AccountTable primaryTable = table(), backupTable = table();
+		AccountWriter primary = writer(primaryTable, "primary.txt"), backup = writer(backupTable, "backup.txt");
+		assertEquals(primary.getTree().getRoot(), backup.getTree().getRoot());
+		
+		//A transfer the backup missed, and one it applied to the wrong account
+		primaryTable.transfer(primaryTable.get(FIRST_ACCOUNT + 5), primaryTable.get(FIRST_ACCOUNT + 900), 12.34d);
+		primary.writeAccount(primaryTable.get(FIRST_ACCOUNT + 5));
+		primary.writeAccount(primaryTable.get(FIRST_ACCOUNT + 900));
+		backupTable.deposit(backupTable.get(FIRST_ACCOUNT + 42), 1);
+		backup.writeAccount(backupTable.get(FIRST_ACCOUNT + 42));
+		
+		Account[] repaired = backup.repairFrom(primary);
+		assertArrayEquals(new int[] {FIRST_ACCOUNT + 5, FIRST_ACCOUNT + 42, FIRST_ACCOUNT + 900},
+				Arrays.stream(repaired).mapToInt(Account::getAccountNumber).sorted().toArray());
+		
+		assertEquals(primary.getTree().getRoot(), backup.getTree().getRoot());
+		assertArrayEquals(Files.readAllBytes(dir.resolve("primary.txt")), Files.readAllBytes(dir.resolve("backup.txt")));
+		assertEquals(primaryTable.getBalanceSummary().getTotalCents(), backupTable.getBalanceSummary().getTotalCents());
+		assertEquals(0, backup.repairFrom(primary).length);
+		
+		primary.closeAccountFile();
+		backup.closeAccountFile();
+	}
+	
+	private static MerkleTree tree()
+	{
+		byte[][] rows = new byte[ROWS][];
+		for(int i = 0; i < ROWS; ++i)
+			rows[i] = ("row " + i).getBytes();
+		
+		MerkleTree ret = new MerkleTree(ROWS);
+		ret.build(rows);
+		return ret;
+	}
+	
+	private static AccountTable table()
+	{
+		AccountTable ret = new AccountTable();
+		for(int i = 0; i < ROWS; ++i)
+			ret.add(new Account("First" + i, "Last" + i, FIRST_ACCOUNT + i, 1000 + i));
+		return ret;
+	}
+	
+	private AccountWriter writer(AccountTable table, String fileName) throws IOException
+	{
+		AccountWriter ret = new AccountWriter(table, dir.resolve(fileName).toString());
+		ret.openAccountFile();
+		return ret;
+	}
+}
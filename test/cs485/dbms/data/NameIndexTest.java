@@ -0,0 +1,78 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the lookups of {@link AccountTable} by holder name, through its {@link NameIndex}.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class NameIndexTest
+{
+	private final AccountTable table = new AccountTable();
+	
+	public NameIndexTest()
+	{
+		table.add(new Account("John", "Smith", 42001, 100));
+		table.add(new Account("jane", "SMITH", 42002, 100));
+		table.add(new Account("Alice", "Smithe", 42003, 100));
+		table.add(new Account("Bob", "Smyth", 42004, 100));
+		table.add(new Account("Joan", "Smith", 42005, 100));
+		table.add(new Account("Carol", "Jones", 42006, 100));
+	}
+	
+	@Test
+	public void lastNamePrefixIgnoresCase()
+	{
+		table.createNameIndex();
+		
+		assertEquals(List.of(42002, 42005, 42001, 42003, 42004), numbers(table.findByLastName("sm")));
+		//Every Smith, ordered by first name, then the longer Smithe
+		assertEquals(List.of(42002, 42005, 42001, 42003), numbers(table.findByLastName("SMITH")));
+		assertEquals(List.of(), numbers(table.findByLastName("Brown")));
+	}
+	
+	@Test
+	public void fullNameMatchesTheWholeLastName()
+	{
+		table.createNameIndex();
+		
+		//Smithe is not a Smith
+		assertEquals(List.of(42005, 42001), numbers(table.findByName("smith", "Jo")));
+		assertEquals(List.of(42002, 42005, 42001), numbers(table.findByName("Smith", "")));
+		assertEquals(List.of(42003), numbers(table.findByName("Smithe", "a")));
+		assertEquals(List.of(), numbers(table.findByName("Smit", "")));
+	}
+	
+	@Test
+	public void indexFollowsAddsAndRemoves()
+	{
+		table.createNameIndex();
+		table.add(new Account("Jack", "Smith", 42007, 100));
+		table.remove(42001);
+		
+		assertEquals(List.of(42007, 42002, 42005), numbers(table.findByName("Smith", "J")));
+		table.clear();
+		assertEquals(List.of(), numbers(table.findByLastName("")));
+	}
+	
+	@Test
+	public void lookupsNeedTheIndex()
+	{
+		assertThrows(IllegalStateException.class, () -> table.findByLastName("Smith"));
+	}
+	
+	private static List<Integer> numbers(List<Account> accounts)
+	{
+		return accounts.stream().map(Account::getAccountNumber).collect(Collectors.toList());
+	}
+}
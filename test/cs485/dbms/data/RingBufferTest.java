@@ -0,0 +1,106 @@
+package cs485.dbms.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the hand over of items by {@link RingBuffer}, from many producer threads to many consumer threads.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RingBufferTest
+{
+	@Test
+	public void fullRingRefusesUntilPolled()
+	{
+		RingBuffer<Integer> ring = new RingBuffer<Integer>(4);
+		for(int i = 0; i < 4; ++i)
+			assertTrue(ring.offer(i));
+		assertFalse(ring.offer(4));
+		assertEquals(4, ring.size());
+		
+		assertEquals(0, ring.poll());
+		assertTrue(ring.offer(4));
+		
+		Integer[] batch = new Integer[8];
+		assertEquals(4, ring.drain(batch));
+		assertEquals(List.of(1, 2, 3, 4), Arrays.asList(batch).subList(0, 4));
+		assertNull(ring.poll());
+		assertTrue(ring.isEmpty());
+	}
+	
+	@Test
+	public void everyItemIsTakenExactlyOnce()
+	{
+		//Small enough that producers lap the consumers and wait on them many times over
+		RingBuffer<Integer> ring = new RingBuffer<Integer>(64);
+		int producers = 4, consumers = 4, perProducer = 100000, total = producers * perProducer;
+		AtomicIntegerArray taken = new AtomicIntegerArray(total);
+		AtomicInteger remaining = new AtomicInteger(total);
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		for(int p = 0; p < producers; ++p)
+		{
+			int first = p * perProducer;
+			threads.add(new Thread(() ->
+			{
+				for(int i = 0; i < perProducer; ++i)
+					ring.put(first + i);
+			}));
+		}
+		for(int c = 0; c < consumers; ++c)
+		{
+			threads.add(new Thread(() ->
+			{
+				Integer[] batch = new Integer[16];
+				while(remaining.get() > 0)
+				{
+					int count = ring.drain(batch, TimeUnit.MILLISECONDS.toNanos(1));
+					for(int i = 0; i < count; ++i)
+						taken.incrementAndGet(batch[i]);
+					remaining.addAndGet(-count);
+				}
+			}));
+		}
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(60), () ->
+		{
+			for(Thread thread : threads)
+				thread.start();
+			for(Thread thread : threads)
+				thread.join();
+		});
+		
+		for(int i = 0; i < total; ++i)
+			assertEquals(1, taken.get(i), "Item " + i);
+		assertTrue(ring.isEmpty());
+	}
+	
+	@Test
+	public void drainKeepsInterruptWhileWaiting()
+	{
+		RingBuffer<Integer> ring = new RingBuffer<Integer>(4);
+		Thread.currentThread().interrupt();
+		
+		//Not preemptively, as that would wait on another thread than the one interrupted
+		assertTimeout(Duration.ofSeconds(10), () -> assertEquals(0, ring.drain(new Integer[4], TimeUnit.SECONDS.toNanos(30))));
+		assertTrue(Thread.interrupted());
+	}
+}
@@ -0,0 +1,88 @@
+package cs485.dbms.lock;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.metrics.LockProfiler;
+
+/**
+ * Tests that the {@link DeadlockDetector} breaks a cycle of owners waiting on each other's locks by aborting the youngest,
+ * whichever owner closes the cycle.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class DeadlockDetectorTest
+{
+	private static final int A = 42001, B = 42002, C = 42003;
+	
+	private final LockManager locks = new LockManager(20, 1024, new LockProfiler(20));
+	
+	@Test
+	public void olderOwnerClosingTheCycleAbortsTheYounger() throws Exception
+	{
+		LockOwner older = new LockOwner(1), younger = new LockOwner(2);
+		assertTrue(locks.lockRow(older, A));
+		assertTrue(locks.lockRow(younger, B));
+		
+		CompletableFuture<Boolean> aborted = lockBlocked(younger, A);
+		//Waits until the younger owner gives up its lock
+		assertTrue(locks.lockRow(older, B));
+		assertFalse(aborted.get(10, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void youngerOwnerClosingTheCycleGivesUpItself() throws Exception
+	{
+		LockOwner older = new LockOwner(1), younger = new LockOwner(2);
+		assertTrue(locks.lockRow(older, A));
+		assertTrue(locks.lockRow(younger, B));
+		
+		CompletableFuture<Boolean> waiting = lockBlocked(older, B);
+		assertFalse(locks.lockRow(younger, A));
+		assertFalse(waiting.isDone());
+		
+		locks.unlockAll(younger);
+		assertTrue(waiting.get(10, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void youngestOnALongerCycleIsAborted() throws Exception
+	{
+		LockOwner oldest = new LockOwner(5), youngest = new LockOwner(9), middle = new LockOwner(7);
+		assertTrue(locks.lockRow(oldest, A));
+		assertTrue(locks.lockRow(youngest, B));
+		assertTrue(locks.lockRow(middle, C));
+		
+		CompletableFuture<Boolean> aborted = lockBlocked(youngest, C);
+		CompletableFuture<Boolean> waiting = lockBlocked(middle, A);
+		
+		assertTrue(locks.lockRow(oldest, B));
+		assertFalse(aborted.get(10, TimeUnit.SECONDS));
+		//Not on a cycle any more, so it keeps waiting rather than being aborted too
+		assertFalse(waiting.isDone());
+		
+		locks.unlockAll(oldest);
+		assertTrue(waiting.get(10, TimeUnit.SECONDS));
+	}
+	
+	//Locks the row on a thread of its own once the lock is waited on, releasing everything held if aborted, as a transaction would
+	private CompletableFuture<Boolean> lockBlocked(LockOwner owner, int accountNumber) throws InterruptedException
+	{
+		return LockManagerTest.lockBlocked(() ->
+		{
+			if(locks.lockRow(owner, accountNumber))
+				return true;
+			
+			locks.unlockAll(owner);
+			return false;
+		});
+	}
+}
@@ -0,0 +1,144 @@
+package cs485.dbms.lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.data.AccountTable;
+import cs485.dbms.metrics.LockProfiler;
+
+/**
+ * Tests which modes of the {@link LockManager}'s table and row locks are held together, and which wait.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class LockManagerTest
+{
+	private final LockManager locks = new LockManager(20, 1024, new LockProfiler(20));
+	
+	@Test
+	public void modesFollowTheMultiGranularityMatrix()
+	{
+		LockMode[] modes = LockMode.values();
+		//Each row lists the modes it is compatible with
+		String[] compatible = {"IS IX S SIX", "IS IX", "IS S", "IS", ""};
+		for(LockMode mode : modes)
+		{
+			for(LockMode other : modes)
+			{
+				boolean expected = (" " + compatible[mode.ordinal()] + " ").contains(" " + other + " ");
+				assertEquals(expected, mode.isCompatibleWith(other), mode + " with " + other);
+				assertEquals(mode.isCompatibleWith(other), other.isCompatibleWith(mode), mode + " with " + other);
+			}
+		}
+		
+		assertEquals(LockMode.SIX, LockMode.IX.combine(LockMode.S));
+		assertEquals(LockMode.SIX, LockMode.S.combine(LockMode.IX));
+		assertEquals(LockMode.X, LockMode.IS.combine(LockMode.X));
+		assertEquals(LockMode.IX, LockMode.IS.combine(LockMode.IX));
+		assertEquals(LockMode.IX, LockMode.X.getIntention());
+		assertEquals(LockMode.IS, LockMode.S.getIntention());
+	}
+	
+	@Test
+	public void rowWritersShareTheTable()
+	{
+		LockOwner first = new LockOwner(1), second = new LockOwner(2);
+		assertTrue(locks.lockRow(first, 42001));
+		assertTrue(locks.lockRow(second, 42002));
+		
+		assertEquals(LockMode.IX, locks.getTableMode(first));
+		assertEquals(LockMode.IX, locks.getTableMode(second));
+		assertEquals(2, first.getHeldCount());
+	}
+	
+	@Test
+	public void tableReadWaitsForRowWriters() throws Exception
+	{
+		LockOwner writer = new LockOwner(1), reader = new LockOwner(2);
+		assertTrue(locks.lockRow(writer, 42001));
+		
+		CompletableFuture<Boolean> read = lockBlocked(() -> locks.lockTable(reader, LockMode.S));
+		locks.unlockAll(writer);
+		assertTrue(read.get(10, TimeUnit.SECONDS));
+		assertEquals(LockMode.S, locks.getTableMode(reader));
+	}
+	
+	@Test
+	public void readerWritingRowsHoldsSix()
+	{
+		LockOwner owner = new LockOwner(1);
+		assertTrue(locks.lockTable(owner, LockMode.S));
+		assertTrue(locks.lockRow(owner, 42001));
+		assertEquals(LockMode.SIX, locks.getTableMode(owner));
+	}
+	
+	@Test
+	public void queuedTableWriteIsNotStarvedByNewIntentions() throws Exception
+	{
+		LockOwner writer = new LockOwner(1), tableWriter = new LockOwner(2), reader = new LockOwner(3);
+		assertTrue(locks.lockRow(writer, 42001));
+		
+		CompletableFuture<Boolean> exclusive = lockBlocked(() -> locks.lockTable(tableWriter, LockMode.X));
+		//IS is compatible with the IX held, but waits behind the X queued before it
+		CompletableFuture<Boolean> intention = lockBlocked(() -> locks.lockTable(reader, LockMode.IS));
+		
+		locks.unlockAll(writer);
+		assertTrue(exclusive.get(10, TimeUnit.SECONDS));
+		assertFalse(intention.isDone());
+		
+		locks.unlockAll(tableWriter);
+		assertTrue(intention.get(10, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void lockingManyAccountsEscalatesToTheTable() throws Exception
+	{
+		AccountTable table = new AccountTable();
+		LockOwner few = new LockOwner(1), many = new LockOwner(2), other = new LockOwner(3);
+		
+		assertTrue(table.lockAccounts(few, IntStream.range(42001, 42065).toArray()));
+		//The table's intention lock and a row lock each
+		assertEquals(65, few.getHeldCount());
+		table.unlockAll(few);
+		
+		assertTrue(table.lockAccounts(many, IntStream.range(42001, 42066).toArray()));
+		assertEquals(1, many.getHeldCount());
+		
+		//Even an account the escalated owner never asked for is held
+		CompletableFuture<Boolean> row = lockBlocked(() -> table.lockAccount(other, 50000));
+		table.unlockAll(many);
+		assertTrue(row.get(10, TimeUnit.SECONDS));
+	}
+	
+	/**
+	 * Locks on a thread of its own, returning once the thread is waiting for the lock.
+	 * @param lock takes the lock, returning whether it was granted.
+	 * @return completed with whether the lock was granted, once it stops waiting.
+	 */
+	static CompletableFuture<Boolean> lockBlocked(BooleanSupplier lock) throws InterruptedException
+	{
+		CompletableFuture<Boolean> ret = new CompletableFuture<Boolean>();
+		Thread thread = new Thread(() -> ret.complete(lock.getAsBoolean()));
+		thread.setDaemon(true);
+		thread.start();
+		
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(thread.getState() != Thread.State.WAITING && !ret.isDone() && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		
+		assertFalse(ret.isDone(), "Locked without waiting");
+		assertEquals(Thread.State.WAITING, thread.getState());
+		return ret;
+	}
+}
@@ -0,0 +1,108 @@
+package cs485.dbms.lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import cs485.dbms.metrics.LockStats;
+
+/**
+ * Tests that the striped {@link RowLocks} only make transfers wait on each other when they share an account's stripe.
+ * 
+ * @author Ashton Schultz
+ * @instructor Prof. Mark Funk
+ * @class CS485
+ * @date 10.18.2026
+ */
+public class RowLocksTest
+{
+	private final LockStats stats = new LockStats("Test");
+	private final RowLocks rows = new RowLocks(1000, accountNumber -> stats);
+	
+	@Test
+	public void stripesRoundUpToAPowerOfTwo()
+	{
+		assertEquals(1024, rows.getStripeCount());
+		assertEquals(1, new RowLocks(1, accountNumber -> stats).getStripeCount());
+		assertEquals(1024, new RowLocks(1024, accountNumber -> stats).getStripeCount());
+	}
+	
+	@Test
+	public void sequentialAccountsSpreadAcrossStripes()
+	{
+		Set<Integer> used = new HashSet<Integer>();
+		for(int account = 42001; account < 42001 + 512; ++account)
+		{
+			int stripe = rows.stripeOf(account);
+			assertTrue(stripe >= 0 && stripe < rows.getStripeCount());
+			used.add(stripe);
+		}
+		
+		//Half as many accounts as stripes, so sequential numbers should rarely share one
+		assertTrue(used.size() > 450, "Only " + used.size() + " stripes used");
+	}
+	
+	@Test
+	public void differentStripesLockWithoutWaiting()
+	{
+		LockOwner first = new LockOwner(1), second = new LockOwner(2);
+		int account = 42001, other = otherStripe(account);
+		
+		assertTrue(rows.lock(first, account));
+		assertTrue(rows.lock(second, other));
+		assertEquals(2, stats.snapshot().getAcquisitions());
+		assertEquals(0, stats.snapshot().getContendedAcquisitions());
+	}
+	
+	@Test
+	public void sharedAccountWaitsForRelease() throws Exception
+	{
+		LockOwner first = new LockOwner(1), second = new LockOwner(2);
+		assertTrue(rows.lock(first, 42001));
+		
+		CompletableFuture<Boolean> waiting = LockManagerTest.lockBlocked(() -> rows.lock(second, 42001));
+		rows.unlock(first, 42001);
+		assertTrue(waiting.get(10, TimeUnit.SECONDS));
+		assertEquals(1, stats.snapshot().getContendedAcquisitions());
+	}
+	
+	@Test
+	public void accountsOnTheSameStripeShareALock() throws Exception
+	{
+		LockOwner first = new LockOwner(1), second = new LockOwner(2);
+		int account = 42001, collision = sameStripe(account);
+		
+		assertTrue(rows.lock(first, account));
+		//Held already by its owner, so neither waits nor is counted twice
+		assertTrue(rows.lock(first, collision));
+		assertEquals(1, first.getHeldCount());
+		
+		CompletableFuture<Boolean> waiting = LockManagerTest.lockBlocked(() -> rows.lock(second, collision));
+		rows.unlock(first, account);
+		assertTrue(waiting.get(10, TimeUnit.SECONDS));
+	}
+	
+	//Another account hashed to the same stripe as the given one
+	private int sameStripe(int account)
+	{
+		int other = account + 1;
+		while(rows.stripeOf(other) != rows.stripeOf(account))
+			++other;
+		return other;
+	}
+	
+	//Another account hashed to a different stripe than the given one
+	private int otherStripe(int account)
+	{
+		int other = account + 1;
+		while(rows.stripeOf(other) == rows.stripeOf(account))
+			++other;
+		return other;
+	}
+}